@@ -7,13 +7,46 @@ import com.fasterxml.jackson.datatype.joda.JodaModule;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
 import com.google.gson.JsonSerializer;
 import com.google.gson.JsonSyntaxException;
 import org.joda.time.DateTime;
 import org.joda.time.format.ISODateTimeFormat;
+import org.revolut.moneytransfer.config.ApplicationConfig;
 import org.revolut.moneytransfer.controller.AccountController;
+import org.revolut.moneytransfer.controller.IdempotentRoutes;
 import org.revolut.moneytransfer.controller.MoneyTransferController;
+import org.revolut.moneytransfer.domain.Currency;
+import org.revolut.moneytransfer.domain.Money;
+import org.revolut.moneytransfer.domain.MoneyTransfer;
+import org.revolut.moneytransfer.service.account.AccountDao;
+import org.revolut.moneytransfer.service.account.AccountDaoImpl;
+import org.revolut.moneytransfer.service.account.AccountStorage;
+import org.revolut.moneytransfer.service.account.AccountStore;
+import org.revolut.moneytransfer.service.account.BalanceUpdateMode;
+import org.revolut.moneytransfer.service.account.InMemoryAccountStore;
+import org.revolut.moneytransfer.service.account.MappedAccountStore;
+import org.revolut.moneytransfer.service.fx.FxRateTable;
+import org.revolut.moneytransfer.service.jdbc.H2Database;
+import org.revolut.moneytransfer.service.jdbc.JdbcAccountDao;
+import org.revolut.moneytransfer.service.jdbc.JdbcMoneyTransferDao;
+import org.revolut.moneytransfer.service.journal.FileJournal;
+import org.revolut.moneytransfer.service.journal.Journal;
+import org.revolut.moneytransfer.service.journal.JournalReplay;
+import org.revolut.moneytransfer.service.journal.NoopJournal;
+import org.revolut.moneytransfer.service.journal.SnapshotStore;
+import org.revolut.moneytransfer.service.journal.SnapshotWriter;
+import org.revolut.moneytransfer.service.ledger.Ledger;
+import org.revolut.moneytransfer.service.ledger.NoopLedger;
+import org.revolut.moneytransfer.service.ledger.PostingLedger;
+import org.revolut.moneytransfer.service.transfer.MoneyTransferDao;
+import org.revolut.moneytransfer.service.transfer.MoneyTransferDaoImpl;
+import org.revolut.moneytransfer.service.transfer.TransferPipeline;
+import org.revolut.moneytransfer.service.transfer.TransferHolds;
+import org.revolut.moneytransfer.service.transfer.TransferScheduler;
+import org.revolut.moneytransfer.util.TimeOrderedIdGenerator;
+import org.revolut.moneytransfer.util.TransferIds;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import spark.Request;
@@ -21,7 +54,15 @@ import spark.Response;
 import spark.ResponseTransformer;
 import spark.Spark;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import static spark.Spark.exception;
 
@@ -36,34 +77,181 @@ public class ApplicationMain {
     private static final ResponseTransformer JSON_TRANSFORMER = GSON::toJson;
     private static final String JSON = "application/json";
 
+    private static Journal journal = NoopJournal.INSTANCE;
+    private static Optional<SnapshotWriter> snapshotWriter = Optional.empty();
+    private static Optional<MappedAccountStore> mappedAccounts = Optional.empty();
+    private static Optional<H2Database> database = Optional.empty();
+    private static Optional<TransferPipeline> transferPipeline = Optional.empty();
+    private static Optional<TransferScheduler> transferScheduler = Optional.empty();
+    private static Optional<TransferHolds> transferHolds = Optional.empty();
+    private static Optional<PostingLedger> ledger = Optional.empty();
+    private static Optional<AccountDaoImpl> accountDaoImpl = Optional.empty();
+    private static FxRateTable fxRates = FxRateTable.NONE;
+    private static IdempotentRoutes idempotentRoutes;
+
     public static void main(String[] Args) {
         startServer();
     }
 
-    private static void createAccountRoute() {
-        final AccountController accountController = new AccountController(getObjectMapper());
+    private static void createAccountRoute(final AccountDao accountDao) {
+        final AccountController accountController =
+                new AccountController(getObjectMapper(), accountDao, idempotentRoutes);
         accountController.initializeRoutes(GSON, JSON_TRANSFORMER);
     }
 
-    private static void createMoneyTransferController() {
-        final MoneyTransferController moneyTransferController = new MoneyTransferController(getObjectMapper());
+    private static void createMoneyTransferController(final MoneyTransferDao transferDao) {
+        if (ApplicationConfig.asyncTransfers())
+            transferPipeline = Optional.of(new TransferPipeline(transferDao, ApplicationConfig.transferQueueSize()));
+        transferScheduler = Optional.of(new TransferScheduler(transferDao, ApplicationConfig.maxScheduledTransfers()));
+        if (transferDao.supportsHolds())
+            transferHolds = Optional.of(new TransferHolds(transferDao, ApplicationConfig.maxOpenHolds(),
+                    TimeUnit.SECONDS.toMillis(ApplicationConfig.holdExpirySeconds())));
+        final MoneyTransferController moneyTransferController = new MoneyTransferController(getObjectMapper(),
+                transferDao, transferPipeline, transferScheduler, transferHolds, idempotentRoutes);
         moneyTransferController.initializeRoutes(GSON, JSON_TRANSFORMER);
     }
 
     public static int startServer() {
+        final long started = System.nanoTime();
         Spark.init();
+        ApplicationConfig.node().ifPresent(node -> TransferIds.use(new TimeOrderedIdGenerator(node)));
+        idempotentRoutes = new IdempotentRoutes();
 
-        createAccountRoute();
-        createMoneyTransferController();
+        final AccountStorage storage = ApplicationConfig.accountStorage();
+        if (storage == AccountStorage.H2)
+            createJdbcRoutes();
+        else
+            createRoutes(storage);
 
         exception(JsonSyntaxException.class, ApplicationMain::handleInvalidInput);
         LOG.debug("Created exception handlers");
 
         Spark.awaitInitialization();
-        LOG.debug("Ready");
+        LOG.info("Ready in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
         return Spark.port();
     }
 
+    private static void createRoutes(final AccountStorage storage) {
+        final Optional<Path> journalPath = ApplicationConfig.journalPath();
+        final AccountDaoImpl accountDao;
+        final List<MoneyTransfer> transfers;
+        if (journalPath.isPresent() || storage != AccountStorage.MEMORY) {
+            final AccountStore accounts = openAccountStore(storage);
+            final JournalReplay replay = new JournalReplay(accounts);
+            journalPath.ifPresent(path -> recover(path, replay));
+            if (ApplicationConfig.balanceUpdateMode() != BalanceUpdateMode.LOCKING)
+                LOG.warn("Journal or {} storage is enabled, using LOCKING balance updates", storage);
+            accountDao = AccountDaoImpl.builder(accounts)
+                    .journal(journal)
+                    .ledger(openLedger(accounts))
+                    .hotAccounts(hotAccounts(storage))
+                    .build();
+            transfers = replay.getTransfers();
+        } else if (ApplicationConfig.ledger()) {
+            final AccountStore accounts = new InMemoryAccountStore();
+            accountDao = AccountDaoImpl.builder(accounts)
+                    .balanceUpdateMode(ApplicationConfig.balanceUpdateMode())
+                    .ledger(openLedger(accounts))
+                    .hotAccounts(ApplicationConfig.hotAccounts())
+                    .build();
+            transfers = new ArrayList<>();
+        } else {
+            accountDao = new AccountDaoImpl();
+            transfers = new ArrayList<>();
+        }
+
+        accountDaoImpl = Optional.of(accountDao);
+        final MoneyTransferDao transferDao = new MoneyTransferDaoImpl(transfers, accountDao, openFxRates());
+        createAccountRoute(accountDao);
+        createMoneyTransferController(transferDao);
+
+        if (journalPath.isPresent()) {
+            snapshotWriter = Optional.of(new SnapshotWriter(
+                    new SnapshotStore(ApplicationConfig.snapshotDirectory(journalPath.get())),
+                    journal, accountDao.getAccountStore(), accountDao.getAccountLocks(), transferDao));
+            final long interval = ApplicationConfig.snapshotIntervalSeconds();
+            if (interval > 0)
+                snapshotWriter.get().start(interval);
+        }
+    }
+
+    /**
+     * A mapped store hands out a fresh balance on every read, so it cannot keep the sharded balance of a hot account.
+     */
+    private static Set<Long> hotAccounts(final AccountStorage storage) {
+        final Set<Long> hotAccounts = ApplicationConfig.hotAccounts();
+        if (storage == AccountStorage.MAPPED && !hotAccounts.isEmpty()) {
+            LOG.warn("{} storage is enabled, ignoring hot accounts {}", storage, hotAccounts);
+            return Collections.emptySet();
+        }
+        return hotAccounts;
+    }
+
+    private static FxRateTable openFxRates() {
+        final Optional<Path> path = ApplicationConfig.fxRatesPath();
+        if (!path.isPresent())
+            return FxRateTable.NONE;
+        fxRates = FxRateTable.load(path.get());
+        final long interval = ApplicationConfig.fxReloadSeconds();
+        if (interval > 0)
+            fxRates.start(interval);
+        return fxRates;
+    }
+
+    private static Ledger openLedger(final AccountStore accounts) {
+        if (!ApplicationConfig.ledger())
+            return NoopLedger.INSTANCE;
+        final PostingLedger postingLedger = new PostingLedger(accounts, ApplicationConfig.ledgerRetainedPostings(),
+                TimeUnit.DAYS.toMillis(ApplicationConfig.ledgerHistoryDays()));
+        final long interval = ApplicationConfig.ledgerCheckpointSeconds();
+        if (interval > 0)
+            postingLedger.start(interval);
+        ledger = Optional.of(postingLedger);
+        return postingLedger;
+    }
+
+    private static void createJdbcRoutes() {
+        if (ApplicationConfig.journalPath().isPresent())
+            LOG.warn("H2 storage keeps its own transaction log, the journal is not used");
+        if (ApplicationConfig.ledger())
+            LOG.warn("H2 storage keeps its own transaction log, the ledger is not used");
+        if (ApplicationConfig.fxRatesPath().isPresent())
+            LOG.warn("H2 storage only transfers between accounts of the same currency");
+        final H2Database h2 = new H2Database(ApplicationConfig.jdbcUrl(), ApplicationConfig.jdbcPoolSize());
+        database = Optional.of(h2);
+        createAccountRoute(new JdbcAccountDao(h2));
+        createMoneyTransferController(new JdbcMoneyTransferDao(h2));
+    }
+
+    private static AccountStore openAccountStore(final AccountStorage storage) {
+        if (storage == AccountStorage.MEMORY)
+            return new InMemoryAccountStore();
+        try {
+            final MappedAccountStore accounts = new MappedAccountStore(ApplicationConfig.storagePath());
+            mappedAccounts = Optional.of(accounts);
+            LOG.info("Opened {} mapped accounts in {}", accounts.size(), ApplicationConfig.storagePath());
+            return accounts;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot open accounts in " + ApplicationConfig.storagePath(), ex);
+        }
+    }
+
+    /**
+     * Loads the newest snapshot and replays the journal written after it.
+     */
+    private static void recover(final Path journalPath, final JournalReplay replay) {
+        final Path snapshotDirectory = ApplicationConfig.snapshotDirectory(journalPath);
+        try {
+            final long snapshotPosition = new SnapshotStore(snapshotDirectory).loadLatest(replay);
+            journal = new FileJournal(journalPath, ApplicationConfig.journalGroupCommit(), snapshotPosition);
+            replay.replayTail(journal, snapshotPosition);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot recover from " + journalPath, ex);
+        }
+        LOG.info("Recovered {} accounts and {} transfers from {}",
+                replay.getAccounts().size(), replay.getTransfers().size(), journalPath);
+    }
+
     private static void handleInvalidInput(Exception e, Request request, Response response) {
         response.status(400);
         errorResponse(e, request, response);
@@ -80,15 +268,54 @@ public class ApplicationMain {
     public static void stopServer() {
         LOG.debug("Asking server to stop");
         Spark.stop();
+        transferScheduler.ifPresent(TransferScheduler::close);
+        transferScheduler = Optional.empty();
+        transferHolds.ifPresent(TransferHolds::close);
+        transferHolds = Optional.empty();
+        transferPipeline.ifPresent(TransferPipeline::close);
+        transferPipeline = Optional.empty();
+        snapshotWriter.ifPresent(SnapshotWriter::close);
+        snapshotWriter = Optional.empty();
+        accountDaoImpl.ifPresent(AccountDaoImpl::close);
+        accountDaoImpl = Optional.empty();
+        ledger.ifPresent(PostingLedger::close);
+        ledger = Optional.empty();
+        fxRates.close();
+        fxRates = FxRateTable.NONE;
+        journal.close();
+        journal = NoopJournal.INSTANCE;
+        mappedAccounts.ifPresent(ApplicationMain::closeAccounts);
+        mappedAccounts = Optional.empty();
+        database.ifPresent(H2Database::close);
+        database = Optional.empty();
+    }
+
+    private static void closeAccounts(final MappedAccountStore accounts) {
+        try {
+            accounts.close();
+        } catch (IOException ex) {
+            LOG.error("Cannot close mapped accounts", ex);
+        }
     }
 
     private static Gson gsonDateTime() {
         return new GsonBuilder()
                 .registerTypeAdapter(DateTime.class, (JsonSerializer<DateTime>) (json, typeOfSrc, context) -> new JsonPrimitive(ISODateTimeFormat.dateTime().print(json)))
                 .registerTypeAdapter(DateTime.class, (JsonDeserializer<DateTime>) (json, typeOfT, context) -> ISODateTimeFormat.dateTime().parseDateTime(json.getAsString()))
+                .registerTypeHierarchyAdapter(Money.class, (JsonSerializer<Money>) (money, typeOfSrc, context) -> moneyToJson(money))
+                .registerTypeHierarchyAdapter(Money.class, (JsonDeserializer<Money>) (json, typeOfT, context) -> new Money(
+                        json.getAsJsonObject().get("amount").getAsBigDecimal(),
+                        Currency.valueOf(json.getAsJsonObject().get("currency").getAsString())))
                 .create();
     }
 
+    private static JsonObject moneyToJson(final Money money) {
+        final JsonObject json = new JsonObject();
+        json.addProperty("amount", money.getAmount());
+        json.addProperty("currency", money.getCurrency() == null ? null : money.getCurrency().name());
+        return json;
+    }
+
     private static ObjectMapper getObjectMapper() {
         final ObjectMapper mapper = new ObjectMapper();
         mapper.registerModule(new JodaModule());
@@ -0,0 +1,207 @@
+package org.revolut.moneytransfer.config;
+
+import com.google.common.base.Splitter;
+import org.revolut.moneytransfer.service.account.AccountStorage;
+import org.revolut.moneytransfer.service.account.BalanceUpdateMode;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * Startup options, read from system properties, e.g. {@code -Dmoneytransfer.balance.mode=LOCK_FREE}.
+ */
+public final class ApplicationConfig {
+
+    private static final String PREFIX = "moneytransfer.";
+
+    private ApplicationConfig() {
+    }
+
+    public static BalanceUpdateMode balanceUpdateMode() {
+        return BalanceUpdateMode.valueOf(property("balance.mode", BalanceUpdateMode.LOCKING.name()).toUpperCase());
+    }
+
+    /**
+     * Number of {@code PARTITIONED} writer threads, {@code moneytransfer.partitions}, one per processor by default.
+     */
+    public static int partitionCount() {
+        return Integer.parseInt(property("partitions", String.valueOf(Runtime.getRuntime().availableProcessors())));
+    }
+
+    /**
+     * Whether {@code POST /transfer} only queues the transfer and answers 202, {@code moneytransfer.transfer.async}.
+     */
+    public static boolean asyncTransfers() {
+        return Boolean.parseBoolean(property("transfer.async", "false"));
+    }
+
+    /**
+     * Transfers that can wait in the async queue, {@code moneytransfer.transfer.queueSize}, rounded up to a power
+     * of two.
+     */
+    public static int transferQueueSize() {
+        return Integer.parseInt(property("transfer.queueSize", "65536"));
+    }
+
+    /**
+     * Node part of transfer ids, {@code moneytransfer.node}, between 0 and 65535. Random when not set.
+     */
+    public static Optional<Integer> node() {
+        return Optional.ofNullable(property("node", null)).map(Integer::valueOf);
+    }
+
+    /**
+     * Idempotency keys remembered at most, {@code moneytransfer.idempotency.maxKeys}.
+     */
+    public static long idempotencyKeys() {
+        return Long.parseLong(property("idempotency.maxKeys", "1000000"));
+    }
+
+    /**
+     * Minutes an idempotency key is remembered, {@code moneytransfer.idempotency.expiryMinutes}, a day by default.
+     */
+    public static long idempotencyExpiryMinutes() {
+        return Long.parseLong(property("idempotency.expiryMinutes", "1440"));
+    }
+
+    /**
+     * Ids of accounts that receive many concurrent credits, {@code moneytransfer.hotAccounts}, comma separated.
+     */
+    public static Set<Long> hotAccounts() {
+        return Splitter.on(',').trimResults().omitEmptyStrings().splitToList(property("hotAccounts", "")).stream()
+                .map(Long::valueOf)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Account storage, {@code moneytransfer.storage}, MEMORY by default.
+     */
+    public static AccountStorage accountStorage() {
+        return AccountStorage.valueOf(property("storage", AccountStorage.MEMORY.name()).toUpperCase());
+    }
+
+    /**
+     * Directory of the MAPPED account files, {@code moneytransfer.storage.path}.
+     */
+    public static Path storagePath() {
+        return Paths.get(property("storage.path", "accounts"));
+    }
+
+    /**
+     * Database of the H2 storage, {@code moneytransfer.jdbc.url}, an in-memory database by default.
+     */
+    public static String jdbcUrl() {
+        return property("jdbc.url", "jdbc:h2:mem:moneytransfer;DB_CLOSE_DELAY=-1;QUERY_CACHE_SIZE=32");
+    }
+
+    /**
+     * Pooled connections of the H2 storage, {@code moneytransfer.jdbc.poolSize}.
+     */
+    public static int jdbcPoolSize() {
+        return Integer.parseInt(property("jdbc.poolSize", "16"));
+    }
+
+    /**
+     * File of the write-ahead journal, {@code moneytransfer.journal.path}. Without it nothing is persisted.
+     */
+    public static Optional<Path> journalPath() {
+        return Optional.ofNullable(property("journal.path", null)).map(Paths::get);
+    }
+
+    /**
+     * Whether concurrent writers share one fsync, {@code moneytransfer.journal.groupCommit}, on by default.
+     */
+    public static boolean journalGroupCommit() {
+        return Boolean.parseBoolean(property("journal.groupCommit", "true"));
+    }
+
+    /**
+     * Where snapshots go, {@code moneytransfer.snapshot.dir}, next to the journal by default.
+     */
+    public static Path snapshotDirectory(final Path journalPath) {
+        final Path journalDirectory = journalPath.toAbsolutePath().getParent();
+        return Paths.get(property("snapshot.dir", journalDirectory.toString()));
+    }
+
+    /**
+     * Seconds between snapshots, {@code moneytransfer.snapshot.intervalSeconds}, 0 only snapshots on shutdown.
+     */
+    public static long snapshotIntervalSeconds() {
+        return Long.parseLong(property("snapshot.intervalSeconds", "300"));
+    }
+
+    /**
+     * Whether every balance change is also posted to a double-entry ledger, {@code moneytransfer.ledger}.
+     */
+    public static boolean ledger() {
+        return Boolean.parseBoolean(property("ledger", "false"));
+    }
+
+    /**
+     * Postings the ledger keeps after a checkpoint, {@code moneytransfer.ledger.retainedPostings}.
+     */
+    public static int ledgerRetainedPostings() {
+        return Integer.parseInt(property("ledger.retainedPostings", "1000000"));
+    }
+
+    /**
+     * Seconds between ledger checkpoints, {@code moneytransfer.ledger.checkpointSeconds}, 0 never checkpoints.
+     */
+    public static long ledgerCheckpointSeconds() {
+        return Long.parseLong(property("ledger.checkpointSeconds", "60"));
+    }
+
+    /**
+     * Days of balance history kept for point-in-time queries, {@code moneytransfer.ledger.historyDays}.
+     */
+    public static long ledgerHistoryDays() {
+        return Long.parseLong(property("ledger.historyDays", "90"));
+    }
+
+    /**
+     * File of exchange rates, {@code moneytransfer.fx.rates}, one {@code FROM,TO,RATE} line per currency pair.
+     * Without it only transfers between accounts of the same currency are allowed.
+     */
+    public static Optional<Path> fxRatesPath() {
+        return Optional.ofNullable(property("fx.rates", null)).map(Paths::get);
+    }
+
+    /**
+     * Seconds between checks of the exchange rate file for changes, {@code moneytransfer.fx.reloadSeconds}.
+     */
+    public static long fxReloadSeconds() {
+        return Long.parseLong(property("fx.reloadSeconds", "10"));
+    }
+
+    /**
+     * How many future-dated transfers may wait at once, {@code moneytransfer.transfer.maxScheduled}.
+     */
+    public static int maxScheduledTransfers() {
+        return Integer.parseInt(property("transfer.maxScheduled", "10000000"));
+    }
+
+    /**
+     * How many authorization holds may be open at once, {@code moneytransfer.hold.maxOpen}.
+     */
+    public static int maxOpenHolds() {
+        return Integer.parseInt(property("hold.maxOpen", "10000000"));
+    }
+
+    /**
+     * Seconds after which an authorization hold neither captured nor released expires,
+     * {@code moneytransfer.hold.expirySeconds}, a week by default.
+     */
+    public static long holdExpirySeconds() {
+        return Long.parseLong(property("hold.expirySeconds", "604800"));
+    }
+
+    private static String property(final String name, final String defaultValue) {
+        return System.getProperty(PREFIX + name, defaultValue);
+    }
+}
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.exc.InvalidFormatException;
 import com.google.gson.Gson;
 import org.eclipse.jetty.http.HttpStatus;
+import org.joda.time.DateTime;
 import org.revolut.moneytransfer.config.ResponseError;
 import org.revolut.moneytransfer.domain.Account;
 import org.revolut.moneytransfer.domain.AccountStatus;
@@ -21,7 +22,6 @@ import org.slf4j.LoggerFactory;
 import spark.ResponseTransformer;
 import spark.utils.StringUtils;
 
-import java.util.List;
 import java.util.Optional;
 
 import static spark.Spark.before;
@@ -38,10 +38,22 @@ public class AccountController {
     private static final Logger LOG = LoggerFactory.getLogger(AccountController.class);
     private final ObjectMapper objectMapper;
     private static final String JSON = "application/json";
-    private final AccountDao accountDao = new AccountDaoImpl();
+    private final AccountDao accountDao;
+    private final IdempotentRoutes idempotentRoutes;
 
     public AccountController(final ObjectMapper objectMapper) {
+        this(objectMapper, new AccountDaoImpl());
+    }
+
+    public AccountController(final ObjectMapper objectMapper, final AccountDao accountDao) {
+        this(objectMapper, accountDao, new IdempotentRoutes());
+    }
+
+    public AccountController(final ObjectMapper objectMapper, final AccountDao accountDao,
+                             final IdempotentRoutes idempotentRoutes) {
         this.objectMapper = objectMapper;
+        this.accountDao = accountDao;
+        this.idempotentRoutes = idempotentRoutes;
     }
 
     public void initializeRoutes(Gson gson, ResponseTransformer jsonTransformer) {
@@ -75,22 +87,28 @@ public class AccountController {
 
         get("/allAccounts", JSON, (request, response) -> {
             final String flag = request.queryParamOrDefault("flag", "");
+            final String limit = request.queryParams("limit");
 
             try {
-                final List<Account> results;
+                final Optional<AccountStatus> status;
 
                 if (flag.isEmpty()) {
-                    results = accountDao.getAllAccounts(Optional.empty());
+                    status = Optional.empty();
                 } else if (flag.equalsIgnoreCase("active")) {
-                    results = accountDao.getAllAccounts(Optional.of(AccountStatus.ACTIVE));
+                    status = Optional.of(AccountStatus.ACTIVE);
                 } else if (flag.equalsIgnoreCase("inactive")) {
-                    results = accountDao.getAllAccounts(Optional.of(AccountStatus.INACTIVE));
+                    status = Optional.of(AccountStatus.INACTIVE);
                 } else {
                     response.status(HttpStatus.BAD_REQUEST_400);
                     return new ResponseError("Flag value can only consists `ACTIVE` or `INACTIVE`");
                 }
                 response.status(HttpStatus.OK_200);
-                return results;
+                if (limit == null)
+                    return accountDao.getAllAccounts(status);
+                return accountDao.getAccounts(status, request.queryParams("cursor"), Integer.parseInt(limit));
+            } catch (IllegalArgumentException ex) {
+                response.status(HttpStatus.BAD_REQUEST_400);
+                return new ResponseError(ex.getMessage());
             } catch (Exception ex) {
                 response.status(HttpStatus.INTERNAL_SERVER_ERROR_500);
                 return new ResponseError(ex.getMessage());
@@ -113,6 +131,44 @@ public class AccountController {
 
         }, jsonTransformer);
 
+        // only backed by a ledger that keeps balance history
+        if (accountDao.keepsBalanceHistory()) {
+            get("/account/:id/balance", JSON, (request, response) -> {
+                final long accountId = Long.parseLong(request.params("id"));
+                final String at = request.queryParams("at");
+                try {
+                    final DateTime time = at == null ? DateTime.now() : DateTime.parse(at);
+                    response.status(HttpStatus.OK_200);
+                    return accountDao.getBalanceAt(accountId, time);
+                } catch (IllegalArgumentException ex) {
+                    response.status(HttpStatus.BAD_REQUEST_400);
+                    return new ResponseError(ex.getMessage());
+                } catch (AccountNotFoundException ex) {
+                    response.status(HttpStatus.NOT_FOUND_404);
+                    return new ResponseError(ex.getMessage());
+                } catch (Exception ex) {
+                    response.status(HttpStatus.INTERNAL_SERVER_ERROR_500);
+                    return new ResponseError(ex.getMessage());
+                }
+
+            }, jsonTransformer);
+        }
+
+        get("/account/:id/available", JSON, (request, response) -> {
+            final long accountId = Long.parseLong(request.params("id"));
+            try {
+                response.status(HttpStatus.OK_200);
+                return accountDao.getAvailableBalance(accountId);
+            } catch (AccountNotFoundException ex) {
+                response.status(HttpStatus.NOT_FOUND_404);
+                return new ResponseError(ex.getMessage());
+            } catch (Exception ex) {
+                response.status(HttpStatus.INTERNAL_SERVER_ERROR_500);
+                return new ResponseError(ex.getMessage());
+            }
+
+        }, jsonTransformer);
+
         put("/updateAccountInfo", JSON, (request, response) -> {
             final AccountInfoRequest account;
             final String body = request.body();
@@ -168,7 +224,7 @@ public class AccountController {
 
         }, jsonTransformer);
 
-        put("/updateAccountBalance/credit", JSON, (request, response) -> {
+        put("/updateAccountBalance/credit", JSON, idempotentRoutes.of("credit", (request, response) -> {
             final AccountBalanceRequest account;
             final String body = request.body();
             if (body.isEmpty()) {
@@ -196,9 +252,9 @@ public class AccountController {
                 return new ResponseError(ex.getMessage());
             }
 
-        }, jsonTransformer);
+        }, jsonTransformer));
 
-        put("/updateAccountBalance/debit", JSON, (request, response) -> {
+        put("/updateAccountBalance/debit", JSON, idempotentRoutes.of("debit", (request, response) -> {
             final AccountBalanceRequest account;
             try {
                 final String body = request.body();
@@ -225,7 +281,7 @@ public class AccountController {
                 return new ResponseError(ex.getMessage());
             }
 
-        }, jsonTransformer);
+        }, jsonTransformer));
 
     }
 
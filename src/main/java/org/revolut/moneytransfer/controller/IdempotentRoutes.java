@@ -0,0 +1,123 @@
+package org.revolut.moneytransfer.controller;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import org.eclipse.jetty.http.HttpStatus;
+import org.revolut.moneytransfer.config.ApplicationConfig;
+import org.revolut.moneytransfer.config.ResponseError;
+import spark.Request;
+import spark.Response;
+import spark.ResponseTransformer;
+import spark.Route;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * Replays the first response to a request carrying an {@code Idempotency-Key} header to every retry with the same
+ * key, instead of running the route again. A retry that arrives while the first request is still running waits for
+ * it. Only final responses, 2xx and 4xx, are replayed; after a 5xx the next request with the key runs again. Keys
+ * are remembered for a limited time and count, and a key sent again with a different body is refused.
+ */
+public class IdempotentRoutes {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private final Cache<String, CompletableFuture<StoredResponse>> responses;
+
+    public IdempotentRoutes() {
+        this(ApplicationConfig.idempotencyKeys(), ApplicationConfig.idempotencyExpiryMinutes(), TimeUnit.MINUTES);
+    }
+
+    public IdempotentRoutes(final long maxKeys, final long expiry, final TimeUnit unit) {
+        this.responses = CacheBuilder.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterWrite(expiry, unit)
+                .build();
+    }
+
+    /**
+     * Wraps the route so that it renders its own JSON, register it without a response transformer.
+     */
+    public Route of(final String scope, final Route route, final ResponseTransformer jsonTransformer) {
+        return (request, response) -> {
+            final String key = request.headers(HEADER);
+            if (key == null)
+                return jsonTransformer.render(route.handle(request, response));
+
+            final HashCode fingerprint = Hashing.murmur3_128()
+                    .hashString(request.body() == null ? "" : request.body(), StandardCharsets.UTF_8);
+            final String cacheKey = scope + ' ' + key;
+            while (true) {
+                final CompletableFuture<StoredResponse> first = new CompletableFuture<>();
+                final CompletableFuture<StoredResponse> previous = responses.asMap().putIfAbsent(cacheKey, first);
+                if (previous == null)
+                    return handleFirst(cacheKey, first, fingerprint, route, jsonTransformer, request, response);
+
+                final StoredResponse stored;
+                try {
+                    stored = previous.join();
+                } catch (CompletionException ex) {
+                    // the first request has no final outcome, run this one as if it came first
+                    continue;
+                }
+                if (!stored.fingerprint.equals(fingerprint)) {
+                    response.status(HttpStatus.UNPROCESSABLE_ENTITY_422);
+                    return jsonTransformer.render(
+                            new ResponseError(HEADER + " was already used for a different request"));
+                }
+                response.status(stored.status);
+                response.header(REPLAYED_HEADER, "true");
+                return stored.body;
+            }
+        };
+    }
+
+    /**
+     * Runs the route and stores its response if it is final. A 5xx, such as a full queue or a failed journal, and a
+     * thrown exception are forgotten, so that waiting and later requests with the key run the route again.
+     */
+    private String handleFirst(final String cacheKey, final CompletableFuture<StoredResponse> first,
+                               final HashCode fingerprint, final Route route,
+                               final ResponseTransformer jsonTransformer, final Request request,
+                               final Response response) throws Exception {
+        final String body;
+        try {
+            body = jsonTransformer.render(route.handle(request, response));
+        } catch (Exception | Error ex) {
+            forget(cacheKey, first, ex);
+            throw ex;
+        }
+        if (response.status() >= HttpStatus.INTERNAL_SERVER_ERROR_500)
+            forget(cacheKey, first, new IllegalStateException("Request failed with status " + response.status()));
+        else
+            first.complete(new StoredResponse(fingerprint, response.status(), body));
+        return body;
+    }
+
+    private void forget(final String cacheKey, final CompletableFuture<StoredResponse> first, final Throwable cause) {
+        responses.asMap().remove(cacheKey, first);
+        first.completeExceptionally(cause);
+    }
+
+    private static final class StoredResponse {
+
+        private final HashCode fingerprint;
+        private final int status;
+        private final String body;
+
+        private StoredResponse(final HashCode fingerprint, final int status, final String body) {
+            this.fingerprint = fingerprint;
+            this.status = status;
+            this.body = body;
+        }
+    }
+}
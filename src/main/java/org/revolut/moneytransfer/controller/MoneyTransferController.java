@@ -1,19 +1,30 @@
 package org.revolut.moneytransfer.controller;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.gson.Gson;
 import org.eclipse.jetty.http.HttpStatus;
 import org.revolut.moneytransfer.config.ResponseError;
 import org.revolut.moneytransfer.domain.MoneyTransfer;
+import org.revolut.moneytransfer.domain.TransferState;
 import org.revolut.moneytransfer.exception.MoneyTransferWebServiceException;
 import org.revolut.moneytransfer.service.transfer.MoneyTransferDao;
 import org.revolut.moneytransfer.service.transfer.MoneyTransferDaoImpl;
+import org.revolut.moneytransfer.service.transfer.TransferHolds;
+import org.revolut.moneytransfer.service.transfer.TransferPipeline;
+import org.revolut.moneytransfer.service.transfer.TransferScheduler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import spark.Response;
 import spark.ResponseTransformer;
 import spark.utils.StringUtils;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+
 import static spark.Spark.before;
+import static spark.Spark.delete;
 import static spark.Spark.get;
 import static spark.Spark.path;
 import static spark.Spark.post;
@@ -24,12 +35,57 @@ import static spark.Spark.post;
  */
 public class MoneyTransferController {
     private static final Logger LOG = LoggerFactory.getLogger(MoneyTransferController.class);
+    private static final TypeReference<List<MoneyTransfer>> TRANSFER_LIST = new TypeReference<List<MoneyTransfer>>() {
+    };
     private final ObjectMapper objectMapper;
     private static final String JSON = "application/json";
-    private final MoneyTransferDao transferDao = new MoneyTransferDaoImpl();
+    private final MoneyTransferDao transferDao;
+    private final Optional<TransferPipeline> transferPipeline;
+    private final Optional<TransferScheduler> transferScheduler;
+    private final Optional<TransferHolds> transferHolds;
+    private final IdempotentRoutes idempotentRoutes;
 
     public MoneyTransferController(final ObjectMapper objectMapper) {
+        this(objectMapper, new MoneyTransferDaoImpl());
+    }
+
+    public MoneyTransferController(final ObjectMapper objectMapper, final MoneyTransferDao transferDao) {
+        this(objectMapper, transferDao, Optional.empty(), new IdempotentRoutes());
+    }
+
+    /**
+     * With a pipeline, {@code POST /transfer} queues the transfer and answers 202 with its pending state.
+     */
+    public MoneyTransferController(final ObjectMapper objectMapper, final MoneyTransferDao transferDao,
+                                   final Optional<TransferPipeline> transferPipeline,
+                                   final IdempotentRoutes idempotentRoutes) {
+        this(objectMapper, transferDao, transferPipeline, Optional.empty(), idempotentRoutes);
+    }
+
+    /**
+     * With a scheduler, a transfer whose {@code executeAt} is in the future is scheduled and answered with 202.
+     */
+    public MoneyTransferController(final ObjectMapper objectMapper, final MoneyTransferDao transferDao,
+                                   final Optional<TransferPipeline> transferPipeline,
+                                   final Optional<TransferScheduler> transferScheduler,
+                                   final IdempotentRoutes idempotentRoutes) {
+        this(objectMapper, transferDao, transferPipeline, transferScheduler, Optional.empty(), idempotentRoutes);
+    }
+
+    /**
+     * With holds, {@code POST /transfer/authorize} reserves a transfer's amount until it is captured or released.
+     */
+    public MoneyTransferController(final ObjectMapper objectMapper, final MoneyTransferDao transferDao,
+                                   final Optional<TransferPipeline> transferPipeline,
+                                   final Optional<TransferScheduler> transferScheduler,
+                                   final Optional<TransferHolds> transferHolds,
+                                   final IdempotentRoutes idempotentRoutes) {
         this.objectMapper = objectMapper;
+        this.transferDao = transferDao;
+        this.transferPipeline = transferPipeline;
+        this.transferScheduler = transferScheduler;
+        this.transferHolds = transferHolds;
+        this.idempotentRoutes = idempotentRoutes;
     }
 
     public void initializeRoutes(Gson gson, ResponseTransformer jsonTransformer) {
@@ -37,7 +93,7 @@ public class MoneyTransferController {
 
         path("/health", () -> get("", (req, res) -> "healthy"));
 
-        post("/transfer", JSON, (request, response) -> {
+        post("/transfer", JSON, idempotentRoutes.of("transfer", (request, response) -> {
             final MoneyTransfer moneyTransferRequest;
             try {
                 final String body = request.body();
@@ -51,8 +107,76 @@ public class MoneyTransferController {
                 return new ResponseError("Malformed Request");
             }
             try {
+                if (moneyTransferRequest.getExecuteAt() != null && moneyTransferRequest.getExecuteAt().isAfterNow()) {
+                    if (!transferScheduler.isPresent()) {
+                        response.status(HttpStatus.BAD_REQUEST_400);
+                        return new ResponseError("Scheduled transfers are not supported");
+                    }
+                    response.status(HttpStatus.ACCEPTED_202);
+                    return transferScheduler.get().schedule(moneyTransferRequest, moneyTransferRequest.getExecuteAt());
+                }
+                if (transferPipeline.isPresent()) {
+                    final String transferId = transferPipeline.get().submit(moneyTransferRequest);
+                    response.status(HttpStatus.ACCEPTED_202);
+                    return TransferState.pending(transferId);
+                }
                 response.status(HttpStatus.OK_200);
                 return transferDao.newMoneyTransfer(moneyTransferRequest);
+            } catch (RejectedExecutionException ex) {
+                response.status(HttpStatus.SERVICE_UNAVAILABLE_503);
+                return new ResponseError(ex.getMessage());
+            } catch (MoneyTransferWebServiceException ex) {
+                response.status(HttpStatus.FORBIDDEN_403);
+                return new ResponseError(ex.getMessage());
+            } catch (Exception ex) {
+                response.status(HttpStatus.INTERNAL_SERVER_ERROR_500);
+                return new ResponseError(ex.getMessage());
+            }
+        }, jsonTransformer));
+
+        post("/transfer/authorize", JSON, idempotentRoutes.of("authorize", (request, response) -> {
+            final MoneyTransfer moneyTransferRequest;
+            try {
+                final String body = request.body();
+                if (StringUtils.isEmpty(body)) {
+                    response.status(HttpStatus.BAD_REQUEST_400);
+                    return new ResponseError("Payload cannot be empty");
+                }
+                moneyTransferRequest = objectMapper.readValue(body, MoneyTransfer.class);
+            } catch (Exception ex) {
+                response.status(HttpStatus.BAD_REQUEST_400);
+                return new ResponseError("Malformed Request");
+            }
+            if (!transferHolds.isPresent()) {
+                response.status(HttpStatus.BAD_REQUEST_400);
+                return new ResponseError("Authorization holds are not supported");
+            }
+            try {
+                response.status(HttpStatus.CREATED_201);
+                return transferHolds.get().authorize(moneyTransferRequest);
+            } catch (RejectedExecutionException ex) {
+                response.status(HttpStatus.SERVICE_UNAVAILABLE_503);
+                return new ResponseError(ex.getMessage());
+            } catch (MoneyTransferWebServiceException ex) {
+                response.status(HttpStatus.FORBIDDEN_403);
+                return new ResponseError(ex.getMessage());
+            } catch (Exception ex) {
+                response.status(HttpStatus.INTERNAL_SERVER_ERROR_500);
+                return new ResponseError(ex.getMessage());
+            }
+        }, jsonTransformer));
+
+        post("/transfer/:id/capture", JSON, idempotentRoutes.of("capture", (request, response) -> {
+            final String transferId = request.params("id");
+            try {
+                final Optional<MoneyTransfer> transfer = transferHolds.isPresent()
+                        ? transferHolds.get().capture(transferId)
+                        : Optional.empty();
+                if (transfer.isPresent()) {
+                    response.status(HttpStatus.OK_200);
+                    return transfer.get();
+                }
+                return holdNotOpen(transferId, response);
             } catch (MoneyTransferWebServiceException ex) {
                 response.status(HttpStatus.FORBIDDEN_403);
                 return new ResponseError(ex.getMessage());
@@ -60,18 +184,85 @@ public class MoneyTransferController {
                 response.status(HttpStatus.INTERNAL_SERVER_ERROR_500);
                 return new ResponseError(ex.getMessage());
             }
+        }, jsonTransformer));
+
+        post("/transfer/:id/release", JSON, (request, response) -> {
+            final String transferId = request.params("id");
+            if (transferHolds.isPresent() && transferHolds.get().release(transferId)) {
+                response.status(HttpStatus.OK_200);
+                return TransferState.released(transferId);
+            }
+            return holdNotOpen(transferId, response);
+        }, jsonTransformer);
+
+        get("/transfer/:id", JSON, (request, response) -> {
+            final Optional<TransferState> state = status(request.params("id"));
+            if (!state.isPresent()) {
+                response.status(HttpStatus.NOT_FOUND_404);
+                return new ResponseError("Transfer not found");
+            }
+            response.status(HttpStatus.OK_200);
+            return state.get();
+        }, jsonTransformer);
+
+        delete("/transfer/:id", JSON, (request, response) -> {
+            final String transferId = request.params("id");
+            if (transferScheduler.isPresent() && transferScheduler.get().cancel(transferId)) {
+                response.status(HttpStatus.OK_200);
+                return TransferState.cancelled(transferId);
+            }
+            if (status(transferId).isPresent()) {
+                response.status(HttpStatus.CONFLICT_409);
+                return new ResponseError("Transfer is no longer scheduled");
+            }
+            response.status(HttpStatus.NOT_FOUND_404);
+            return new ResponseError("Transfer not found");
+        }, jsonTransformer);
+
+        post("/transfers/batch", JSON, (request, response) -> {
+            final List<MoneyTransfer> transferRequests;
+            try {
+                final String body = request.body();
+                if (StringUtils.isEmpty(body)) {
+                    response.status(HttpStatus.BAD_REQUEST_400);
+                    return new ResponseError("Payload cannot be empty");
+                }
+                transferRequests = objectMapper.readValue(body, TRANSFER_LIST);
+            } catch (Exception ex) {
+                response.status(HttpStatus.BAD_REQUEST_400);
+                return new ResponseError("Malformed Request");
+            }
+            try {
+                response.status(HttpStatus.OK_200);
+                return transferDao.newMoneyTransfers(transferRequests);
+            } catch (IllegalArgumentException ex) {
+                response.status(HttpStatus.BAD_REQUEST_400);
+                return new ResponseError(ex.getMessage());
+            } catch (Exception ex) {
+                response.status(HttpStatus.INTERNAL_SERVER_ERROR_500);
+                return new ResponseError(ex.getMessage());
+            }
         }, jsonTransformer);
 
         get("/alltransfer", JSON, (request, response) -> {
 
             final String accountId = request.queryParamOrDefault("accountId", "");
+            final String limit = request.queryParams("limit");
+            final String cursor = request.queryParams("cursor");
 
             try {
                 response.status(HttpStatus.OK_200);
-                if (accountId.isEmpty())
+                if (limit != null && accountId.isEmpty())
+                    return transferDao.getTransfers(cursor, Integer.parseInt(limit));
+                else if (limit != null)
+                    return transferDao.getTransfersByAccount(Long.parseLong(accountId), cursor, Integer.parseInt(limit));
+                else if (accountId.isEmpty())
                     return transferDao.getAllTransfers();
                 else
                     return transferDao.getAllTransfersByAccount(Long.parseLong(accountId));
+            } catch (IllegalArgumentException ex) {
+                response.status(HttpStatus.BAD_REQUEST_400);
+                return new ResponseError(ex.getMessage());
             } catch (Exception ex) {
                 response.status(HttpStatus.INTERNAL_SERVER_ERROR_500);
                 return new ResponseError(ex.getMessage());
@@ -81,4 +272,20 @@ public class MoneyTransferController {
 
     }
 
+    private Optional<TransferState> status(final String transferId) {
+        final Optional<TransferState> queued = transferPipeline.flatMap(pipeline -> pipeline.status(transferId));
+        if (queued.isPresent())
+            return queued;
+        final Optional<TransferState> scheduled = transferScheduler.flatMap(scheduler -> scheduler.status(transferId));
+        return scheduled.isPresent() ? scheduled : transferHolds.flatMap(holds -> holds.status(transferId));
+    }
+
+    private Object holdNotOpen(final String transferId, final Response response) {
+        if (status(transferId).isPresent()) {
+            response.status(HttpStatus.CONFLICT_409);
+            return new ResponseError("Transfer is no longer authorized");
+        }
+        response.status(HttpStatus.NOT_FOUND_404);
+        return new ResponseError("Transfer not found");
+    }
 }
@@ -3,16 +3,22 @@ package org.revolut.moneytransfer.domain;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.Preconditions;
+import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
 
 import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
 /**
  * Created by Sougata Bhattacharjee
  * On 14.09.18
+ * <p>
+ * Amounts are held as a {@code long} count of minor units (cents), so balance updates are plain, overflow
+ * checked long arithmetic. {@link BigDecimal} only appears at the JSON boundary. Credits and debits are
+ * compare-and-set loops, so a balance can be updated without holding a lock and readers always see a whole value.
  */
 @Getter
 @Setter
@@ -20,7 +26,14 @@ import java.math.BigDecimal;
 @ToString
 public class Money {
 
-    private BigDecimal amount;
+    public static final int SCALE = 2;
+
+    private static final AtomicLongFieldUpdater<Money> MINOR_UNITS =
+            AtomicLongFieldUpdater.newUpdater(Money.class, "minorUnits");
+
+    // only reset(long) and subclasses overwrite the balance, everyone else credits and debits it
+    @Setter(AccessLevel.PROTECTED)
+    private volatile long minorUnits;
     private Currency currency;
 
     public Money() {
@@ -32,10 +45,78 @@ public class Money {
                  @JsonProperty(required = true, value = "currency") final Currency currency) {
         Preconditions.checkNotNull(amount);
         Preconditions.checkArgument(amount.compareTo(BigDecimal.ZERO) >= 0, "cannot have amount with negative value");
-        Preconditions.checkArgument(amount.scale() <= 2, "Accepted decimal number must be a maximum scale of 2");
-        this.amount = amount;
+        Preconditions.checkArgument(amount.scale() <= SCALE, "Accepted decimal number must be a maximum scale of 2");
+        this.minorUnits = toMinorUnits(amount);
+        this.currency = currency;
+    }
+
+    public Money(final long minorUnits, final Currency currency) {
+        Preconditions.checkArgument(minorUnits >= 0, "cannot have amount with negative value");
+        this.minorUnits = minorUnits;
         this.currency = currency;
     }
 
+    public BigDecimal getAmount() {
+        return toAmount(minorUnits);
+    }
+
+    public void setAmount(final BigDecimal amount) {
+        Preconditions.checkNotNull(amount);
+        reset(toMinorUnits(amount));
+    }
+
+    /**
+     * Overwrites the balance, as replaying a journaled balance does. A credit or debit running at the same time is
+     * lost, so callers hold the account lock or have the account to themselves.
+     */
+    public void reset(final long minorUnits) {
+        Preconditions.checkArgument(minorUnits >= 0, "cannot have amount with negative value");
+        setMinorUnits(minorUnits);
+    }
+
+    /**
+     * @throws ArithmeticException if the balance would overflow
+     */
+    public void credit(final long amount) {
+        long current;
+        do {
+            current = minorUnits;
+        } while (!MINOR_UNITS.compareAndSet(this, current, Math.addExact(current, amount)));
+    }
+
+    /**
+     * @return false, leaving the balance untouched, if the balance is lower than the amount
+     */
+    public boolean debit(final long amount) {
+        return debit(amount, 0);
+    }
 
+    /**
+     * @return false, leaving the balance untouched, if the balance less {@code reserved} is lower than the amount
+     */
+    public boolean debit(final long amount, final long reserved) {
+        long current;
+        do {
+            current = minorUnits;
+            if (current - reserved < amount)
+                return false;
+        } while (!MINOR_UNITS.compareAndSet(this, current, current - amount));
+        return true;
+    }
+
+    /**
+     * @throws ArithmeticException if the amount has more than two decimals or does not fit a long in minor units
+     */
+    public static long toMinorUnits(final BigDecimal amount) {
+        return amount.movePointRight(SCALE).longValueExact();
+    }
+
+    /**
+     * The shortest form of the amount: trailing zeros are dropped, so 10000 minor units come back as 100 and 1050 as
+     * 10.5. The scale of the amount a client sent is not kept.
+     */
+    public static BigDecimal toAmount(final long minorUnits) {
+        final BigDecimal amount = BigDecimal.valueOf(minorUnits, SCALE).stripTrailingZeros();
+        return amount.scale() < 0 ? amount.setScale(0) : amount;
+    }
 }
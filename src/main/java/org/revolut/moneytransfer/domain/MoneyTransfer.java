@@ -6,8 +6,7 @@ import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
 import org.joda.time.DateTime;
-
-import java.util.UUID;
+import org.revolut.moneytransfer.util.TransferIds;
 
 /**
  * Created by Sougata Bhattacharjee
@@ -19,15 +18,22 @@ import java.util.UUID;
 @ToString
 public class MoneyTransfer {
 
+    // assigned by the server, a transfer id in a request is ignored
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     private String transferId;
     private long sourceAccountId;
     private long destinationAccountId;
     private Money amount;
+    // what the destination was credited, set by the server only when it is in another currency
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Money destinationAmount;
     private DateTime transferDate;
     private String description;
+    // when set in the future, the transfer is scheduled instead of executed right away
+    private DateTime executeAt;
 
     public MoneyTransfer() {
-        this.transferId = UUID.randomUUID().toString();
+        this.transferId = TransferIds.next();
     }
 
     public MoneyTransfer(final String transferId, final MoneyTransfer transfer) {
@@ -47,4 +53,12 @@ public class MoneyTransfer {
         this.amount = amount;
         this.description = description;
     }
+
+    /**
+     * A new transfer carrying the request's fields, and its transfer id if one was already assigned.
+     */
+    public static MoneyTransfer from(final MoneyTransfer request) {
+        return new MoneyTransfer(request.getTransferId() == null
+                ? TransferIds.next() : request.getTransferId(), request);
+    }
 }
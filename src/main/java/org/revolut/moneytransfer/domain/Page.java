@@ -0,0 +1,27 @@
+package org.revolut.moneytransfer.domain;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+public class Page<T> {
+
+    public static final int MAX_LIMIT = 1000;
+
+    private final List<T> items;
+    private final String nextCursor;
+
+    public Page(final List<T> items, final String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,37 @@
+package org.revolut.moneytransfer.domain;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * Outcome of one transfer of a batch: the stored transfer, or why it was rejected.
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+public class TransferResult {
+
+    private final MoneyTransfer transfer;
+    private final String error;
+
+    private TransferResult(final MoneyTransfer transfer, final String error) {
+        this.transfer = transfer;
+        this.error = error;
+    }
+
+    public static TransferResult accepted(final MoneyTransfer transfer) {
+        return new TransferResult(transfer, null);
+    }
+
+    public static TransferResult rejected(final String error) {
+        return new TransferResult(null, error);
+    }
+
+    public boolean isAccepted() {
+        return transfer != null;
+    }
+}
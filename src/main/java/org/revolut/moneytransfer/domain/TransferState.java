@@ -0,0 +1,68 @@
+package org.revolut.moneytransfer.domain;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * Where an asynchronously submitted transfer is: waiting for its execution time, cancelled, holding its amount until
+ * captured, released or expired, still queued, stored, rejected with a reason, or failed without a known outcome.
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+public class TransferState {
+
+    private final String transferId;
+    private final TransferStatus status;
+    private final MoneyTransfer transfer;
+    private final String error;
+
+    private TransferState(final String transferId, final TransferStatus status, final MoneyTransfer transfer,
+                          final String error) {
+        this.transferId = transferId;
+        this.status = status;
+        this.transfer = transfer;
+        this.error = error;
+    }
+
+    public static TransferState scheduled(final MoneyTransfer transfer) {
+        return new TransferState(transfer.getTransferId(), TransferStatus.SCHEDULED, transfer, null);
+    }
+
+    public static TransferState cancelled(final String transferId) {
+        return new TransferState(transferId, TransferStatus.CANCELLED, null, null);
+    }
+
+    public static TransferState authorized(final MoneyTransfer transfer) {
+        return new TransferState(transfer.getTransferId(), TransferStatus.AUTHORIZED, transfer, null);
+    }
+
+    public static TransferState released(final String transferId) {
+        return new TransferState(transferId, TransferStatus.RELEASED, null, null);
+    }
+
+    public static TransferState expired(final String transferId) {
+        return new TransferState(transferId, TransferStatus.EXPIRED, null, null);
+    }
+
+    public static TransferState pending(final String transferId) {
+        return new TransferState(transferId, TransferStatus.PENDING, null, null);
+    }
+
+    /**
+     * The batch the transfer was in failed, for instance on a journal error. It may or may not have been applied.
+     */
+    public static TransferState failed(final String transferId, final String error) {
+        return new TransferState(transferId, TransferStatus.FAILED, null, error);
+    }
+
+    public static TransferState of(final String transferId, final TransferResult result) {
+        return result.isAccepted()
+                ? new TransferState(transferId, TransferStatus.COMPLETED, result.getTransfer(), null)
+                : new TransferState(transferId, TransferStatus.REJECTED, null, result.getError());
+    }
+}
@@ -0,0 +1,17 @@
+package org.revolut.moneytransfer.domain;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ */
+public enum TransferStatus {
+    SCHEDULED,
+    CANCELLED,
+    AUTHORIZED,
+    RELEASED,
+    EXPIRED,
+    PENDING,
+    COMPLETED,
+    REJECTED,
+    FAILED
+}
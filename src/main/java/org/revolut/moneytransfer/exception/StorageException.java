@@ -0,0 +1,13 @@
+package org.revolut.moneytransfer.exception;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * The storage engine failed, as opposed to the request being invalid.
+ */
+public class StorageException extends RuntimeException {
+    public StorageException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+}
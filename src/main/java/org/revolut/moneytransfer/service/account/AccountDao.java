@@ -1,7 +1,10 @@
 package org.revolut.moneytransfer.service.account;
 
 import org.revolut.moneytransfer.domain.Account;
+import org.joda.time.DateTime;
 import org.revolut.moneytransfer.domain.AccountStatus;
+import org.revolut.moneytransfer.domain.Money;
+import org.revolut.moneytransfer.domain.Page;
 import org.revolut.moneytransfer.domain.request.AccountBalanceRequest;
 import org.revolut.moneytransfer.domain.request.AccountRequest;
 import org.revolut.moneytransfer.exception.AccountAccessException;
@@ -10,6 +13,7 @@ import org.revolut.moneytransfer.exception.CurrencyException;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 /**
  * Created by Sougata Bhattacharjee
@@ -19,10 +23,46 @@ public interface AccountDao {
 
     Account insertNewAccount(final Account account);
 
+    /**
+     * Inserts the accounts in order, storage engines that can batch writes do so.
+     */
+    default List<Account> insertNewAccounts(final List<Account> accounts) {
+        return accounts.stream().map(this::insertNewAccount).collect(Collectors.toList());
+    }
+
     List<Account> getAllAccounts(Optional<AccountStatus> status);
 
+    /**
+     * Newest first, starting after {@code cursor}, or at the newest account when the cursor is null.
+     */
+    Page<Account> getAccounts(Optional<AccountStatus> status, String cursor, int limit);
+
     Account getAccountById(Long accountID) throws AccountNotFoundException;
 
+    /**
+     * Whether {@link #getBalanceAt(Long, DateTime)} is supported, callers check this before using it.
+     */
+    default boolean keepsBalanceHistory() {
+        return false;
+    }
+
+    /**
+     * Balance of the account at the given time, credits and debits included, whatever the account status is now.
+     *
+     * @throws AccountNotFoundException if the account or its history at that time is unknown
+     * @throws UnsupportedOperationException if {@link #keepsBalanceHistory()} is false
+     */
+    default Money getBalanceAt(final Long accountID, final DateTime at) throws AccountNotFoundException {
+        throw new UnsupportedOperationException("Balance history is not kept by this storage");
+    }
+
+    /**
+     * Balance of the account less the money reserved on it by authorization holds.
+     */
+    default Money getAvailableBalance(final Long accountID) throws AccountNotFoundException {
+        return getAccountById(accountID).getBalance();
+    }
+
     Account updateAccountBalance(AccountBalanceRequest request, boolean isCredit)
             throws AccountNotFoundException, CurrencyException;
 
@@ -1,9 +1,12 @@
 package org.revolut.moneytransfer.service.account;
 
-import com.google.common.collect.Maps;
+import com.google.common.base.Preconditions;
+import org.joda.time.DateTime;
+import org.revolut.moneytransfer.config.ApplicationConfig;
 import org.revolut.moneytransfer.domain.Account;
 import org.revolut.moneytransfer.domain.AccountStatus;
 import org.revolut.moneytransfer.domain.Money;
+import org.revolut.moneytransfer.domain.Page;
 import org.revolut.moneytransfer.domain.User;
 import org.revolut.moneytransfer.domain.request.AccountBalanceRequest;
 import org.revolut.moneytransfer.domain.request.AccountInfoRequest;
@@ -14,52 +17,163 @@ import org.revolut.moneytransfer.exception.AccountNotFoundException;
 import org.revolut.moneytransfer.exception.CurrencyException;
 import org.revolut.moneytransfer.exception.CurrencyNotMatchingException;
 import org.revolut.moneytransfer.exception.NegativeBalanceException;
+import org.revolut.moneytransfer.service.journal.AccountRecord;
+import org.revolut.moneytransfer.service.journal.BalanceRecord;
+import org.revolut.moneytransfer.service.journal.Journal;
+import org.revolut.moneytransfer.service.journal.NoopJournal;
+import org.revolut.moneytransfer.service.ledger.Ledger;
+import org.revolut.moneytransfer.service.ledger.NoopLedger;
+import org.revolut.moneytransfer.util.TransferIds;
 
-import java.math.BigDecimal;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Collectors;
+import java.util.concurrent.locks.Lock;
 
 /**
  * Created by Sougata Bhattacharjee
  * On 15.09.18
  */
-public class AccountDaoImpl implements AccountDao {
+public class AccountDaoImpl implements AccountDao, AutoCloseable {
 
-    private final static Map<Long, Account> accounts = Maps.newConcurrentMap();
-    private final AtomicLong maxAccountId = new AtomicLong(0);
+    private final static AccountStore SHARED_ACCOUNTS = new InMemoryAccountStore();
+    private final static AccountLocks SHARED_LOCKS = new AccountLocks();
+    private final static AccountIndex SHARED_STATUS_INDEX = new AccountStatusIndex();
+    private final static AtomicLong SHARED_MAX_ACCOUNT_ID = new AtomicLong(0);
+    private final static AccountHolds SHARED_HOLDS = new AccountHolds();
+
+    private final AccountStore accounts;
+    private final AccountLocks accountLocks;
+    private final AccountIndex statusIndex;
+    private final AtomicLong maxAccountId;
+    private final BalanceUpdateMode balanceUpdateMode;
+    private final AccountPartitions accountPartitions;
+    // false for partitions handed in by the caller, who closes them
+    private final boolean ownsPartitions;
+    private final Journal journal;
+    private final Set<Long> hotAccounts;
+    private final Ledger ledger;
+    private final AccountHolds holds;
 
     public AccountDaoImpl() {
+        this(ApplicationConfig.balanceUpdateMode());
+    }
+
+    private AccountDaoImpl(final BalanceUpdateMode balanceUpdateMode) {
+        this(SHARED_ACCOUNTS, SHARED_LOCKS, SHARED_STATUS_INDEX, SHARED_MAX_ACCOUNT_ID, balanceUpdateMode,
+                balanceUpdateMode == BalanceUpdateMode.PARTITIONED ? SharedPartitions.get() : null, true,
+                NoopJournal.INSTANCE, ApplicationConfig.hotAccounts(), NoopLedger.INSTANCE, SHARED_HOLDS);
     }
 
     public AccountDaoImpl(final Map<Long, Account> accounts) {
-        this.accounts.putAll(accounts);
+        this();
+        accounts.values().forEach(this::storeAccount);
+    }
+
+    private AccountDaoImpl(final Builder builder) {
+        this(builder.accounts, builder.accountLocks, indexFor(builder.accounts),
+                new AtomicLong(builder.accounts.maxAccountId()), builder.balanceUpdateMode,
+                partitionsFor(builder),
+                builder.accountPartitions == null, builder.journal, builder.hotAccounts, builder.ledger,
+                new AccountHolds());
+        statusIndex.load(accounts);
+        for (long accountId : hotAccounts) {
+            final Account account = accounts.get(accountId);
+            if (account != null)
+                accounts.put(shardIfHot(account));
+        }
+    }
+
+    /**
+     * A DAO over the given store, {@link BalanceUpdateMode#LOCKING} with no journal, ledger or hot accounts unless
+     * the builder says otherwise.
+     */
+    public static Builder builder(final AccountStore accounts) {
+        return new Builder(accounts);
+    }
+
+    private AccountDaoImpl(final AccountStore accounts, final AccountLocks accountLocks,
+                           final AccountIndex statusIndex, final AtomicLong maxAccountId,
+                           final BalanceUpdateMode balanceUpdateMode, final AccountPartitions accountPartitions,
+                           final boolean ownsPartitions, final Journal journal, final Set<Long> hotAccounts,
+                           final Ledger ledger, final AccountHolds holds) {
+        this.accounts = accounts;
+        this.accountLocks = accountLocks;
+        this.statusIndex = statusIndex;
+        this.maxAccountId = maxAccountId;
+        this.balanceUpdateMode = balanceUpdateMode;
+        this.accountPartitions = accountPartitions;
+        this.ownsPartitions = ownsPartitions;
+        this.journal = journal;
+        this.hotAccounts = hotAccounts;
+        this.ledger = ledger;
+        this.holds = holds;
     }
 
     @Override
-    public synchronized Account insertNewAccount(final Account account) {
+    public Account insertNewAccount(final Account account) {
         final long newAccountId = maxAccountId.incrementAndGet();
-        final Account newAccount = new Account(newAccountId, account);
+        final Account newAccount = shardIfHot(new Account(newAccountId, account));
 
-        accounts.put(newAccount.getAccountId(), newAccount);
+        // visible before it is journaled, as a snapshot expects, while its lock keeps every later change of
+        // the account behind the creation in the journal
+        final long journalPosition;
+        final Lock lock = accountLocks.lock(newAccountId);
+        try {
+            journal.checkWritable();
+            accounts.put(newAccount);
+            statusIndex.add(newAccount);
+            try {
+                journalPosition = journal.append(AccountRecord.of(newAccount));
+            } catch (RuntimeException ex) {
+                // the store cannot drop an account, so one that was never journaled is hidden instead
+                statusIndex.remove(newAccount);
+                newAccount.setStatus(AccountStatus.INACTIVE);
+                accounts.put(newAccount);
+                throw ex;
+            }
+            ledger.post(TransferIds.next(), Ledger.externalAccount(newAccount.getBalance().getCurrency()),
+                    newAccountId, newAccount.getBalance().getMinorUnits());
+        } finally {
+            lock.unlock();
+        }
+        journal.awaitDurable(journalPosition);
         return newAccount;
     }
 
     @Override
     public List<Account> getAllAccounts(final Optional<AccountStatus> status) {
+        final List<Account> results = new ArrayList<>();
+        for (AccountIndex.Key key : statusIndex.keys(status)) {
+            final Account account = accounts.get(key.getAccountId());
+            // a concurrent status change may briefly leave the account in both indexes
+            if (account != null && (!status.isPresent() || account.getStatus() == status.get()))
+                results.add(account);
+        }
+        return results;
+    }
 
-        if (status.isPresent())
-            return accounts.values().stream()
-                    .filter(ac -> ac.getStatus() == status.get())
-                    .sorted(Comparator.comparing(Account::getCreated).reversed())
-                    .collect(Collectors.toList());
-        else
-            return accounts.values().stream()
-                    .sorted(Comparator.comparing(Account::getCreated).reversed())
-                    .collect(Collectors.toList());
+    @Override
+    public Page<Account> getAccounts(final Optional<AccountStatus> status, final String cursor, final int limit) {
+        Preconditions.checkArgument(limit > 0 && limit <= Page.MAX_LIMIT,
+                "limit must be between 1 and " + Page.MAX_LIMIT);
+        final List<Account> items = new ArrayList<>(limit);
+        AccountIndex.Key last = null;
+        for (AccountIndex.Key key : statusIndex.keysAfter(status, cursor)) {
+            if (items.size() == limit)
+                return new Page<>(items, last.toCursor());
+            final Account account = accounts.get(key.getAccountId());
+            if (account != null && (!status.isPresent() || account.getStatus() == status.get())) {
+                items.add(account);
+                last = key;
+            }
+        }
+        return new Page<>(items, null);
     }
 
     @Override
@@ -75,65 +189,363 @@ public class AccountDaoImpl implements AccountDao {
     }
 
     @Override
-    public synchronized Account updateAccountBalance(AccountBalanceRequest request, boolean isCredit)
+    public boolean keepsBalanceHistory() {
+        return ledger.keepsHistory();
+    }
+
+    @Override
+    public Money getBalanceAt(final Long accountID, final DateTime at) throws AccountNotFoundException {
+        // a deactivated account still had its past balances
+        final Account account = getAccount(accountID);
+        final OptionalLong balance = ledger.balanceAt(account.getAccountId(), at.getMillis());
+        if (!balance.isPresent())
+            throw new AccountNotFoundException("No balance history for account id: [" + accountID + "] at " + at);
+        return new Money(balance.getAsLong(), account.getBalance().getCurrency());
+    }
+
+    @Override
+    public Money getAvailableBalance(final Long accountID) throws AccountNotFoundException {
+        final Account account = getAccountById(accountID);
+        return new Money(Math.max(0, holds.available(account)), account.getBalance().getCurrency());
+    }
+
+    @Override
+    public Account updateAccountBalance(AccountBalanceRequest request, boolean isCredit)
             throws AccountNotFoundException, CurrencyException {
-        final Account accountToUpdate = getAccountById(request.getAccountId());
-        final Money amount = request.getBalance();
-        if (amount.getCurrency() != accountToUpdate.getBalance().getCurrency())
-            throw new CurrencyNotMatchingException("Currency is not matching for: " +
-                    "" + amount.getCurrency() + " and " + accountToUpdate.getBalance().getCurrency() + "");
-        if (isCredit) {
-            accountToUpdate.getBalance().setAmount(accountToUpdate.getBalance().getAmount().add(amount.getAmount()));
-            accounts.replace(accountToUpdate.getAccountId(), accountToUpdate);
-            return accountToUpdate;
-        } else {
-            final BigDecimal result = accountToUpdate.getBalance().getAmount().subtract(amount.getAmount());
-            if (result.compareTo(BigDecimal.ZERO) < 0)
-                throw new NegativeBalanceException("Do not have sufficient fund to perform debit operation," +
-                        " current balance: " + accountToUpdate.getBalance().getAmount() +
-                        " " + accountToUpdate.getBalance().getCurrency());
-            accountToUpdate.getBalance().setAmount(result);
-            accounts.replace(accountToUpdate.getAccountId(), accountToUpdate);
-            return accountToUpdate;
+        if (balanceUpdateMode == BalanceUpdateMode.LOCK_FREE)
+            return post(applyBalanceUpdate(request, isCredit), request, isCredit);
+        if (balanceUpdateMode == BalanceUpdateMode.PARTITIONED) {
+            try {
+                return accountPartitions.call(accountKey(request.getAccountId()),
+                        () -> post(applyBalanceUpdate(request, isCredit), request, isCredit));
+            } catch (AccountNotFoundException | CurrencyException | RuntimeException ex) {
+                throw ex;
+            } catch (Exception ex) {
+                throw new IllegalStateException("Balance update failed", ex);
+            }
         }
 
+        final Account account;
+        final long journalPosition;
+        final Lock lock = lockAccount(request.getAccountId());
+        try {
+            journal.checkWritable();
+            account = applyBalanceUpdate(request, isCredit);
+            try {
+                journalPosition = journal.append(
+                        new BalanceRecord(account.getAccountId(), account.getBalance().getMinorUnits()));
+            } catch (RuntimeException ex) {
+                undoBalanceUpdate(account, request.getBalance().getMinorUnits(), isCredit);
+                throw ex;
+            }
+            post(account, request, isCredit);
+        } finally {
+            lock.unlock();
+        }
+        // waiting outside the lock lets other updates of the account join the same fsync
+        journal.awaitDurable(journalPosition);
+        return account;
     }
 
 
     @Override
-    public synchronized Account updateAccountById(AccountRequest accountRequest) throws AccountAccessException {
+    public Account updateAccountById(AccountRequest accountRequest) throws AccountAccessException {
+        if (balanceUpdateMode == BalanceUpdateMode.PARTITIONED) {
+            try {
+                return accountPartitions.call(accountKey(accountRequest.getAccountId()),
+                        () -> applyAccountUpdate(accountRequest)).account;
+            } catch (AccountAccessException | RuntimeException ex) {
+                throw ex;
+            } catch (Exception ex) {
+                throw new IllegalStateException("Account update failed", ex);
+            }
+        }
+
+        final AccountUpdate update;
+        final Lock lock = lockAccount(accountRequest.getAccountId());
+        try {
+            update = applyAccountUpdate(accountRequest);
+        } finally {
+            lock.unlock();
+        }
+        journal.awaitDurable(update.journalPosition);
+        return update.account;
+    }
+
+    public AccountStore getAccountStore() {
+        return accounts;
+    }
+
+    public AccountLocks getAccountLocks() {
+        return accountLocks;
+    }
+
+    public BalanceUpdateMode getBalanceUpdateMode() {
+        return balanceUpdateMode;
+    }
+
+    public AccountPartitions getAccountPartitions() {
+        return accountPartitions;
+    }
+
+    public Journal getJournal() {
+        return journal;
+    }
+
+    public Ledger getLedger() {
+        return ledger;
+    }
+
+    public AccountHolds getHolds() {
+        return holds;
+    }
+
+    /**
+     * Stores that keep accounts in id order are listed straight from the store, the others get an index on the heap.
+     */
+    private static AccountIndex indexFor(final AccountStore accounts) {
+        return accounts instanceof OrderedAccountStore
+                ? new StoreOrderIndex((OrderedAccountStore) accounts)
+                : new AccountStatusIndex();
+    }
+
+    /**
+     * Journals a change but does not wait for it to be durable, callers wait once the account is unlocked. A change
+     * the journal does not take is undone.
+     */
+    private AccountUpdate applyAccountUpdate(final AccountRequest accountRequest) throws AccountAccessException {
         final AccountInfoRequest accountInfoRequestToUpdate;
         final AccountStatusRequest accountStatusRequestToUpdate;
 
         if (accountRequest instanceof AccountInfoRequest) {
             accountInfoRequestToUpdate = (AccountInfoRequest) accountRequest;
             final Account toUpdate = getAccountById(accountInfoRequestToUpdate.getAccountId());
-            if (!toUpdate.getAccountHolder().getName().equals(accountInfoRequestToUpdate.getAccountHolder().getName())) {
+            final User previousHolder = toUpdate.getAccountHolder();
+            if (!previousHolder.getName().equals(accountInfoRequestToUpdate.getAccountHolder().getName())) {
+                journal.checkWritable();
                 toUpdate.setAccountHolder(new User(accountInfoRequestToUpdate.getAccountHolder().getName()));
-                accounts.replace(toUpdate.getAccountId(), toUpdate);
+                accounts.put(toUpdate);
+                try {
+                    return new AccountUpdate(toUpdate, journal.append(AccountRecord.of(toUpdate)));
+                } catch (RuntimeException ex) {
+                    toUpdate.setAccountHolder(previousHolder);
+                    accounts.put(toUpdate);
+                    throw ex;
+                }
             }
-            return toUpdate;
+            return new AccountUpdate(toUpdate, 0);
 
         } else if (accountRequest instanceof AccountStatusRequest) {
             accountStatusRequestToUpdate = (AccountStatusRequest) accountRequest;
             final Account toUpdate = getAccount(accountStatusRequestToUpdate.getAccountId());
-            if (!toUpdate.getStatus().equals(accountStatusRequestToUpdate.getStatus())) {
+            final AccountStatus previousStatus = toUpdate.getStatus();
+            if (!previousStatus.equals(accountStatusRequestToUpdate.getStatus())) {
+                journal.checkWritable();
                 toUpdate.setStatus(accountStatusRequestToUpdate.getStatus());
-                accounts.replace(toUpdate.getAccountId(), toUpdate);
+                accounts.put(toUpdate);
+                statusIndex.statusChanged(toUpdate, previousStatus);
+                try {
+                    return new AccountUpdate(toUpdate, journal.append(AccountRecord.of(toUpdate)));
+                } catch (RuntimeException ex) {
+                    toUpdate.setStatus(previousStatus);
+                    accounts.put(toUpdate);
+                    statusIndex.statusChanged(toUpdate, accountStatusRequestToUpdate.getStatus());
+                    throw ex;
+                }
             }
-            return toUpdate;
+            return new AccountUpdate(toUpdate, 0);
 
         } else throw new AccountAccessException("Malformed Request");
+    }
+
+    private Account applyBalanceUpdate(final AccountBalanceRequest request, final boolean isCredit)
+            throws AccountNotFoundException, CurrencyException {
+        final Account accountToUpdate = getAccountById(request.getAccountId());
+        final Money amount = request.getBalance();
+        if (amount.getCurrency() != accountToUpdate.getBalance().getCurrency())
+            throw new CurrencyNotMatchingException("Currency is not matching for: " +
+                    "" + amount.getCurrency() + " and " + accountToUpdate.getBalance().getCurrency() + "");
+        if (isCredit) {
+            accountToUpdate.getBalance().credit(amount.getMinorUnits());
+            accounts.put(accountToUpdate);
+            return accountToUpdate;
+        } else {
+            if (!holds.debit(accountToUpdate, amount.getMinorUnits()))
+                throw new NegativeBalanceException("Do not have sufficient fund to perform debit operation," +
+                        " available balance: " + Money.toAmount(holds.available(accountToUpdate)) +
+                        " " + accountToUpdate.getBalance().getCurrency());
+            accounts.put(accountToUpdate);
+            return accountToUpdate;
+        }
+    }
+
+    /**
+     * Only called with the account locked, so nothing else moved the balance since the update.
+     */
+    private void undoBalanceUpdate(final Account account, final long amount, final boolean isCredit) {
+        if (isCredit)
+            account.getBalance().debit(amount);
+        else
+            account.getBalance().credit(amount);
+        accounts.put(account);
+    }
+
+    /**
+     * Posts an applied balance update to the ledger, once it is journaled.
+     */
+    private Account post(final Account account, final AccountBalanceRequest request, final boolean isCredit) {
+        final long amount = request.getBalance().getMinorUnits();
+        final long external = Ledger.externalAccount(account.getBalance().getCurrency());
+        if (isCredit)
+            ledger.post(TransferIds.next(), external, account.getAccountId(), amount);
+        else
+            ledger.post(TransferIds.next(), account.getAccountId(), external, amount);
+        return account;
+    }
+
+    private void storeAccount(final Account account) {
+        final Account previous = accounts.get(account.getAccountId());
+        if (previous != null)
+            statusIndex.remove(previous);
+        accounts.put(shardIfHot(account));
+        statusIndex.add(account);
+        maxAccountId.accumulateAndGet(account.getAccountId(), Math::max);
+    }
+
+    private Account shardIfHot(final Account account) {
+        if (hotAccounts.contains(account.getAccountId()) && !(account.getBalance() instanceof ShardedMoney))
+            account.setBalance(new ShardedMoney(account.getBalance(), Runtime.getRuntime().availableProcessors()));
+        return account;
+    }
+
+    private static long accountKey(final Long accountID) throws AccountNotFoundException {
+        if (accountID == null)
+            throw new AccountNotFoundException(accountID);
+        return accountID;
+    }
 
+    private Lock lockAccount(final Long accountID) throws AccountNotFoundException {
+        return accountLocks.lock(accountKey(accountID));
     }
 
     private Account getAccount(final Long accountID) throws AccountNotFoundException {
-        return accounts.entrySet().stream()
-                .filter(e -> e.getKey().equals(accountID))
-                .map(Map.Entry::getValue)
-                .findFirst()
-                .orElseThrow(() -> new AccountNotFoundException(accountID));
+        final Account account = accountID == null ? null : accounts.get(accountID);
+        if (account == null)
+            throw new AccountNotFoundException(accountID);
+        return account;
+    }
+
+    private static final class AccountUpdate {
+        private final Account account;
+        // 0 when nothing was journaled
+        private final long journalPosition;
+
+        private AccountUpdate(final Account account, final long journalPosition) {
+            this.account = account;
+            this.journalPosition = journalPosition;
+        }
+    }
+
+    /**
+     * Stops the writer threads of the partitions this DAO started. Shared partitions are started again by the next
+     * DAO that needs them.
+     */
+    @Override
+    public void close() {
+        if (accountPartitions != null && ownsPartitions)
+            accountPartitions.close();
+    }
+
+    private static AccountPartitions partitionsFor(final Builder builder) {
+        if (builder.accountPartitions != null)
+            return builder.accountPartitions;
+        return builder.balanceUpdateMode == BalanceUpdateMode.PARTITIONED
+                ? new AccountPartitions(ApplicationConfig.partitionCount())
+                : null;
     }
 
+    public static final class Builder {
+        private final AccountStore accounts;
+        private AccountLocks accountLocks = new AccountLocks();
+        private BalanceUpdateMode balanceUpdateMode = BalanceUpdateMode.LOCKING;
+        private AccountPartitions accountPartitions;
+        private Journal journal = NoopJournal.INSTANCE;
+        private Set<Long> hotAccounts = Collections.emptySet();
+        private Ledger ledger = NoopLedger.INSTANCE;
+
+        private Builder(final AccountStore accounts) {
+            this.accounts = Preconditions.checkNotNull(accounts);
+        }
+
+        public Builder accountLocks(final AccountLocks accountLocks) {
+            this.accountLocks = Preconditions.checkNotNull(accountLocks);
+            return this;
+        }
 
+        public Builder balanceUpdateMode(final BalanceUpdateMode balanceUpdateMode) {
+            this.balanceUpdateMode = Preconditions.checkNotNull(balanceUpdateMode);
+            return this;
+        }
+
+        /**
+         * Runs on partitions the caller owns and closes, instead of starting its own. Implies
+         * {@link BalanceUpdateMode#PARTITIONED}.
+         */
+        public Builder accountPartitions(final AccountPartitions accountPartitions) {
+            this.accountPartitions = Preconditions.checkNotNull(accountPartitions);
+            this.balanceUpdateMode = BalanceUpdateMode.PARTITIONED;
+            return this;
+        }
+
+        /**
+         * Journal records of an account must be written in the order its changes happen, which only the account
+         * locks guarantee, so a journal requires {@link BalanceUpdateMode#LOCKING}.
+         */
+        public Builder journal(final Journal journal) {
+            this.journal = Preconditions.checkNotNull(journal);
+            return this;
+        }
+
+        /**
+         * Accounts with one of these ids get a {@link ShardedMoney} balance, so concurrent credits to them do not
+         * contend. Only {@link BalanceUpdateMode#LOCK_FREE} lets those credits run in parallel, the other modes
+         * serialize them on the account lock or partition anyway.
+         */
+        public Builder hotAccounts(final Set<Long> hotAccounts) {
+            this.hotAccounts = Preconditions.checkNotNull(hotAccounts);
+            return this;
+        }
+
+        /**
+         * Every balance change is also posted to the ledger, the account balances stay its materialized view.
+         */
+        public Builder ledger(final Ledger ledger) {
+            this.ledger = Preconditions.checkNotNull(ledger);
+            return this;
+        }
+
+        /**
+         * @throws IllegalArgumentException if a journal is combined with a mode other than LOCKING, checked before
+         *                                  any partition is started
+         */
+        public AccountDaoImpl build() {
+            Preconditions.checkArgument(balanceUpdateMode == BalanceUpdateMode.LOCKING
+                            || journal == NoopJournal.INSTANCE,
+                    "A journal can only be used with the LOCKING balance update mode");
+            return new AccountDaoImpl(this);
+        }
+    }
+
+    /**
+     * Partitions of the shared accounts, one set at a time so that two DAOs never write an account from two threads.
+     */
+    private static final class SharedPartitions {
+        private static AccountPartitions instance;
+
+        private static synchronized AccountPartitions get() {
+            if (instance == null || instance.isClosed())
+                instance = new AccountPartitions(ApplicationConfig.partitionCount());
+            return instance;
+        }
+    }
 }
@@ -0,0 +1,62 @@
+package org.revolut.moneytransfer.service.account;
+
+import org.revolut.moneytransfer.domain.Account;
+import org.revolut.moneytransfer.util.ConcurrentLongHashMap;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * Money reserved on each account by authorization holds. The balance keeps the reserved money until a hold is
+ * captured, the available balance is the balance less what is held, one map lookup away.
+ * <p>
+ * A hold adds to the held amount before it reads the balance, a debit takes the balance before it reads the held
+ * amount again. However a hold and a debit interleave, one of them sees the other and backs out, so without any
+ * lock the available balance never goes negative. Holds are kept in memory only.
+ */
+public class AccountHolds {
+
+    private final ConcurrentLongHashMap<AtomicLong> held = new ConcurrentLongHashMap<>();
+
+    public long held(final long accountId) {
+        final AtomicLong amount = held.get(accountId);
+        return amount == null ? 0 : amount.get();
+    }
+
+    public long available(final Account account) {
+        return account.getBalance().getMinorUnits() - held(account.getAccountId());
+    }
+
+    /**
+     * @return false, holding nothing, if the available balance is lower than the amount
+     */
+    public boolean reserve(final Account account, final long amount) {
+        final AtomicLong reserved = held.computeIfAbsent(account.getAccountId(), id -> new AtomicLong());
+        if (account.getBalance().getMinorUnits() < reserved.addAndGet(amount)) {
+            reserved.addAndGet(-amount);
+            return false;
+        }
+        return true;
+    }
+
+    public void release(final long accountId, final long amount) {
+        held.get(accountId).addAndGet(-amount);
+    }
+
+    /**
+     * Debits the available balance.
+     *
+     * @return false, leaving the balance untouched, if the available balance is lower than the amount
+     */
+    public boolean debit(final Account account, final long amount) {
+        if (!account.getBalance().debit(amount, held(account.getAccountId())))
+            return false;
+        if (account.getBalance().getMinorUnits() < held(account.getAccountId())) {
+            account.getBalance().credit(amount);
+            return false;
+        }
+        return true;
+    }
+}
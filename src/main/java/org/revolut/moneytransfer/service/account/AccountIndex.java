@@ -0,0 +1,87 @@
+package org.revolut.moneytransfer.service.account;
+
+import org.revolut.moneytransfer.domain.Account;
+import org.revolut.moneytransfer.domain.AccountStatus;
+import org.revolut.moneytransfer.util.Cursors;
+
+import java.util.Optional;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * Order in which {@link AccountDaoImpl} lists accounts, newest first, optionally by {@link AccountStatus}.
+ */
+interface AccountIndex {
+
+    /**
+     * Indexes the accounts already in the store.
+     */
+    void load(AccountStore accounts);
+
+    void add(Account account);
+
+    void remove(Account account);
+
+    void statusChanged(Account account, AccountStatus previous);
+
+    Iterable<Key> keys(Optional<AccountStatus> status);
+
+    /**
+     * Keys strictly after the cursor. New accounts always sort before existing ones, so a cursor stays valid
+     * while accounts are being inserted.
+     */
+    Iterable<Key> keysAfter(Optional<AccountStatus> status, String cursor);
+
+    final class Key implements Comparable<Key> {
+        private final long created;
+        private final long accountId;
+
+        Key(final long created, final long accountId) {
+            this.created = created;
+            this.accountId = accountId;
+        }
+
+        static Key of(final Account account) {
+            return new Key(account.getCreated().getMillis(), account.getAccountId());
+        }
+
+        static Key fromCursor(final String cursor) {
+            final long[] values = Cursors.decode(cursor, 2);
+            return new Key(values[0], values[1]);
+        }
+
+        String toCursor() {
+            return Cursors.encode(created, accountId);
+        }
+
+        long getCreated() {
+            return created;
+        }
+
+        long getAccountId() {
+            return accountId;
+        }
+
+        @Override
+        public int compareTo(final Key other) {
+            final int byCreated = Long.compare(other.created, created);
+            return byCreated != 0 ? byCreated : Long.compare(other.accountId, accountId);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Key))
+                return false;
+            final Key key = (Key) o;
+            return created == key.created && accountId == key.accountId;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(created) * 31 + Long.hashCode(accountId);
+        }
+    }
+}
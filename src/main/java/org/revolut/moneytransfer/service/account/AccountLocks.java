@@ -0,0 +1,56 @@
+package org.revolut.moneytransfer.service.account;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Striped;
+
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * Striped per-account locks. Accounts that hash to different stripes can be updated in parallel.
+ */
+public class AccountLocks {
+
+    private static final int DEFAULT_STRIPES = 1024;
+
+    private final Striped<Lock> stripes;
+
+    public AccountLocks() {
+        this(DEFAULT_STRIPES);
+    }
+
+    public AccountLocks(final int stripes) {
+        this.stripes = Striped.lock(stripes);
+    }
+
+    public Lock lock(final long accountId) {
+        final Lock lock = stripes.get(accountId);
+        lock.lock();
+        return lock;
+    }
+
+    /**
+     * Acquires the locks of all given accounts in stripe order, so two callers locking overlapping sets of
+     * accounts can never deadlock. Release with {@link #unlockAll(List)}.
+     */
+    public List<Lock> lockAll(final Iterable<Long> accountIds) {
+        final List<Lock> locks = Lists.newArrayList(stripes.bulkGet(accountIds));
+        for (int i = 0; i < locks.size(); i++) {
+            try {
+                locks.get(i).lock();
+            } catch (RuntimeException ex) {
+                unlockAll(locks.subList(0, i));
+                throw ex;
+            }
+        }
+        return locks;
+    }
+
+    public static void unlockAll(final List<Lock> locks) {
+        for (int i = locks.size() - 1; i >= 0; i--)
+            locks.get(i).unlock();
+    }
+}
@@ -0,0 +1,96 @@
+package org.revolut.moneytransfer.service.account;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * Accounts sharded by id into partitions, each with one writer thread fed from its own queue. Every change of an
+ * account runs on the thread of its partition, so changes of one account never race and need no lock.
+ * <p>
+ * A task must not wait for a task of another partition, chain the futures instead.
+ */
+public class AccountPartitions implements AutoCloseable {
+
+    private final ExecutorService[] writers;
+
+    public AccountPartitions(final int partitions) {
+        Preconditions.checkArgument(partitions > 0, "At least one partition is needed");
+        this.writers = new ExecutorService[partitions];
+        for (int i = 0; i < partitions; i++)
+            writers[i] = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                    .setNameFormat("account-partition-" + i)
+                    .setDaemon(true)
+                    .build());
+    }
+
+    /**
+     * Stops the writer threads once the tasks already submitted have run.
+     */
+    @Override
+    public void close() {
+        for (ExecutorService writer : writers)
+            writer.shutdown();
+        try {
+            for (ExecutorService writer : writers)
+                writer.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean isClosed() {
+        return writers[0].isShutdown();
+    }
+
+    public int partitionOf(final long accountId) {
+        return Math.floorMod(Long.hashCode(accountId), writers.length);
+    }
+
+    /**
+     * Runs the task on the writer thread of the account's partition.
+     */
+    public <T> CompletableFuture<T> submit(final long accountId, final Callable<T> task) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        writers[partitionOf(accountId)].execute(() -> {
+            try {
+                result.complete(task.call());
+            } catch (Throwable ex) {
+                result.completeExceptionally(ex);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Runs the task on the writer thread of the account's partition and waits for it.
+     */
+    public <T> T call(final long accountId, final Callable<T> task) throws Exception {
+        return await(submit(accountId, task));
+    }
+
+    /**
+     * Waits for the task and rethrows what it threw, unwrapped.
+     */
+    public static <T> T await(final CompletableFuture<T> future) throws Exception {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof Exception)
+                throw (Exception) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw ex;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package org.revolut.moneytransfer.service.account;
+
+import org.revolut.moneytransfer.domain.Account;
+import org.revolut.moneytransfer.domain.AccountStatus;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * Keeps account ids ordered by creation time, newest first, once over all accounts and once per
+ * {@link AccountStatus}. Maintained on insert and on status change so list queries never sort.
+ */
+class AccountStatusIndex implements AccountIndex {
+
+    private final NavigableSet<Key> all = new ConcurrentSkipListSet<>();
+    private final Map<AccountStatus, NavigableSet<Key>> byStatus = new EnumMap<>(AccountStatus.class);
+
+    AccountStatusIndex() {
+        for (AccountStatus status : AccountStatus.values())
+            byStatus.put(status, new ConcurrentSkipListSet<>());
+    }
+
+    @Override
+    public void load(final AccountStore accounts) {
+        final List<Account> existing = new ArrayList<>((int) accounts.size());
+        accounts.forEach(existing::add);
+        addAll(existing);
+    }
+
+    @Override
+    public void add(final Account account) {
+        final Key key = Key.of(account);
+        all.add(key);
+        byStatus.get(account.getStatus()).add(key);
+    }
+
+    /**
+     * Bulk load, e.g. on startup. Adding the oldest account first puts every key at the head of the skip lists, which
+     * is far cheaper than inserting in the random order accounts come out of the store.
+     */
+    void addAll(final List<Account> accounts) {
+        final List<Map.Entry<Key, AccountStatus>> oldestFirst = new ArrayList<>(accounts.size());
+        for (Account account : accounts)
+            oldestFirst.add(new AbstractMap.SimpleImmutableEntry<>(Key.of(account), account.getStatus()));
+        oldestFirst.sort(Map.Entry.<Key, AccountStatus>comparingByKey().reversed());
+        for (Map.Entry<Key, AccountStatus> entry : oldestFirst) {
+            all.add(entry.getKey());
+            byStatus.get(entry.getValue()).add(entry.getKey());
+        }
+    }
+
+    @Override
+    public void remove(final Account account) {
+        final Key key = Key.of(account);
+        all.remove(key);
+        byStatus.get(account.getStatus()).remove(key);
+    }
+
+    @Override
+    public void statusChanged(final Account account, final AccountStatus previous) {
+        final Key key = Key.of(account);
+        byStatus.get(account.getStatus()).add(key);
+        byStatus.get(previous).remove(key);
+    }
+
+    /**
+     * Weakly consistent with concurrent inserts and status changes.
+     */
+    @Override
+    public NavigableSet<Key> keys(final Optional<AccountStatus> status) {
+        return status.map(byStatus::get).orElse(all);
+    }
+
+    @Override
+    public NavigableSet<Key> keysAfter(final Optional<AccountStatus> status, final String cursor) {
+        final NavigableSet<Key> keys = keys(status);
+        return cursor == null ? keys : keys.tailSet(Key.fromCursor(cursor), false);
+    }
+}
@@ -0,0 +1,24 @@
+package org.revolut.moneytransfer.service.account;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * Which storage engine backs accounts and transfers.
+ */
+public enum AccountStorage {
+    /**
+     * {@link InMemoryAccountStore}, lost on shutdown unless a journal is configured.
+     */
+    MEMORY,
+    /**
+     * {@link MappedAccountStore}, fixed-width records in a memory-mapped file, heap use does not grow with the
+     * number of accounts.
+     */
+    MAPPED,
+    /**
+     * {@code JdbcAccountDao} and {@code JdbcMoneyTransferDao} on an embedded H2 database, accounts and transfers
+     * are rows in its tables.
+     */
+    H2
+}
@@ -0,0 +1,28 @@
+package org.revolut.moneytransfer.service.account;
+
+import org.revolut.moneytransfer.domain.Account;
+
+import java.util.function.Consumer;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * Storage engine behind {@link AccountDaoImpl}, keyed by account id.
+ */
+public interface AccountStore {
+
+    Account get(long accountId);
+
+    void put(Account account);
+
+    void forEach(Consumer<? super Account> action);
+
+    long size();
+
+    default long maxAccountId() {
+        final long[] max = new long[1];
+        forEach(account -> max[0] = Math.max(max[0], account.getAccountId()));
+        return max[0];
+    }
+}
@@ -0,0 +1,23 @@
+package org.revolut.moneytransfer.service.account;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ */
+public enum BalanceUpdateMode {
+    /**
+     * Credits, debits and transfers hold the striped lock of every account they touch.
+     */
+    LOCKING,
+    /**
+     * Balances are changed by compare-and-set alone. A transfer debits the source first and then credits the
+     * destination, so the two legs are not observed atomically by readers.
+     */
+    LOCK_FREE,
+    /**
+     * Accounts are sharded into {@link AccountPartitions}, and only the writer thread of an account's partition
+     * changes it. A transfer between partitions debits on the source partition and then hands the credit over to
+     * the destination partition, so like {@link #LOCK_FREE} the two legs are not observed atomically.
+     */
+    PARTITIONED
+}
@@ -0,0 +1,43 @@
+package org.revolut.moneytransfer.service.account;
+
+import org.revolut.moneytransfer.domain.Account;
+import org.revolut.moneytransfer.util.ConcurrentLongHashMap;
+
+import java.util.function.Consumer;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ */
+public class InMemoryAccountStore implements AccountStore {
+
+    private final ConcurrentLongHashMap<Account> accounts;
+
+    public InMemoryAccountStore() {
+        this.accounts = new ConcurrentLongHashMap<>();
+    }
+
+    public InMemoryAccountStore(final int expectedSize) {
+        this.accounts = new ConcurrentLongHashMap<>(expectedSize, Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    @Override
+    public Account get(final long accountId) {
+        return accounts.get(accountId);
+    }
+
+    @Override
+    public void put(final Account account) {
+        accounts.put(account.getAccountId(), account);
+    }
+
+    @Override
+    public void forEach(final Consumer<? super Account> action) {
+        accounts.forEachValue(action);
+    }
+
+    @Override
+    public long size() {
+        return accounts.size();
+    }
+}
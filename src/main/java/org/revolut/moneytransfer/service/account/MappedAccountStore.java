@@ -0,0 +1,252 @@
+package org.revolut.moneytransfer.service.account;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.AbstractIterator;
+import org.joda.time.DateTime;
+import org.revolut.moneytransfer.domain.Account;
+import org.revolut.moneytransfer.domain.AccountStatus;
+import org.revolut.moneytransfer.domain.Currency;
+import org.revolut.moneytransfer.domain.User;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * Accounts kept in a memory-mapped file of fixed-width records, where account id {@code n} is record {@code n}.
+ * Holder names go to a second, append-only file and the record keeps their offset. Nothing is kept on the heap per
+ * account: {@link #get(long)} builds a short-lived {@link Account} whose balance reads and writes the record.
+ * <p>
+ * The page cache keeps the data when the process dies, {@link #close()} forces it to disk. Balance updates are not
+ * atomic, so this store needs {@link BalanceUpdateMode#LOCKING}.
+ * <p>
+ * Record: {@code [long id][long balance][long created][long name offset][byte status][byte currency]}, an id of 0
+ * marks a free record. Record 0 is the header.
+ */
+public class MappedAccountStore implements OrderedAccountStore, AutoCloseable {
+
+    private static final int MAGIC = 0x4D544143;
+    private static final int VERSION = 1;
+
+    private static final int RECORD_SIZE = 40;
+    private static final int ID = 0;
+    private static final int BALANCE = 8;
+    private static final int CREATED = 16;
+    private static final int NAME = 24;
+    private static final int STATUS = 32;
+    private static final int CURRENCY = 33;
+
+    private static final int HEADER_MAGIC = 0;
+    private static final int HEADER_VERSION = 4;
+    private static final int HEADER_NAMES_END = 8;
+
+    private static final int RECORDS_PER_SEGMENT = 1 << 22;
+    private static final long SEGMENT_SIZE = (long) RECORDS_PER_SEGMENT * RECORD_SIZE;
+    private static final int NAME_SEGMENT_SIZE = 1 << 26;
+
+    private static final AccountStatus[] STATUSES = AccountStatus.values();
+    private static final Currency[] CURRENCIES = Currency.values();
+
+    private final FileChannel records;
+    private final FileChannel names;
+    private volatile MappedByteBuffer[] recordSegments = new MappedByteBuffer[0];
+    private volatile MappedByteBuffer[] nameSegments = new MappedByteBuffer[0];
+    private final AtomicLong size = new AtomicLong();
+    private final AtomicLong maxAccountId = new AtomicLong();
+    private long namesEnd;
+
+    public MappedAccountStore(final Path directory) throws IOException {
+        Files.createDirectories(directory);
+        this.records = FileChannel.open(directory.resolve("accounts.dat"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.names = FileChannel.open(directory.resolve("names.dat"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        final ByteBuffer header = recordSegment(0);
+        if (header.getInt(HEADER_MAGIC) == 0) {
+            header.putInt(HEADER_MAGIC, MAGIC);
+            header.putInt(HEADER_VERSION, VERSION);
+        } else if (header.getInt(HEADER_MAGIC) != MAGIC || header.getInt(HEADER_VERSION) != VERSION) {
+            close();
+            throw new IOException("Not an account file: " + directory.resolve("accounts.dat"));
+        }
+        this.namesEnd = header.getLong(HEADER_NAMES_END);
+
+        final long capacity = records.size() / RECORD_SIZE;
+        for (long accountId = 1; accountId < capacity; accountId++) {
+            if (recordSegment(accountId).getLong(offset(accountId) + ID) != 0) {
+                size.incrementAndGet();
+                maxAccountId.set(accountId);
+            }
+        }
+    }
+
+    @Override
+    public Account get(final long accountId) {
+        if (accountId <= 0 || accountId > maxAccountId.get())
+            return null;
+        final ByteBuffer segment = recordSegment(accountId);
+        final int offset = offset(accountId);
+        if (segment.getLong(offset + ID) != accountId)
+            return null;
+
+        final Currency currency = CURRENCIES[segment.get(offset + CURRENCY)];
+        final Account account = new Account(new User(readName(segment.getLong(offset + NAME))),
+                new MappedMoney(segment, offset + BALANCE, currency));
+        account.setAccountId(accountId);
+        account.setStatus(STATUSES[segment.get(offset + STATUS)]);
+        account.setCreated(new DateTime(segment.getLong(offset + CREATED)));
+        return account;
+    }
+
+    @Override
+    public void put(final Account account) {
+        final long accountId = account.getAccountId();
+        Preconditions.checkArgument(accountId > 0, "Account id must be positive");
+        final ByteBuffer segment = recordSegment(accountId);
+        final int offset = offset(accountId);
+        final boolean isNew = segment.getLong(offset + ID) == 0;
+
+        final String name = account.getAccountHolder().getName();
+        final long nameOffset = !isNew && name.equals(readName(segment.getLong(offset + NAME)))
+                ? segment.getLong(offset + NAME)
+                : appendName(name);
+        segment.putLong(offset + BALANCE, account.getBalance().getMinorUnits());
+        segment.putLong(offset + CREATED, account.getCreated().getMillis());
+        segment.putLong(offset + NAME, nameOffset);
+        segment.put(offset + STATUS, (byte) account.getStatus().ordinal());
+        segment.put(offset + CURRENCY, (byte) account.getBalance().getCurrency().ordinal());
+        segment.putLong(offset + ID, accountId);
+
+        if (isNew) {
+            size.incrementAndGet();
+            maxAccountId.accumulateAndGet(accountId, Math::max);
+        }
+    }
+
+    @Override
+    public void forEach(final Consumer<? super Account> action) {
+        final long max = maxAccountId.get();
+        for (long accountId = 1; accountId <= max; accountId++) {
+            final Account account = get(accountId);
+            if (account != null)
+                action.accept(account);
+        }
+    }
+
+    @Override
+    public Iterable<Account> descendingFrom(final long accountId) {
+        return () -> new AbstractIterator<Account>() {
+            private long next = Math.min(accountId - 1, maxAccountId.get());
+
+            @Override
+            protected Account computeNext() {
+                while (next > 0) {
+                    final Account account = get(next--);
+                    if (account != null)
+                        return account;
+                }
+                return endOfData();
+            }
+        };
+    }
+
+    @Override
+    public long size() {
+        return size.get();
+    }
+
+    @Override
+    public long maxAccountId() {
+        return maxAccountId.get();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (MappedByteBuffer segment : recordSegments)
+            segment.force();
+        for (MappedByteBuffer segment : nameSegments)
+            segment.force();
+        records.close();
+        names.close();
+    }
+
+    private static int offset(final long accountId) {
+        return (int) (accountId % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+    }
+
+    private MappedByteBuffer recordSegment(final long accountId) {
+        final int index = (int) (accountId / RECORDS_PER_SEGMENT);
+        final MappedByteBuffer[] segments = recordSegments;
+        return index < segments.length ? segments[index] : mapRecordSegment(index);
+    }
+
+    private synchronized MappedByteBuffer mapRecordSegment(final int index) {
+        recordSegments = map(records, recordSegments, index, SEGMENT_SIZE);
+        return recordSegments[index];
+    }
+
+    private String readName(final long nameOffset) {
+        final ByteBuffer segment = nameSegment(nameOffset).duplicate();
+        final int position = (int) (nameOffset % NAME_SEGMENT_SIZE);
+        final byte[] bytes = new byte[segment.getInt(position)];
+        segment.position(position + 4);
+        segment.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private synchronized long appendName(final String name) {
+        final byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        final int length = 4 + bytes.length;
+        Preconditions.checkArgument(length <= NAME_SEGMENT_SIZE, "Account holder name is too long");
+        // a name never spans two segments
+        if (namesEnd % NAME_SEGMENT_SIZE + length > NAME_SEGMENT_SIZE)
+            namesEnd += NAME_SEGMENT_SIZE - namesEnd % NAME_SEGMENT_SIZE;
+
+        final long nameOffset = namesEnd;
+        final ByteBuffer segment = nameSegment(nameOffset).duplicate();
+        segment.position((int) (nameOffset % NAME_SEGMENT_SIZE));
+        segment.putInt(bytes.length);
+        segment.put(bytes);
+        namesEnd += length;
+        recordSegment(0).putLong(HEADER_NAMES_END, namesEnd);
+        return nameOffset;
+    }
+
+    private MappedByteBuffer nameSegment(final long nameOffset) {
+        final int index = (int) (nameOffset / NAME_SEGMENT_SIZE);
+        final MappedByteBuffer[] segments = nameSegments;
+        return index < segments.length ? segments[index] : mapNameSegment(index);
+    }
+
+    private synchronized MappedByteBuffer mapNameSegment(final int index) {
+        nameSegments = map(names, nameSegments, index, NAME_SEGMENT_SIZE);
+        return nameSegments[index];
+    }
+
+    private static MappedByteBuffer[] map(final FileChannel channel, final MappedByteBuffer[] segments,
+                                          final int index, final long segmentSize) {
+        if (index < segments.length)
+            return segments;
+        final MappedByteBuffer[] grown = Arrays.copyOf(segments, index + 1);
+        try {
+            for (int i = segments.length; i <= index; i++)
+                grown[i] = channel.map(FileChannel.MapMode.READ_WRITE, i * segmentSize, segmentSize);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot map account file", ex);
+        }
+        return grown;
+    }
+}
@@ -0,0 +1,55 @@
+package org.revolut.moneytransfer.service.account;
+
+import org.revolut.moneytransfer.domain.Currency;
+import org.revolut.moneytransfer.domain.Money;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * A balance that lives in a {@link MappedAccountStore} record, reads and writes go straight to the mapped buffer.
+ * Updates are plain read-modify-write, callers hold the account lock.
+ */
+class MappedMoney extends Money {
+
+    private final ByteBuffer buffer;
+    private final int offset;
+
+    MappedMoney(final ByteBuffer buffer, final int offset, final Currency currency) {
+        super(0, currency);
+        this.buffer = buffer;
+        this.offset = offset;
+    }
+
+    @Override
+    public long getMinorUnits() {
+        return buffer.getLong(offset);
+    }
+
+    @Override
+    protected void setMinorUnits(final long minorUnits) {
+        buffer.putLong(offset, minorUnits);
+    }
+
+    @Override
+    public BigDecimal getAmount() {
+        return toAmount(getMinorUnits());
+    }
+
+    @Override
+    public void credit(final long amount) {
+        setMinorUnits(Math.addExact(getMinorUnits(), amount));
+    }
+
+    @Override
+    public boolean debit(final long amount, final long reserved) {
+        final long current = getMinorUnits();
+        if (current - reserved < amount)
+            return false;
+        setMinorUnits(current - amount);
+        return true;
+    }
+}
@@ -0,0 +1,17 @@
+package org.revolut.moneytransfer.service.account;
+
+import org.revolut.moneytransfer.domain.Account;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * A store that can walk its accounts by id, so listing them needs no separate index.
+ */
+public interface OrderedAccountStore extends AccountStore {
+
+    /**
+     * Accounts with an id lower than the given one, highest id first.
+     */
+    Iterable<Account> descendingFrom(long accountId);
+}
@@ -0,0 +1,126 @@
+package org.revolut.moneytransfer.service.account;
+
+import com.google.common.math.IntMath;
+import org.revolut.moneytransfer.domain.Money;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * The balance of a hot account. Credits are added to one of several cells picked by the crediting thread, so
+ * concurrent credits rarely touch the same cache line. Reads add the cells to the base balance; debits first fold
+ * the cells into the base, one debit at a time, and then debit the base as {@link Money} does.
+ * <p>
+ * A fold empties a cell before it credits the base, so a read in between would miss the folded amount. Folds bump
+ * a sequence number before and after, like a seqlock; a read that overlaps one is retried under the monitor, which
+ * no fold can hold at the same time. A credit only adds to a cell once it knows the cell stays within its bound,
+ * so a read never sees a credit that is then taken back.
+ * <p>
+ * The cells together never exceed half of {@link Long#MAX_VALUE} and neither does the base, so the sum read back
+ * can never wrap around to a negative balance. A credit that would break this bound fails with
+ * {@link ArithmeticException}, like an overflowing credit of {@link Money}.
+ */
+class ShardedMoney extends Money {
+
+    // 8 longs apart, so two cells never share a 64 byte cache line
+    private static final int SPACING = 8;
+    private static final long MAX_BASE = Long.MAX_VALUE / 2;
+
+    private final AtomicLongArray cells;
+    // odd while a fold is moving cells into the base
+    private final AtomicLong sequence = new AtomicLong();
+    private final int mask;
+    private final long cellLimit;
+
+    ShardedMoney(final Money balance, final int shards) {
+        super(balance.getMinorUnits(), balance.getCurrency());
+        final int cellCount = IntMath.ceilingPowerOfTwo(shards);
+        this.cells = new AtomicLongArray(cellCount * SPACING);
+        this.mask = cellCount - 1;
+        this.cellLimit = Long.MAX_VALUE / 4 / cellCount;
+    }
+
+    @Override
+    public long getMinorUnits() {
+        final long before = sequence.get();
+        if ((before & 1) == 0) {
+            final long sum = sum();
+            if (sequence.get() == before)
+                return sum;
+        }
+        synchronized (this) {
+            return sum();
+        }
+    }
+
+    @Override
+    protected synchronized void setMinorUnits(final long minorUnits) {
+        sequence.incrementAndGet();
+        for (int i = 0; i <= mask; i++)
+            cells.set(i * SPACING, 0);
+        super.setMinorUnits(minorUnits);
+        sequence.incrementAndGet();
+    }
+
+    @Override
+    public BigDecimal getAmount() {
+        return toAmount(getMinorUnits());
+    }
+
+    @Override
+    public void credit(final long amount) {
+        if (amount < 0 || amount > cellLimit) {
+            creditBase(amount);
+            return;
+        }
+        final int cell = ((int) Thread.currentThread().getId() & mask) * SPACING;
+        long current;
+        do {
+            current = cells.get(cell);
+            if (current + amount > cellLimit) {
+                creditBase(amount);
+                return;
+            }
+        } while (!cells.compareAndSet(cell, current, current + amount));
+    }
+
+    @Override
+    public synchronized boolean debit(final long amount, final long reserved) {
+        fold();
+        return super.debit(amount, reserved);
+    }
+
+    private synchronized void creditBase(final long amount) {
+        fold();
+        if (Math.addExact(super.getMinorUnits(), amount) > MAX_BASE)
+            throw new ArithmeticException("long overflow");
+        super.credit(amount);
+    }
+
+    private long sum() {
+        long sum = super.getMinorUnits();
+        for (int i = 0; i <= mask; i++)
+            sum += cells.get(i * SPACING);
+        return sum;
+    }
+
+    /**
+     * Moves the cells into the base, leaving in a cell what would take the base over its bound. Called under the
+     * monitor.
+     */
+    private void fold() {
+        sequence.incrementAndGet();
+        for (int i = 0; i <= mask; i++) {
+            final long folded = cells.getAndSet(i * SPACING, 0);
+            if (super.getMinorUnits() + folded > MAX_BASE)
+                cells.addAndGet(i * SPACING, folded);
+            else if (folded != 0)
+                super.credit(folded);
+        }
+        sequence.incrementAndGet();
+    }
+}
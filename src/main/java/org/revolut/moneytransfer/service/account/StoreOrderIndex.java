@@ -0,0 +1,52 @@
+package org.revolut.moneytransfer.service.account;
+
+import com.google.common.collect.FluentIterable;
+import org.revolut.moneytransfer.domain.Account;
+import org.revolut.moneytransfer.domain.AccountStatus;
+
+import java.util.Optional;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * Lists accounts straight from an {@link OrderedAccountStore}, newest (highest id) first, and keeps nothing on the
+ * heap. Filtering by status walks the accounts of the other status too.
+ */
+class StoreOrderIndex implements AccountIndex {
+
+    private final OrderedAccountStore accounts;
+
+    StoreOrderIndex(final OrderedAccountStore accounts) {
+        this.accounts = accounts;
+    }
+
+    @Override
+    public void load(final AccountStore accounts) {
+    }
+
+    @Override
+    public void add(final Account account) {
+    }
+
+    @Override
+    public void remove(final Account account) {
+    }
+
+    @Override
+    public void statusChanged(final Account account, final AccountStatus previous) {
+    }
+
+    @Override
+    public Iterable<Key> keys(final Optional<AccountStatus> status) {
+        return keysAfter(status, null);
+    }
+
+    @Override
+    public Iterable<Key> keysAfter(final Optional<AccountStatus> status, final String cursor) {
+        final long from = cursor == null ? Long.MAX_VALUE : Key.fromCursor(cursor).getAccountId();
+        return FluentIterable.from(accounts.descendingFrom(from))
+                .filter(account -> !status.isPresent() || account.getStatus() == status.get())
+                .transform(Key::of);
+    }
+}
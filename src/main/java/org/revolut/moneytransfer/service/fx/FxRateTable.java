@@ -0,0 +1,87 @@
+package org.revolut.moneytransfer.service.fx;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * The current {@link FxRates}, loaded from a file and reloaded on a background thread when the file changes. A
+ * reload builds a new table and swaps it in with one volatile write, so readers never lock and never see a table
+ * half loaded. A file that fails to parse is logged and the previous table stays.
+ */
+public class FxRateTable implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(FxRateTable.class);
+
+    public static final FxRateTable NONE = new FxRateTable(null, FxRates.NONE);
+
+    private final Path file;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("fx-rates").setDaemon(true).build());
+    private volatile FxRates rates;
+    private FileTime loadedVersion;
+
+    private FxRateTable(final Path file, final FxRates rates) {
+        this.file = file;
+        this.rates = rates;
+    }
+
+    /**
+     * @throws UncheckedIOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is malformed
+     */
+    public static FxRateTable load(final Path file) {
+        final FxRateTable table = new FxRateTable(file, FxRates.NONE);
+        try {
+            table.reload();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot read exchange rates " + file, ex);
+        }
+        return table;
+    }
+
+    public FxRates current() {
+        return rates;
+    }
+
+    public void start(final long intervalSeconds) {
+        executor.scheduleWithFixedDelay(this::reloadQuietly, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Loads the file again if it changed since the last load.
+     */
+    public synchronized void reload() throws IOException {
+        final FileTime version = Files.getLastModifiedTime(file);
+        if (version.equals(loadedVersion))
+            return;
+        rates = FxRates.parse(Files.readAllLines(file, StandardCharsets.UTF_8));
+        loadedVersion = version;
+        LOG.info("Loaded exchange rates from {}", file);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private void reloadQuietly() {
+        try {
+            reload();
+        } catch (IOException | RuntimeException ex) {
+            LOG.error("Cannot reload exchange rates from {}, keeping the previous ones", file, ex);
+        }
+    }
+}
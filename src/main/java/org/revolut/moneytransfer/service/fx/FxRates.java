@@ -0,0 +1,94 @@
+package org.revolut.moneytransfer.service.fx;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+import org.revolut.moneytransfer.domain.Currency;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.List;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * Immutable table of exchange rates, one {@code long} per ordered currency pair indexed by
+ * {@link Currency#ordinal()}, each rate scaled by {@value #RATE_SCALE}. A conversion is one array read and a
+ * multiplication, done on {@link BigInteger} only when the product does not fit a long. Converted amounts are rounded
+ * down to the minor unit.
+ */
+public final class FxRates {
+
+    public static final long RATE_SCALE = 1_000_000;
+    public static final long NO_RATE = -1;
+
+    private static final int RATE_DIGITS = 6;
+    private static final BigInteger BIG_RATE_SCALE = BigInteger.valueOf(RATE_SCALE);
+    private static final Currency[] CURRENCIES = Currency.values();
+
+    /**
+     * Converts only between equal currencies.
+     */
+    public static final FxRates NONE = new FxRates(new long[CURRENCIES.length * CURRENCIES.length]);
+
+    private final long[] rates;
+
+    private FxRates(final long[] rates) {
+        for (Currency currency : CURRENCIES)
+            rates[index(currency, currency)] = RATE_SCALE;
+        this.rates = rates;
+    }
+
+    /**
+     * Reads one {@code FROM,TO,RATE} line per pair, for example {@code EUR,GBP,0.861234}. Blank lines and lines
+     * starting with {@code #} are skipped. Pairs not listed cannot be converted, the opposite direction included.
+     *
+     * @throws IllegalArgumentException if a line is malformed or a rate rounds to 0 at six decimals
+     */
+    public static FxRates parse(final List<String> lines) {
+        final long[] rates = new long[CURRENCIES.length * CURRENCIES.length];
+        for (String line : lines) {
+            final String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#"))
+                continue;
+            final List<String> fields = Splitter.on(',').trimResults().splitToList(trimmed);
+            Preconditions.checkArgument(fields.size() == 3, "Expected FROM,TO,RATE but got: %s", line);
+            final BigDecimal rate = new BigDecimal(fields.get(2));
+            Preconditions.checkArgument(rate.signum() > 0, "Rate must be positive: %s", line);
+            final long scaled = rate.movePointRight(RATE_DIGITS).setScale(0, RoundingMode.HALF_EVEN).longValueExact();
+            // 0 marks a missing pair, so a rate that rounds to it would silently disable the pair
+            Preconditions.checkArgument(scaled > 0, "Rate must be at least 0.000001: %s", line);
+            rates[index(Currency.valueOf(fields.get(0)), Currency.valueOf(fields.get(1)))] = scaled;
+        }
+        return new FxRates(rates);
+    }
+
+    /**
+     * @return the rate scaled by {@value #RATE_SCALE}, or {@link #NO_RATE}
+     */
+    public long rate(final Currency from, final Currency to) {
+        final long rate = rates[index(from, to)];
+        return rate == 0 ? NO_RATE : rate;
+    }
+
+    /**
+     * @return the amount in minor units of {@code to}, or {@link #NO_RATE} if the pair has no rate
+     * @throws ArithmeticException if the converted amount does not fit a long
+     */
+    public long convert(final long minorUnits, final Currency from, final Currency to) {
+        if (from == to)
+            return minorUnits;
+        final long rate = rates[index(from, to)];
+        if (rate == 0)
+            return NO_RATE;
+        if (minorUnits >= 0 && minorUnits <= Long.MAX_VALUE / rate)
+            return minorUnits * rate / RATE_SCALE;
+        return BigInteger.valueOf(minorUnits).multiply(BigInteger.valueOf(rate)).divide(BIG_RATE_SCALE)
+                .longValueExact();
+    }
+
+    private static int index(final Currency from, final Currency to) {
+        return from.ordinal() * CURRENCIES.length + to.ordinal();
+    }
+}
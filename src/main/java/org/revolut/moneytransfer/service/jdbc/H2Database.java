@@ -0,0 +1,76 @@
+package org.revolut.moneytransfer.service.jdbc;
+
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.revolut.moneytransfer.exception.StorageException;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * Embedded H2 database behind {@link JdbcAccountDao} and {@link JdbcMoneyTransferDao}, file based or in-memory
+ * depending on the url. Connections are pooled, and as every pooled connection keeps its H2 session, statements
+ * prepared on it are served from the session's query cache ({@code QUERY_CACHE_SIZE} in the url).
+ */
+public class H2Database implements AutoCloseable {
+
+    private static final String[] SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS account (" +
+                    "account_id BIGINT PRIMARY KEY, " +
+                    "holder_name VARCHAR NOT NULL, " +
+                    "currency VARCHAR(3) NOT NULL, " +
+                    "balance BIGINT NOT NULL, " +
+                    "status VARCHAR(8) NOT NULL, " +
+                    "created BIGINT NOT NULL)",
+            "CREATE INDEX IF NOT EXISTS account_status ON account (status, account_id)",
+            "CREATE TABLE IF NOT EXISTS money_transfer (" +
+                    "position BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                    "transfer_id VARCHAR(36) NOT NULL UNIQUE, " +
+                    "source_account_id BIGINT NOT NULL, " +
+                    "destination_account_id BIGINT NOT NULL, " +
+                    "currency VARCHAR(3) NOT NULL, " +
+                    "amount BIGINT NOT NULL, " +
+                    "transfer_date BIGINT NOT NULL, " +
+                    "description VARCHAR)",
+            "CREATE INDEX IF NOT EXISTS money_transfer_source ON money_transfer (source_account_id, position)",
+            "CREATE INDEX IF NOT EXISTS money_transfer_destination ON money_transfer (destination_account_id, position)",
+            // transfers wait for each other's row locks instead of failing after the default second
+            "SET DEFAULT_LOCK_TIMEOUT 10000"
+    };
+
+    private final JdbcConnectionPool pool;
+
+    public H2Database(final String url, final int maxConnections) {
+        this.pool = JdbcConnectionPool.create(url, "sa", "");
+        pool.setMaxConnections(maxConnections);
+        try (Connection connection = pool.getConnection(); Statement statement = connection.createStatement()) {
+            for (String sql : SCHEMA)
+                statement.execute(sql);
+        } catch (SQLException ex) {
+            pool.dispose();
+            throw new StorageException("Cannot create schema in " + url, ex);
+        }
+    }
+
+    Connection connection() throws SQLException {
+        return pool.getConnection();
+    }
+
+    JdbcTransaction begin() throws SQLException {
+        return new JdbcTransaction(pool.getConnection());
+    }
+
+    @Override
+    public void close() {
+        try (Connection connection = pool.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("SHUTDOWN");
+        } catch (SQLException ex) {
+            throw new StorageException("Cannot shut down the database", ex);
+        } finally {
+            pool.dispose();
+        }
+    }
+}
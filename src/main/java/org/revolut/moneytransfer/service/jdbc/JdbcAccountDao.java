@@ -0,0 +1,256 @@
+package org.revolut.moneytransfer.service.jdbc;
+
+import com.google.common.base.Preconditions;
+import org.joda.time.DateTime;
+import org.revolut.moneytransfer.domain.Account;
+import org.revolut.moneytransfer.domain.AccountStatus;
+import org.revolut.moneytransfer.domain.Currency;
+import org.revolut.moneytransfer.domain.Money;
+import org.revolut.moneytransfer.domain.Page;
+import org.revolut.moneytransfer.domain.User;
+import org.revolut.moneytransfer.domain.request.AccountBalanceRequest;
+import org.revolut.moneytransfer.domain.request.AccountInfoRequest;
+import org.revolut.moneytransfer.domain.request.AccountRequest;
+import org.revolut.moneytransfer.domain.request.AccountStatusRequest;
+import org.revolut.moneytransfer.exception.AccountAccessException;
+import org.revolut.moneytransfer.exception.AccountNotFoundException;
+import org.revolut.moneytransfer.exception.CurrencyException;
+import org.revolut.moneytransfer.exception.CurrencyNotMatchingException;
+import org.revolut.moneytransfer.exception.NegativeBalanceException;
+import org.revolut.moneytransfer.exception.StorageException;
+import org.revolut.moneytransfer.service.account.AccountDao;
+import org.revolut.moneytransfer.util.Cursors;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * {@link AccountDao} on {@link H2Database}. Every balance change reads the account row with
+ * {@code SELECT ... FOR UPDATE}, so concurrent updates of one account are serialized by the database.
+ */
+public class JdbcAccountDao implements AccountDao {
+
+    static final String COLUMNS = "account_id, holder_name, currency, balance, status, created";
+
+    private static final String INSERT = "INSERT INTO account (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String SELECT = "SELECT " + COLUMNS + " FROM account WHERE account_id = ?";
+    private static final String SELECT_FOR_UPDATE = SELECT + " FOR UPDATE";
+    private static final String UPDATE_HOLDER = "UPDATE account SET holder_name = ? WHERE account_id = ?";
+    private static final String UPDATE_STATUS = "UPDATE account SET status = ? WHERE account_id = ?";
+    static final String UPDATE_BALANCE = "UPDATE account SET balance = ? WHERE account_id = ?";
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final H2Database database;
+    private final AtomicLong maxAccountId;
+
+    public JdbcAccountDao(final H2Database database) {
+        this.database = database;
+        this.maxAccountId = new AtomicLong(queryMaxAccountId());
+    }
+
+    @Override
+    public Account insertNewAccount(final Account account) {
+        return insertNewAccounts(Collections.singletonList(account)).get(0);
+    }
+
+    @Override
+    public List<Account> insertNewAccounts(final List<Account> accounts) {
+        final List<Account> newAccounts = new ArrayList<>(accounts.size());
+        try (JdbcTransaction transaction = database.begin();
+             PreparedStatement insert = transaction.connection().prepareStatement(INSERT)) {
+            for (Account account : accounts) {
+                final Account newAccount = new Account(maxAccountId.incrementAndGet(), account);
+                bind(insert, newAccount);
+                insert.addBatch();
+                newAccounts.add(newAccount);
+                if (newAccounts.size() % BATCH_SIZE == 0)
+                    insert.executeBatch();
+            }
+            insert.executeBatch();
+            transaction.commit();
+            return newAccounts;
+        } catch (SQLException ex) {
+            throw new StorageException("Cannot insert accounts", ex);
+        }
+    }
+
+    @Override
+    public List<Account> getAllAccounts(final Optional<AccountStatus> status) {
+        return queryAccounts(status, Long.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public Page<Account> getAccounts(final Optional<AccountStatus> status, final String cursor, final int limit) {
+        Preconditions.checkArgument(limit > 0 && limit <= Page.MAX_LIMIT,
+                "limit must be between 1 and " + Page.MAX_LIMIT);
+        final long before = cursor == null ? Long.MAX_VALUE : Cursors.decode(cursor, 1)[0];
+        final List<Account> accounts = queryAccounts(status, before, limit + 1);
+        if (accounts.size() <= limit)
+            return new Page<>(accounts, null);
+        final List<Account> items = new ArrayList<>(accounts.subList(0, limit));
+        return new Page<>(items, Cursors.encode(items.get(limit - 1).getAccountId()));
+    }
+
+    @Override
+    public Account getAccountById(final Long accountID) throws AccountNotFoundException {
+        try (Connection connection = database.connection()) {
+            return activeAccount(find(connection, accountID, false), accountID);
+        } catch (SQLException ex) {
+            throw new StorageException("Cannot read account " + accountID, ex);
+        }
+    }
+
+    @Override
+    public Account updateAccountBalance(final AccountBalanceRequest request, final boolean isCredit)
+            throws AccountNotFoundException, CurrencyException {
+        try (JdbcTransaction transaction = database.begin()) {
+            final Account account = activeAccount(
+                    find(transaction.connection(), request.getAccountId(), true), request.getAccountId());
+            final Money amount = request.getBalance();
+            if (amount.getCurrency() != account.getBalance().getCurrency())
+                throw new CurrencyNotMatchingException("Currency is not matching for: " +
+                        "" + amount.getCurrency() + " and " + account.getBalance().getCurrency() + "");
+            if (isCredit)
+                account.getBalance().credit(amount.getMinorUnits());
+            else if (!account.getBalance().debit(amount.getMinorUnits()))
+                throw new NegativeBalanceException("Do not have sufficient fund to perform debit operation," +
+                        " current balance: " + account.getBalance().getAmount() +
+                        " " + account.getBalance().getCurrency());
+
+            update(transaction.connection(), UPDATE_BALANCE, account.getBalance().getMinorUnits(),
+                    account.getAccountId());
+            transaction.commit();
+            return account;
+        } catch (SQLException ex) {
+            throw new StorageException("Cannot update balance of account " + request.getAccountId(), ex);
+        }
+    }
+
+    @Override
+    public Account updateAccountById(final AccountRequest accountRequest) throws AccountAccessException {
+        try (JdbcTransaction transaction = database.begin()) {
+            final Account toUpdate;
+            if (accountRequest instanceof AccountInfoRequest) {
+                final AccountInfoRequest request = (AccountInfoRequest) accountRequest;
+                toUpdate = activeAccount(
+                        find(transaction.connection(), request.getAccountId(), true), request.getAccountId());
+                final String name = request.getAccountHolder().getName();
+                if (!toUpdate.getAccountHolder().getName().equals(name)) {
+                    toUpdate.setAccountHolder(new User(name));
+                    update(transaction.connection(), UPDATE_HOLDER, name, toUpdate.getAccountId());
+                }
+            } else if (accountRequest instanceof AccountStatusRequest) {
+                final AccountStatusRequest request = (AccountStatusRequest) accountRequest;
+                toUpdate = find(transaction.connection(), request.getAccountId(), true);
+                if (toUpdate == null)
+                    throw new AccountNotFoundException(request.getAccountId());
+                if (toUpdate.getStatus() != request.getStatus()) {
+                    toUpdate.setStatus(request.getStatus());
+                    update(transaction.connection(), UPDATE_STATUS, request.getStatus().name(),
+                            toUpdate.getAccountId());
+                }
+            } else throw new AccountAccessException("Malformed Request");
+
+            transaction.commit();
+            return toUpdate;
+        } catch (SQLException ex) {
+            throw new StorageException("Cannot update account " + accountRequest.getAccountId(), ex);
+        }
+    }
+
+    /**
+     * @return the account, or null if there is none with this id
+     */
+    static Account find(final Connection connection, final Long accountId, final boolean forUpdate)
+            throws SQLException {
+        if (accountId == null)
+            return null;
+        try (PreparedStatement select = connection.prepareStatement(forUpdate ? SELECT_FOR_UPDATE : SELECT)) {
+            select.setLong(1, accountId);
+            try (ResultSet row = select.executeQuery()) {
+                return row.next() ? toAccount(row) : null;
+            }
+        }
+    }
+
+    static void update(final Connection connection, final String sql, final Object value, final long accountId)
+            throws SQLException {
+        try (PreparedStatement update = connection.prepareStatement(sql)) {
+            update.setObject(1, value);
+            update.setLong(2, accountId);
+            update.executeUpdate();
+        }
+    }
+
+    private static Account activeAccount(final Account account, final Long accountID)
+            throws AccountNotFoundException {
+        if (account == null)
+            throw new AccountNotFoundException(accountID);
+        if (account.getStatus() == AccountStatus.INACTIVE)
+            throw new AccountNotFoundException("Account id: [" + accountID + "] is INACTIVE");
+        return account;
+    }
+
+    private List<Account> queryAccounts(final Optional<AccountStatus> status, final long before, final int limit) {
+        final String sql = "SELECT " + COLUMNS + " FROM account WHERE account_id < ?" +
+                (status.isPresent() ? " AND status = ?" : "") + " ORDER BY account_id DESC LIMIT ?";
+        try (Connection connection = database.connection();
+             PreparedStatement select = connection.prepareStatement(sql)) {
+            int index = 1;
+            select.setLong(index++, before);
+            if (status.isPresent())
+                select.setString(index++, status.get().name());
+            select.setInt(index, limit);
+
+            final List<Account> accounts = new ArrayList<>();
+            try (ResultSet rows = select.executeQuery()) {
+                while (rows.next())
+                    accounts.add(toAccount(rows));
+            }
+            return accounts;
+        } catch (SQLException ex) {
+            throw new StorageException("Cannot read accounts", ex);
+        }
+    }
+
+    private long queryMaxAccountId() {
+        try (Connection connection = database.connection();
+             Statement statement = connection.createStatement();
+             ResultSet row = statement.executeQuery("SELECT COALESCE(MAX(account_id), 0) FROM account")) {
+            row.next();
+            return row.getLong(1);
+        } catch (SQLException ex) {
+            throw new StorageException("Cannot read the last account id", ex);
+        }
+    }
+
+    private static void bind(final PreparedStatement insert, final Account account) throws SQLException {
+        insert.setLong(1, account.getAccountId());
+        insert.setString(2, account.getAccountHolder().getName());
+        insert.setString(3, account.getBalance().getCurrency().name());
+        insert.setLong(4, account.getBalance().getMinorUnits());
+        insert.setString(5, account.getStatus().name());
+        insert.setLong(6, account.getCreated().getMillis());
+    }
+
+    private static Account toAccount(final ResultSet row) throws SQLException {
+        final Account account = new Account(new User(row.getString("holder_name")),
+                new Money(row.getLong("balance"), Currency.valueOf(row.getString("currency"))));
+        account.setAccountId(row.getLong("account_id"));
+        account.setStatus(AccountStatus.valueOf(row.getString("status")));
+        account.setCreated(new DateTime(row.getLong("created")));
+        return account;
+    }
+}
@@ -0,0 +1,217 @@
+package org.revolut.moneytransfer.service.jdbc;
+
+import com.google.common.base.Preconditions;
+import org.joda.time.DateTime;
+import org.revolut.moneytransfer.domain.Account;
+import org.revolut.moneytransfer.domain.Currency;
+import org.revolut.moneytransfer.domain.Money;
+import org.revolut.moneytransfer.domain.MoneyTransfer;
+import org.revolut.moneytransfer.domain.Page;
+import org.revolut.moneytransfer.exception.MoneyTransferWebServiceException;
+import org.revolut.moneytransfer.exception.StorageException;
+import org.revolut.moneytransfer.service.transfer.MoneyTransferDao;
+import org.revolut.moneytransfer.service.transfer.TransferValidation;
+import org.revolut.moneytransfer.service.transfer.TransferValidator;
+import org.revolut.moneytransfer.util.Cursors;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * {@link MoneyTransferDao} on {@link H2Database}. A transfer locks both account rows with
+ * {@code SELECT ... FOR UPDATE}, always the lower account id first so two opposite transfers cannot deadlock, then
+ * writes both balances and the transfer in one transaction.
+ */
+public class JdbcMoneyTransferDao implements MoneyTransferDao {
+
+    private static final String COLUMNS = "position, transfer_id, source_account_id, destination_account_id, " +
+            "currency, amount, transfer_date, description";
+
+    private static final String INSERT = "INSERT INTO money_transfer (transfer_id, source_account_id, " +
+            "destination_account_id, currency, amount, transfer_date, description) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_PAGE = "SELECT " + COLUMNS + " FROM money_transfer " +
+            "WHERE position < ? ORDER BY position DESC LIMIT ?";
+    // each leg is read newest first from its own index, the union only merges two short lists
+    private static final String SELECT_ACCOUNT_PAGE = "SELECT * FROM (" +
+            "(SELECT " + COLUMNS + " FROM money_transfer WHERE source_account_id = ? AND position < ? " +
+            "ORDER BY position DESC LIMIT ?) UNION ALL " +
+            "(SELECT " + COLUMNS + " FROM money_transfer WHERE destination_account_id = ? AND position < ? " +
+            "ORDER BY position DESC LIMIT ?)) ORDER BY position DESC LIMIT ?";
+
+    private final H2Database database;
+
+    public JdbcMoneyTransferDao(final H2Database database) {
+        this.database = database;
+    }
+
+    @Override
+    public void checkTransfer(final MoneyTransfer request) throws MoneyTransferWebServiceException {
+        try (Connection connection = database.connection()) {
+            final Account source = JdbcAccountDao.find(connection, request.getSourceAccountId(), false);
+            final Account destination = JdbcAccountDao.find(connection, request.getDestinationAccountId(), false);
+            final TransferValidation validation = TransferValidator.validate(request,
+                    TransferValidator.active(source), TransferValidator.active(destination));
+            if (!validation.isValid())
+                throw rejection(validation.getRejection());
+        } catch (SQLException ex) {
+            throw new StorageException("Cannot read accounts", ex);
+        }
+    }
+
+    @Override
+    public MoneyTransfer newMoneyTransfer(final MoneyTransfer request) throws MoneyTransferWebServiceException {
+        if (request.getSourceAccountId() == request.getDestinationAccountId())
+            throw rejection(TransferValidation.Rejection.SAME_ACCOUNT);
+
+        try (JdbcTransaction transaction = database.begin()) {
+            final Connection connection = transaction.connection();
+            final long first = Math.min(request.getSourceAccountId(), request.getDestinationAccountId());
+            final long second = Math.max(request.getSourceAccountId(), request.getDestinationAccountId());
+            final Account firstAccount = JdbcAccountDao.find(connection, first, true);
+            final Account secondAccount = JdbcAccountDao.find(connection, second, true);
+            final boolean sourceFirst = first == request.getSourceAccountId();
+            final TransferValidation validation = TransferValidator.validate(request,
+                    TransferValidator.active(sourceFirst ? firstAccount : secondAccount),
+                    TransferValidator.active(sourceFirst ? secondAccount : firstAccount));
+            if (!validation.isValid())
+                throw rejection(validation.getRejection());
+
+            final Account source = validation.getSource();
+            final Account destination = validation.getDestination();
+            final long amount = request.getAmount().getMinorUnits();
+            source.getBalance().debit(amount);
+            try {
+                destination.getBalance().credit(amount);
+            } catch (ArithmeticException ex) {
+                throw new MoneyTransferWebServiceException("Destination account balance would overflow");
+            }
+
+            final MoneyTransfer transfer = MoneyTransfer.from(request);
+            transfer.setTransferDate(DateTime.now());
+
+            try (PreparedStatement balances = connection.prepareStatement(JdbcAccountDao.UPDATE_BALANCE)) {
+                for (Account account : new Account[]{source, destination}) {
+                    balances.setLong(1, account.getBalance().getMinorUnits());
+                    balances.setLong(2, account.getAccountId());
+                    balances.addBatch();
+                }
+                balances.executeBatch();
+            }
+            insert(connection, transfer);
+            transaction.commit();
+            return transfer;
+        } catch (SQLException ex) {
+            throw new StorageException("Cannot store transfer", ex);
+        }
+    }
+
+    @Override
+    public List<MoneyTransfer> getAllTransfers() {
+        return transfers(query(SELECT_PAGE, Long.MAX_VALUE, Integer.MAX_VALUE));
+    }
+
+    @Override
+    public List<MoneyTransfer> getAllTransfersByAccount(final long accountId) {
+        return transfers(query(SELECT_ACCOUNT_PAGE, accountId, Long.MAX_VALUE, Integer.MAX_VALUE,
+                accountId, Long.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE));
+    }
+
+    @Override
+    public Page<MoneyTransfer> getTransfers(final String cursor, final int limit) {
+        final long before = pageStart(cursor, limit);
+        return page(query(SELECT_PAGE, before, limit + 1), limit);
+    }
+
+    @Override
+    public Page<MoneyTransfer> getTransfersByAccount(final long accountId, final String cursor, final int limit) {
+        final long before = pageStart(cursor, limit);
+        return page(query(SELECT_ACCOUNT_PAGE, accountId, before, limit + 1, accountId, before, limit + 1,
+                limit + 1), limit);
+    }
+
+    /**
+     * The cursor is the exclusive position of the last transfer on the previous page.
+     */
+    private static long pageStart(final String cursor, final int limit) {
+        Preconditions.checkArgument(limit > 0 && limit <= Page.MAX_LIMIT,
+                "limit must be between 1 and " + Page.MAX_LIMIT);
+        final long start = cursor == null ? Long.MAX_VALUE : Cursors.decode(cursor, 1)[0];
+        Preconditions.checkArgument(start >= 0, "Invalid cursor");
+        return start;
+    }
+
+    private static Page<MoneyTransfer> page(final List<Positioned> rows, final int limit) {
+        final List<MoneyTransfer> items = new ArrayList<>(Math.min(rows.size(), limit));
+        for (int i = 0; i < rows.size() && i < limit; i++)
+            items.add(rows.get(i).transfer);
+        return new Page<>(items, rows.size() > limit ? Cursors.encode(rows.get(limit - 1).position) : null);
+    }
+
+    private List<Positioned> query(final String sql, final Object... parameters) {
+        try (Connection connection = database.connection();
+             PreparedStatement select = connection.prepareStatement(sql)) {
+            for (int i = 0; i < parameters.length; i++)
+                select.setObject(i + 1, parameters[i]);
+
+            final List<Positioned> rows = new ArrayList<>();
+            try (ResultSet row = select.executeQuery()) {
+                while (row.next())
+                    rows.add(new Positioned(row.getLong("position"), toTransfer(row)));
+            }
+            return rows;
+        } catch (SQLException ex) {
+            throw new StorageException("Cannot read transfers", ex);
+        }
+    }
+
+    private static List<MoneyTransfer> transfers(final List<Positioned> rows) {
+        final List<MoneyTransfer> transfers = new ArrayList<>(rows.size());
+        rows.forEach(row -> transfers.add(row.transfer));
+        return transfers;
+    }
+
+    private static MoneyTransferWebServiceException rejection(final TransferValidation.Rejection rejection) {
+        return new MoneyTransferWebServiceException(rejection.getMessage());
+    }
+
+    private static void insert(final Connection connection, final MoneyTransfer transfer) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(INSERT)) {
+            insert.setString(1, transfer.getTransferId());
+            insert.setLong(2, transfer.getSourceAccountId());
+            insert.setLong(3, transfer.getDestinationAccountId());
+            insert.setString(4, transfer.getAmount().getCurrency().name());
+            insert.setLong(5, transfer.getAmount().getMinorUnits());
+            insert.setLong(6, transfer.getTransferDate().getMillis());
+            insert.setString(7, transfer.getDescription());
+            insert.executeUpdate();
+        }
+    }
+
+    private static MoneyTransfer toTransfer(final ResultSet row) throws SQLException {
+        final MoneyTransfer transfer = new MoneyTransfer(row.getLong("source_account_id"),
+                row.getLong("destination_account_id"),
+                new Money(row.getLong("amount"), Currency.valueOf(row.getString("currency"))),
+                row.getString("description"));
+        transfer.setTransferId(row.getString("transfer_id"));
+        transfer.setTransferDate(new DateTime(row.getLong("transfer_date")));
+        return transfer;
+    }
+
+    private static final class Positioned {
+
+        private final long position;
+        private final MoneyTransfer transfer;
+
+        private Positioned(final long position, final MoneyTransfer transfer) {
+            this.position = position;
+            this.transfer = transfer;
+        }
+    }
+}
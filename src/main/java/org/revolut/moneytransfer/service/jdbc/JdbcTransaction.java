@@ -0,0 +1,42 @@
+package org.revolut.moneytransfer.service.jdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * A pooled connection with auto-commit off. Closing it without {@link #commit()} rolls back, so an exception
+ * anywhere inside a try-with-resources block leaves the database untouched.
+ */
+class JdbcTransaction implements AutoCloseable {
+
+    private final Connection connection;
+    private boolean committed;
+
+    JdbcTransaction(final Connection connection) throws SQLException {
+        this.connection = connection;
+        connection.setAutoCommit(false);
+    }
+
+    Connection connection() {
+        return connection;
+    }
+
+    void commit() throws SQLException {
+        connection.commit();
+        committed = true;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            if (!committed)
+                connection.rollback();
+            connection.setAutoCommit(true);
+        } finally {
+            connection.close();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.revolut.moneytransfer.service.journal;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.joda.time.DateTime;
+import org.revolut.moneytransfer.domain.Account;
+import org.revolut.moneytransfer.domain.AccountStatus;
+import org.revolut.moneytransfer.domain.Currency;
+import org.revolut.moneytransfer.domain.Money;
+import org.revolut.moneytransfer.domain.User;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * Full state of an account, written when it is created and when its holder or status changes.
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+public class AccountRecord implements JournalRecord {
+
+    private final long accountId;
+    private final String holderName;
+    private final AccountStatus status;
+    private final Currency currency;
+    private final long balance;
+    private final long created;
+
+    public AccountRecord(final long accountId, final String holderName, final AccountStatus status,
+                         final Currency currency, final long balance, final long created) {
+        this.accountId = accountId;
+        this.holderName = holderName;
+        this.status = status;
+        this.currency = currency;
+        this.balance = balance;
+        this.created = created;
+    }
+
+    public static AccountRecord of(final Account account) {
+        return new AccountRecord(account.getAccountId(), account.getAccountHolder().getName(), account.getStatus(),
+                account.getBalance().getCurrency(), account.getBalance().getMinorUnits(),
+                account.getCreated().getMillis());
+    }
+
+    public Account toAccount() {
+        final Account account = new Account(new User(holderName), new Money(balance, currency));
+        account.setAccountId(accountId);
+        account.setStatus(status);
+        account.setCreated(new DateTime(created));
+        return account;
+    }
+
+    @Override
+    public Type getType() {
+        return Type.ACCOUNT;
+    }
+}
@@ -0,0 +1,30 @@
+package org.revolut.moneytransfer.service.journal;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * Balance of an account after a credit or debit, in minor units.
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+public class BalanceRecord implements JournalRecord {
+
+    private final long accountId;
+    private final long balance;
+
+    public BalanceRecord(final long accountId, final long balance) {
+        this.accountId = accountId;
+        this.balance = balance;
+    }
+
+    @Override
+    public Type getType() {
+        return Type.BALANCE;
+    }
+}
@@ -0,0 +1,231 @@
+package org.revolut.moneytransfer.service.journal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * Journal in a single file of frames: {@code [int length][int crc32][record]}.
+ * <p>
+ * With group commit, a writer waiting for durability either becomes the leader and forces everything written so
+ * far with one fsync, or waits for the running fsync and checks again. Writers that arrive while an fsync is
+ * running are all covered by the next one. Without group commit every append is forced on its own.
+ * <p>
+ * The first failed write or fsync is kept and every later append, sync and {@link #checkWritable()} fails with it.
+ * <p>
+ * On open, a torn or corrupt frame at the tail (a crash in the middle of a write) is cut off. Only the part after
+ * the given start position is checked, which is where a snapshot left off.
+ */
+public class FileJournal implements Journal {
+    private static final Logger LOG = LoggerFactory.getLogger(FileJournal.class);
+
+    private static final int HEADER_SIZE = 8;
+    private static final int READ_BUFFER_SIZE = 1 << 20;
+    private static final int MAX_RECORD_SIZE = READ_BUFFER_SIZE - HEADER_SIZE;
+
+    private final FileChannel channel;
+    private final boolean groupCommit;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(4096);
+    private volatile long written;
+
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final Condition synced = syncLock.newCondition();
+    private volatile long durable;
+    private boolean syncing;
+
+    private volatile IOException failure;
+
+    public FileJournal(final Path path, final boolean groupCommit) throws IOException {
+        this(path, groupCommit, 0);
+    }
+
+    public FileJournal(final Path path, final boolean groupCommit, final long start) throws IOException {
+        this.channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.groupCommit = groupCommit;
+
+        if (start > channel.size()) {
+            channel.close();
+            throw new IllegalStateException("Journal " + path + " is shorter than the snapshot position " + start);
+        }
+        final long valid = scan(start, null);
+        if (valid < channel.size()) {
+            LOG.warn("Truncating journal {} from {} to {} bytes", path, channel.size(), valid);
+            channel.truncate(valid);
+        }
+        channel.position(valid);
+        this.written = valid;
+        this.durable = valid;
+    }
+
+    @Override
+    public long append(final JournalRecord record) {
+        writeLock.lock();
+        try {
+            checkWritable();
+            final ByteBuffer frame = frame(record);
+            while (frame.hasRemaining())
+                channel.write(frame);
+            written += frame.limit();
+            if (!groupCommit) {
+                channel.force(false);
+                durable = written;
+            }
+            return written;
+        } catch (IOException ex) {
+            failure = ex;
+            throw new UncheckedIOException("Cannot write to journal", ex);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void checkWritable() {
+        final IOException failed = failure;
+        if (failed != null)
+            throw new UncheckedIOException("Journal failed earlier and takes no more records", failed);
+    }
+
+    @Override
+    public void awaitDurable(final long position) {
+        if (durable >= position)
+            return;
+
+        syncLock.lock();
+        try {
+            while (durable < position) {
+                checkWritable();
+                if (syncing) {
+                    synced.awaitUninterruptibly();
+                    continue;
+                }
+                syncing = true;
+                final long target = written;
+                syncLock.unlock();
+                try {
+                    channel.force(false);
+                } catch (IOException ex) {
+                    failure = ex;
+                    throw new UncheckedIOException("Cannot sync journal", ex);
+                } finally {
+                    syncLock.lock();
+                    syncing = false;
+                    synced.signalAll();
+                }
+                durable = Math.max(durable, target);
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    @Override
+    public long position() {
+        return written;
+    }
+
+    @Override
+    public void replay(final long from, final Consumer<JournalRecord> consumer) {
+        try {
+            scan(from, consumer);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot read journal", ex);
+        }
+    }
+
+    @Override
+    public void close() {
+        writeLock.lock();
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot close journal", ex);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private ByteBuffer frame(final JournalRecord record) {
+        while (true) {
+            try {
+                buffer.clear();
+                buffer.position(HEADER_SIZE);
+                JournalCodec.encode(record, buffer);
+                break;
+            } catch (BufferOverflowException ex) {
+                buffer = ByteBuffer.allocateDirect(buffer.capacity() * 2);
+            }
+        }
+        final int length = buffer.position() - HEADER_SIZE;
+        if (length > MAX_RECORD_SIZE)
+            throw new IllegalArgumentException("Journal record of " + length + " bytes is too large");
+        buffer.flip();
+        buffer.position(HEADER_SIZE);
+        crc.reset();
+        crc.update(buffer);
+        buffer.putInt(0, length);
+        buffer.putInt(4, (int) crc.getValue());
+        buffer.position(0);
+        return buffer;
+    }
+
+    /**
+     * Reads frames from the given position and stops at the first incomplete or corrupt one.
+     *
+     * @return the end of the last valid frame
+     */
+    private long scan(final long from, final Consumer<JournalRecord> consumer) throws IOException {
+        final ByteBuffer in = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+        in.flip();
+        final CRC32 checksum = new CRC32();
+        long position = from;
+        long fileOffset = from;
+
+        while (true) {
+            if (in.remaining() < HEADER_SIZE || in.remaining() < HEADER_SIZE + in.getInt(in.position())) {
+                in.compact();
+                final int read = channel.read(in, fileOffset);
+                in.flip();
+                if (read <= 0)
+                    return position;
+                fileOffset += read;
+                continue;
+            }
+            final int length = in.getInt(in.position());
+            final int expectedCrc = in.getInt(in.position() + 4);
+            if (length <= 0 || length > MAX_RECORD_SIZE)
+                return position;
+
+            final ByteBuffer body = in.duplicate();
+            body.position(in.position() + HEADER_SIZE);
+            body.limit(body.position() + length);
+            checksum.reset();
+            checksum.update(body.duplicate());
+            if ((int) checksum.getValue() != expectedCrc)
+                return position;
+
+            if (consumer != null)
+                consumer.accept(JournalCodec.decode(body));
+            in.position(in.position() + HEADER_SIZE + length);
+            position += HEADER_SIZE + length;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package org.revolut.moneytransfer.service.journal;
+
+import java.util.function.Consumer;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * Write-ahead journal of account and transfer changes. Writers append while holding the locks of the accounts
+ * they changed, so records of one account are in the order the changes were made, and wait for durability after
+ * releasing them.
+ * <p>
+ * Once an append or a sync has failed, a journal refuses every later record: its tail may hold a torn frame, and a
+ * failed fsync cannot be retried safely. Writers call {@link #checkWritable()} before they change anything and undo
+ * their change if its append fails. A change whose sync fails is not undone, later changes may already build on it;
+ * a restart recovers from what reached the disk.
+ */
+public interface Journal extends AutoCloseable {
+
+    /**
+     * Writes the record without waiting for it to reach the disk.
+     *
+     * @return the journal position right after the record, to pass to {@link #awaitDurable(long)}
+     */
+    long append(JournalRecord record);
+
+    /**
+     * Throws if the journal no longer takes records.
+     */
+    void checkWritable();
+
+    /**
+     * Blocks until every record up to the given position is on disk.
+     */
+    void awaitDurable(long position);
+
+    /**
+     * Position right after the last appended record.
+     */
+    long position();
+
+    /**
+     * Hands every complete record from the given position on to the consumer, oldest first.
+     */
+    void replay(long from, Consumer<JournalRecord> consumer);
+
+    default void replay(final Consumer<JournalRecord> consumer) {
+        replay(0, consumer);
+    }
+
+    @Override
+    void close();
+}
@@ -0,0 +1,104 @@
+package org.revolut.moneytransfer.service.journal;
+
+import org.revolut.moneytransfer.domain.AccountStatus;
+import org.revolut.moneytransfer.domain.Currency;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * Binary layout of the records. Enums are written by name so reordering them does not break old journals.
+ */
+final class JournalCodec {
+
+    private JournalCodec() {
+    }
+
+    /**
+     * @throws java.nio.BufferOverflowException if the record does not fit, the caller retries with a larger buffer
+     */
+    static void encode(final JournalRecord record, final ByteBuffer buffer) {
+        buffer.put((byte) record.getType().ordinal());
+        switch (record.getType()) {
+            case ACCOUNT:
+                final AccountRecord account = (AccountRecord) record;
+                buffer.putLong(account.getAccountId());
+                putString(buffer, account.getHolderName());
+                putString(buffer, account.getStatus().name());
+                putString(buffer, account.getCurrency().name());
+                buffer.putLong(account.getBalance());
+                buffer.putLong(account.getCreated());
+                break;
+            case BALANCE:
+                final BalanceRecord balance = (BalanceRecord) record;
+                buffer.putLong(balance.getAccountId());
+                buffer.putLong(balance.getBalance());
+                break;
+            case TRANSFER:
+                final TransferRecord transfer = (TransferRecord) record;
+                putString(buffer, transfer.getTransferId());
+                buffer.putLong(transfer.getSourceAccountId());
+                buffer.putLong(transfer.getDestinationAccountId());
+                putString(buffer, transfer.getCurrency().name());
+                buffer.putLong(transfer.getAmount());
+                buffer.putLong(transfer.getTransferDate());
+                putString(buffer, transfer.getDescription());
+                buffer.putLong(transfer.getSourceBalance());
+                buffer.putLong(transfer.getDestinationBalance());
+                if (transfer.getDestinationCurrency() != null) {
+                    putString(buffer, transfer.getDestinationCurrency().name());
+                    buffer.putLong(transfer.getDestinationAmount());
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown record type " + record.getType());
+        }
+    }
+
+    static JournalRecord decode(final ByteBuffer buffer) {
+        final JournalRecord.Type type = JournalRecord.Type.values()[buffer.get()];
+        switch (type) {
+            case ACCOUNT:
+                return new AccountRecord(buffer.getLong(), getString(buffer),
+                        AccountStatus.valueOf(getString(buffer)), Currency.valueOf(getString(buffer)),
+                        buffer.getLong(), buffer.getLong());
+            case BALANCE:
+                return new BalanceRecord(buffer.getLong(), buffer.getLong());
+            case TRANSFER:
+                final TransferRecord transfer = new TransferRecord(getString(buffer), buffer.getLong(),
+                        buffer.getLong(), Currency.valueOf(getString(buffer)), buffer.getLong(), buffer.getLong(),
+                        getString(buffer), buffer.getLong(), buffer.getLong());
+                // only converted transfers carry the credited amount, records written before it end here
+                if (!buffer.hasRemaining())
+                    return transfer;
+                return new TransferRecord(transfer.getTransferId(), transfer.getSourceAccountId(),
+                        transfer.getDestinationAccountId(), transfer.getCurrency(), transfer.getAmount(),
+                        transfer.getTransferDate(), transfer.getDescription(), transfer.getSourceBalance(),
+                        transfer.getDestinationBalance(), Currency.valueOf(getString(buffer)), buffer.getLong());
+            default:
+                throw new IllegalArgumentException("Unknown record type " + type);
+        }
+    }
+
+    private static void putString(final ByteBuffer buffer, final String value) {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(final ByteBuffer buffer) {
+        final int length = buffer.getInt();
+        if (length < 0)
+            return null;
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
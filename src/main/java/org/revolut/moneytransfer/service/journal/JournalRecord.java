@@ -0,0 +1,16 @@
+package org.revolut.moneytransfer.service.journal;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * Records carry absolute values (balances after the change), so replaying one twice is harmless.
+ */
+public interface JournalRecord {
+
+    enum Type {
+        ACCOUNT, BALANCE, TRANSFER
+    }
+
+    Type getType();
+}
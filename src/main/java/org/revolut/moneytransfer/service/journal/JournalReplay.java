@@ -0,0 +1,93 @@
+package org.revolut.moneytransfer.service.journal;
+
+import lombok.Getter;
+import org.revolut.moneytransfer.domain.Account;
+import org.revolut.moneytransfer.domain.MoneyTransfer;
+import org.revolut.moneytransfer.service.account.AccountStore;
+import org.revolut.moneytransfer.service.account.InMemoryAccountStore;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * Rebuilds accounts and transfer history from the newest snapshot and the journal tail after it, before the DAOs
+ * are created on top of them.
+ */
+@Getter
+public class JournalReplay {
+
+    private final AccountStore accounts;
+    private final List<MoneyTransfer> transfers = new ArrayList<>();
+
+    public JournalReplay() {
+        this(new InMemoryAccountStore());
+    }
+
+    public JournalReplay(final AccountStore accounts) {
+        this.accounts = accounts;
+    }
+
+    public static JournalReplay replay(final Journal journal) {
+        final JournalReplay replay = new JournalReplay();
+        replay.replayTail(journal, 0);
+        return replay;
+    }
+
+    void loadAccount(final Account account) {
+        accounts.put(account);
+    }
+
+    void loadTransfer(final MoneyTransfer transfer) {
+        transfers.add(transfer);
+    }
+
+    /**
+     * Applies the journal from the snapshot position on. A snapshot is taken while writers keep going, so it may
+     * already contain some of these changes. Balances are absolute and simply set again; transfers that are both in
+     * the snapshot and in the tail are taken from the tail, which keeps them in journal order.
+     */
+    public void replayTail(final Journal journal, final long from) {
+        final List<JournalRecord> tail = new ArrayList<>();
+        journal.replay(from, tail::add);
+
+        final Set<String> tailTransfers = new HashSet<>();
+        for (JournalRecord record : tail)
+            if (record.getType() == JournalRecord.Type.TRANSFER)
+                tailTransfers.add(((TransferRecord) record).getTransferId());
+        if (!tailTransfers.isEmpty())
+            transfers.removeIf(transfer -> tailTransfers.contains(transfer.getTransferId()));
+
+        tail.forEach(this::apply);
+    }
+
+    private void apply(final JournalRecord record) {
+        switch (record.getType()) {
+            case ACCOUNT:
+                accounts.put(((AccountRecord) record).toAccount());
+                break;
+            case BALANCE:
+                final BalanceRecord balance = (BalanceRecord) record;
+                setBalance(balance.getAccountId(), balance.getBalance());
+                break;
+            case TRANSFER:
+                final TransferRecord transfer = (TransferRecord) record;
+                transfers.add(transfer.toTransfer());
+                setBalance(transfer.getSourceAccountId(), transfer.getSourceBalance());
+                setBalance(transfer.getDestinationAccountId(), transfer.getDestinationBalance());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown record type " + record.getType());
+        }
+    }
+
+    private void setBalance(final long accountId, final long balance) {
+        final Account account = accounts.get(accountId);
+        if (account != null)
+            account.getBalance().reset(balance);
+    }
+}
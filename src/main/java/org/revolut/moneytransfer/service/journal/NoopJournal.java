@@ -0,0 +1,43 @@
+package org.revolut.moneytransfer.service.journal;
+
+import java.util.function.Consumer;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * Keeps nothing, state lives only in memory.
+ */
+public final class NoopJournal implements Journal {
+
+    public static final NoopJournal INSTANCE = new NoopJournal();
+
+    private NoopJournal() {
+    }
+
+    @Override
+    public long append(final JournalRecord record) {
+        return 0;
+    }
+
+    @Override
+    public void checkWritable() {
+    }
+
+    @Override
+    public void awaitDurable(final long position) {
+    }
+
+    @Override
+    public long position() {
+        return 0;
+    }
+
+    @Override
+    public void replay(final long from, final Consumer<JournalRecord> consumer) {
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,272 @@
+package org.revolut.moneytransfer.service.journal;
+
+import org.joda.time.DateTime;
+import org.revolut.moneytransfer.domain.Account;
+import org.revolut.moneytransfer.domain.AccountStatus;
+import org.revolut.moneytransfer.domain.Currency;
+import org.revolut.moneytransfer.domain.Money;
+import org.revolut.moneytransfer.domain.MoneyTransfer;
+import org.revolut.moneytransfer.domain.User;
+import org.revolut.moneytransfer.service.account.AccountLocks;
+import org.revolut.moneytransfer.service.account.AccountStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * Snapshot files named after the journal position they were taken at, so the newest one sorts last. A snapshot is
+ * written to a temporary file, forced and then renamed, so a file with the final name is always complete.
+ * <p>
+ * Layout: {@code [magic][version][journal position]}, then tagged account and transfer entries, then an end tag
+ * followed by both counts.
+ */
+public class SnapshotStore {
+    private static final Logger LOG = LoggerFactory.getLogger(SnapshotStore.class);
+
+    private static final int MAGIC = 0x4D54534E;
+    private static final int VERSION = 1;
+    private static final byte END = 0;
+    private static final byte ACCOUNT = 1;
+    private static final byte TRANSFER = 2;
+    // a transfer followed by what the destination was credited in its own currency
+    private static final byte CONVERTED_TRANSFER = 3;
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+    private static final int KEEP = 2;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Path directory;
+
+    public SnapshotStore(final Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Loads the newest snapshot into the replay target.
+     *
+     * @return the journal position to replay from, 0 without a snapshot
+     */
+    public long loadLatest(final JournalReplay target) throws IOException {
+        final List<Path> snapshots = list();
+        if (snapshots.isEmpty())
+            return 0;
+
+        final Path latest = snapshots.get(snapshots.size() - 1);
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(latest), BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION)
+                throw new IOException("Not a snapshot: " + latest);
+            final long journalPosition = in.readLong();
+
+            long accounts = 0;
+            long transfers = 0;
+            byte tag;
+            while ((tag = in.readByte()) != END) {
+                if (tag == ACCOUNT) {
+                    target.loadAccount(readAccount(in));
+                    accounts++;
+                } else if (tag == TRANSFER) {
+                    target.loadTransfer(readTransfer(in));
+                    transfers++;
+                } else if (tag == CONVERTED_TRANSFER) {
+                    final MoneyTransfer transfer = readTransfer(in);
+                    transfer.setDestinationAmount(new Money(in.readLong(), Currency.valueOf(in.readUTF())));
+                    target.loadTransfer(transfer);
+                    transfers++;
+                } else
+                    throw new IOException("Corrupt snapshot " + latest);
+            }
+            if (in.readLong() != accounts || in.readLong() != transfers)
+                throw new IOException("Corrupt snapshot " + latest);
+
+            LOG.info("Loaded {} accounts and {} transfers from {}", accounts, transfers, latest);
+            return journalPosition;
+        }
+    }
+
+    /**
+     * Dumps the state while writers keep going. Every change journaled before the position is already in memory,
+     * later ones may or may not be captured and are replayed from the journal. Each account is read under its lock,
+     * and writers journal a change before they release it, so every captured change is in the journal; the
+     * snapshot only gets its final name once all of it is durable. Transfers are listed after the accounts, so
+     * every transfer behind a captured balance is in the list, and replay drops those it lists twice.
+     */
+    public Path write(final long journalPosition, final AccountStore accounts, final AccountLocks accountLocks,
+                      final Supplier<List<MoneyTransfer>> transfers, final Journal journal) throws IOException {
+        final Path target = directory.resolve(String.format("%s%020d%s", PREFIX, journalPosition, SUFFIX));
+        final Path temporary = directory.resolve(target.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            final DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(journalPosition);
+
+            final long[] accountCount = new long[1];
+            accounts.forEach(listed -> {
+                final Account account = copyLocked(accounts, accountLocks, listed.getAccountId());
+                if (account == null)
+                    return;
+                try {
+                    out.writeByte(ACCOUNT);
+                    writeAccount(out, account);
+                    accountCount[0]++;
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+            final List<MoneyTransfer> transferList = transfers.get();
+            for (MoneyTransfer transfer : transferList) {
+                final Money converted = transfer.getDestinationAmount();
+                out.writeByte(converted == null ? TRANSFER : CONVERTED_TRANSFER);
+                writeTransfer(out, transfer);
+                if (converted != null) {
+                    out.writeLong(converted.getMinorUnits());
+                    out.writeUTF(converted.getCurrency().name());
+                }
+            }
+            out.writeByte(END);
+            out.writeLong(accountCount[0]);
+            out.writeLong(transferList.size());
+            out.flush();
+            channel.force(true);
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        // the dump may hold changes journaled after the position, they must survive a crash before it is used
+        journal.awaitDurable(journal.position());
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        final List<Path> snapshots = list();
+        for (Path old : snapshots.subList(0, Math.max(0, snapshots.size() - KEEP)))
+            Files.deleteIfExists(old);
+        return target;
+    }
+
+    private List<Path> list() throws IOException {
+        if (!Files.isDirectory(directory))
+            return Collections.emptyList();
+        try (Stream<Path> files = Files.list(directory)) {
+            final List<Path> snapshots = new ArrayList<>(files
+                    .filter(file -> {
+                        final String name = file.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .collect(Collectors.toList()));
+            Collections.sort(snapshots);
+            return snapshots;
+        }
+    }
+
+    /**
+     * Copies the account under its lock, so the copy never holds a change that is not journaled yet. Writing to
+     * the file happens after the lock is released.
+     */
+    private static Account copyLocked(final AccountStore accounts, final AccountLocks accountLocks,
+                                      final long accountId) {
+        final Lock lock = accountLocks.lock(accountId);
+        try {
+            final Account account = accounts.get(accountId);
+            if (account == null)
+                return null;
+            final Account copy = new Account(account.getAccountHolder(), new Money(
+                    account.getBalance().getMinorUnits(), account.getBalance().getCurrency()));
+            copy.setAccountId(accountId);
+            copy.setStatus(account.getStatus());
+            copy.setCreated(account.getCreated());
+            return copy;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void writeAccount(final DataOutputStream out, final Account account) throws IOException {
+        out.writeLong(account.getAccountId());
+        writeString(out, account.getAccountHolder().getName());
+        out.writeUTF(account.getStatus().name());
+        out.writeUTF(account.getBalance().getCurrency().name());
+        out.writeLong(account.getBalance().getMinorUnits());
+        out.writeLong(account.getCreated().getMillis());
+    }
+
+    private static Account readAccount(final DataInputStream in) throws IOException {
+        final long accountId = in.readLong();
+        final User holder = new User(readString(in));
+        final AccountStatus status = AccountStatus.valueOf(in.readUTF());
+        final Currency currency = Currency.valueOf(in.readUTF());
+        final Account account = new Account(holder, new Money(in.readLong(), currency));
+        account.setAccountId(accountId);
+        account.setStatus(status);
+        account.setCreated(new DateTime(in.readLong()));
+        return account;
+    }
+
+    private static void writeTransfer(final DataOutputStream out, final MoneyTransfer transfer) throws IOException {
+        out.writeUTF(transfer.getTransferId());
+        out.writeLong(transfer.getSourceAccountId());
+        out.writeLong(transfer.getDestinationAccountId());
+        out.writeUTF(transfer.getAmount().getCurrency().name());
+        out.writeLong(transfer.getAmount().getMinorUnits());
+        out.writeLong(transfer.getTransferDate().getMillis());
+        writeString(out, transfer.getDescription());
+    }
+
+    private static MoneyTransfer readTransfer(final DataInputStream in) throws IOException {
+        final String transferId = in.readUTF();
+        final long sourceAccountId = in.readLong();
+        final long destinationAccountId = in.readLong();
+        final Currency currency = Currency.valueOf(in.readUTF());
+        final Money amount = new Money(in.readLong(), currency);
+        final DateTime transferDate = new DateTime(in.readLong());
+        final MoneyTransfer transfer =
+                new MoneyTransfer(sourceAccountId, destinationAccountId, amount, readString(in));
+        transfer.setTransferId(transferId);
+        transfer.setTransferDate(transferDate);
+        return transfer;
+    }
+
+    // writeUTF is limited to 64k, names and descriptions are not
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0)
+            return null;
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
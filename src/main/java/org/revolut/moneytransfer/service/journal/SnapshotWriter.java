@@ -0,0 +1,81 @@
+package org.revolut.moneytransfer.service.journal;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.revolut.moneytransfer.service.account.AccountLocks;
+import org.revolut.moneytransfer.service.account.AccountStore;
+import org.revolut.moneytransfer.service.transfer.MoneyTransferDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * Takes snapshots on a background thread, and a last one on close, so a restart only replays the journal written
+ * since. Writers are never stopped.
+ */
+public class SnapshotWriter implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(SnapshotWriter.class);
+
+    private final SnapshotStore store;
+    private final Journal journal;
+    private final AccountStore accounts;
+    private final AccountLocks accountLocks;
+    private final MoneyTransferDao transferDao;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("snapshot-writer").setDaemon(true).build());
+    private long lastPosition = -1;
+
+    public SnapshotWriter(final SnapshotStore store, final Journal journal, final AccountStore accounts,
+                          final AccountLocks accountLocks, final MoneyTransferDao transferDao) {
+        this.store = store;
+        this.journal = journal;
+        this.accounts = accounts;
+        this.accountLocks = accountLocks;
+        this.transferDao = transferDao;
+    }
+
+    public void start(final long intervalSeconds) {
+        executor.scheduleWithFixedDelay(this::snapshotQuietly, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public synchronized void snapshot() throws IOException {
+        final long position = journal.position();
+        if (position == lastPosition)
+            return;
+        // the snapshot must never point past what survives a crash
+        journal.awaitDurable(position);
+
+        final long started = System.nanoTime();
+        final Path file = store.write(position, accounts, accountLocks,
+                () -> Lists.reverse(transferDao.getAllTransfers()), journal);
+        lastPosition = position;
+        LOG.info("Wrote snapshot {} in {} ms", file, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        snapshotQuietly();
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (Exception ex) {
+            LOG.error("Snapshot failed", ex);
+        }
+    }
+}
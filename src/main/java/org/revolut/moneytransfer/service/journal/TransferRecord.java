@@ -0,0 +1,83 @@
+package org.revolut.moneytransfer.service.journal;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.joda.time.DateTime;
+import org.revolut.moneytransfer.domain.Currency;
+import org.revolut.moneytransfer.domain.Money;
+import org.revolut.moneytransfer.domain.MoneyTransfer;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * A completed transfer together with both balances right after it. A converted transfer also carries what the
+ * destination was credited.
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+public class TransferRecord implements JournalRecord {
+
+    private final String transferId;
+    private final long sourceAccountId;
+    private final long destinationAccountId;
+    private final Currency currency;
+    private final long amount;
+    private final long transferDate;
+    private final String description;
+    private final long sourceBalance;
+    private final long destinationBalance;
+    private final Currency destinationCurrency;
+    private final long destinationAmount;
+
+    public TransferRecord(final String transferId, final long sourceAccountId, final long destinationAccountId,
+                          final Currency currency, final long amount, final long transferDate,
+                          final String description, final long sourceBalance, final long destinationBalance) {
+        this(transferId, sourceAccountId, destinationAccountId, currency, amount, transferDate, description,
+                sourceBalance, destinationBalance, null, 0);
+    }
+
+    public TransferRecord(final String transferId, final long sourceAccountId, final long destinationAccountId,
+                          final Currency currency, final long amount, final long transferDate,
+                          final String description, final long sourceBalance, final long destinationBalance,
+                          final Currency destinationCurrency, final long destinationAmount) {
+        this.transferId = transferId;
+        this.sourceAccountId = sourceAccountId;
+        this.destinationAccountId = destinationAccountId;
+        this.currency = currency;
+        this.amount = amount;
+        this.transferDate = transferDate;
+        this.description = description;
+        this.sourceBalance = sourceBalance;
+        this.destinationBalance = destinationBalance;
+        this.destinationCurrency = destinationCurrency;
+        this.destinationAmount = destinationAmount;
+    }
+
+    public static TransferRecord of(final MoneyTransfer transfer, final long sourceBalance,
+                                    final long destinationBalance) {
+        final Money converted = transfer.getDestinationAmount();
+        return new TransferRecord(transfer.getTransferId(), transfer.getSourceAccountId(),
+                transfer.getDestinationAccountId(), transfer.getAmount().getCurrency(),
+                transfer.getAmount().getMinorUnits(), transfer.getTransferDate().getMillis(),
+                transfer.getDescription(), sourceBalance, destinationBalance,
+                converted == null ? null : converted.getCurrency(), converted == null ? 0 : converted.getMinorUnits());
+    }
+
+    public MoneyTransfer toTransfer() {
+        final MoneyTransfer transfer =
+                new MoneyTransfer(sourceAccountId, destinationAccountId, new Money(amount, currency), description);
+        transfer.setTransferId(transferId);
+        transfer.setTransferDate(new DateTime(transferDate));
+        if (destinationCurrency != null)
+            transfer.setDestinationAmount(new Money(destinationAmount, destinationCurrency));
+        return transfer;
+    }
+
+    @Override
+    public Type getType() {
+        return Type.TRANSFER;
+    }
+}
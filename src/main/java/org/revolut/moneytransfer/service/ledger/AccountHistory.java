@@ -0,0 +1,109 @@
+package org.revolut.moneytransfer.service.ledger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalLong;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * Balance changes of one account in time order, in blocks of {@value #BLOCK_SIZE}. Each block starts with a
+ * checkpoint, the balance before its first change, so the balance at any time is one binary search for the block
+ * plus a scan of at most one block. Old blocks are dropped by {@link #trim(long)}.
+ */
+final class AccountHistory {
+
+    static final int BLOCK_SIZE = 64;
+
+    private final List<Block> blocks = new ArrayList<>();
+    private long lastTime;
+
+    /**
+     * @param since the earliest time the history can answer for
+     */
+    AccountHistory(final long since, final long openingBalance) {
+        blocks.add(new Block(since, openingBalance));
+        lastTime = since;
+    }
+
+    /**
+     * Times never go backwards within an account, a change stamped before the previous one is taken as simultaneous.
+     */
+    synchronized void record(final long time, final long amount) {
+        lastTime = Math.max(lastTime, time);
+        Block block = blocks.get(blocks.size() - 1);
+        if (block.size == BLOCK_SIZE) {
+            block = new Block(lastTime, block.closingBalance());
+            blocks.add(block);
+        }
+        block.add(lastTime, amount);
+    }
+
+    /**
+     * @return the balance after every change up to and including {@code time}, or empty if the history does not
+     * reach back that far
+     */
+    synchronized OptionalLong balanceAt(final long time) {
+        int low = 0;
+        int high = blocks.size() - 1;
+        if (time < blocks.get(0).start)
+            return OptionalLong.empty();
+        while (low < high) {
+            final int middle = (low + high + 1) >>> 1;
+            if (blocks.get(middle).start <= time)
+                low = middle;
+            else
+                high = middle - 1;
+        }
+        return OptionalLong.of(blocks.get(low).balanceAt(time));
+    }
+
+    /**
+     * Drops the blocks that are not needed to answer for {@code before} or later.
+     */
+    synchronized void trim(final long before) {
+        int drop = 0;
+        while (drop + 1 < blocks.size() && blocks.get(drop + 1).start <= before)
+            drop++;
+        if (drop > 0)
+            blocks.subList(0, drop).clear();
+    }
+
+    private static final class Block {
+
+        private final long start;
+        private final long checkpoint;
+        // grown on demand, most accounts change far less than a block
+        private long[] times = new long[4];
+        private long[] amounts = new long[4];
+        private int size;
+
+        private Block(final long start, final long checkpoint) {
+            this.start = start;
+            this.checkpoint = checkpoint;
+        }
+
+        private void add(final long time, final long amount) {
+            if (size == times.length) {
+                times = Arrays.copyOf(times, size * 2);
+                amounts = Arrays.copyOf(amounts, size * 2);
+            }
+            times[size] = time;
+            amounts[size] = amount;
+            size++;
+        }
+
+        private long balanceAt(final long time) {
+            long balance = checkpoint;
+            for (int i = 0; i < size && times[i] <= time; i++)
+                balance += amounts[i];
+            return balance;
+        }
+
+        private long closingBalance() {
+            return balanceAt(Long.MAX_VALUE);
+        }
+    }
+}
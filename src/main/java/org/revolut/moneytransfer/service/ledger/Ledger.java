@@ -0,0 +1,46 @@
+package org.revolut.moneytransfer.service.ledger;
+
+import org.revolut.moneytransfer.domain.Currency;
+
+import java.util.OptionalLong;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * Double-entry record of every balance change. Each entry moves an amount from one account to another of the same
+ * currency, so the balances of all accounts in a currency always add up to zero. Money entering or leaving the system
+ * through credits, debits, opening balances and currency conversions is booked against the
+ * {@link #externalAccount(Currency) external account} of its currency.
+ * <p>
+ * Writers post after the balance has changed and, in {@code LOCKING} mode, while still holding the account locks.
+ */
+public interface Ledger {
+
+    /**
+     * Id of the external account of the currency. Account ids are positive, external ones negative.
+     */
+    static long externalAccount(final Currency currency) {
+        return -1 - currency.ordinal();
+    }
+
+    static boolean isExternal(final long accountId) {
+        return accountId < 0;
+    }
+
+    void post(String entryId, long fromAccountId, long toAccountId, long amount);
+
+    /**
+     * Whether {@link #balanceAt(long, long)} can answer at all.
+     */
+    default boolean keepsHistory() {
+        return false;
+    }
+
+    /**
+     * Balance of the account at {@code millis}, empty if the ledger has no history for that time or keeps none.
+     */
+    default OptionalLong balanceAt(final long accountId, final long millis) {
+        return OptionalLong.empty();
+    }
+}
@@ -0,0 +1,29 @@
+package org.revolut.moneytransfer.service.ledger;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * One leg of a ledger entry: the signed amount, in minor units, by which the entry changed one account.
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+public class Posting {
+
+    private final long sequence;
+    private final String entryId;
+    private final long accountId;
+    private final long amount;
+
+    public Posting(final long sequence, final String entryId, final long accountId, final long amount) {
+        this.sequence = sequence;
+        this.entryId = entryId;
+        this.accountId = accountId;
+        this.amount = amount;
+    }
+}
@@ -0,0 +1,208 @@
+package org.revolut.moneytransfer.service.ledger;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.revolut.moneytransfer.domain.Currency;
+import org.revolut.moneytransfer.service.account.AccountStore;
+import org.revolut.moneytransfer.util.ConcurrentLongHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * In-memory {@link Ledger}. Postings are kept in arrival order, and every posting also adds to the materialized
+ * balance of its account, so reading a balance never sums postings. A checkpoint folds all but the newest postings
+ * into per-account checkpoint balances and drops them, which bounds memory by the number of accounts plus the
+ * retained postings.
+ * <p>
+ * At any quiet moment, checkpoint balance plus retained postings equals the materialized balance of every account,
+ * which equals the account's own balance, and the balances of each currency add up to zero.
+ * {@link #audit(AccountStore)} checks this.
+ * Under concurrent writes it may report accounts whose balance changed but whose posting is not yet booked.
+ */
+public class PostingLedger implements Ledger, AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(PostingLedger.class);
+
+    private final int retainedPostings;
+    private final long historyMillis;
+    private final Queue<Posting> postings = new ConcurrentLinkedQueue<>();
+    private final AtomicLong postingCount = new AtomicLong();
+    private final AtomicLong sequence = new AtomicLong();
+    private final ConcurrentLongHashMap<LongAdder> balances = new ConcurrentLongHashMap<>();
+    private final ConcurrentLongHashMap<AccountHistory> histories = new ConcurrentLongHashMap<>();
+    private final Map<Long, Long> checkpoints = new HashMap<>();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("ledger-checkpoint").setDaemon(true).build());
+    private long checkpointSequence;
+
+    /**
+     * Opens the ledger with the current balances of the accounts as their first checkpoint.
+     */
+    public PostingLedger(final AccountStore accounts, final int retainedPostings) {
+        this(accounts, retainedPostings, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param historyMillis how far back {@link #balanceAt(long, long)} has to answer after a checkpoint
+     */
+    public PostingLedger(final AccountStore accounts, final int retainedPostings, final long historyMillis) {
+        this.retainedPostings = retainedPostings;
+        this.historyMillis = historyMillis;
+        final long openedAt = System.currentTimeMillis();
+        accounts.forEach(account -> {
+            final long balance = account.getBalance().getMinorUnits();
+            final long external = Ledger.externalAccount(account.getBalance().getCurrency());
+            histories.put(account.getAccountId(), new AccountHistory(openedAt, balance));
+            checkpoints.put(account.getAccountId(), balance);
+            checkpoints.merge(external, -balance, Long::sum);
+            materialized(account.getAccountId()).add(balance);
+            materialized(external).add(-balance);
+        });
+    }
+
+    @Override
+    public void post(final String entryId, final long fromAccountId, final long toAccountId, final long amount) {
+        append(new Posting(sequence.incrementAndGet(), entryId, fromAccountId, -amount));
+        append(new Posting(sequence.incrementAndGet(), entryId, toAccountId, amount));
+    }
+
+    /**
+     * Materialized balance of the account in minor units, {@link Ledger#externalAccount external accounts} included.
+     */
+    public long balance(final long accountId) {
+        return materialized(accountId).sum();
+    }
+
+    @Override
+    public boolean keepsHistory() {
+        return true;
+    }
+
+    /**
+     * Balance of the account after every change up to and including {@code millis}, or empty if the account did not
+     * exist then or its history was already trimmed. The history of accounts that existed when the ledger was
+     * opened starts at that moment.
+     */
+    @Override
+    public OptionalLong balanceAt(final long accountId, final long millis) {
+        final AccountHistory history = histories.get(accountId);
+        return history == null ? OptionalLong.empty() : history.balanceAt(millis);
+    }
+
+    /**
+     * Postings of the account since the last checkpoint, oldest first.
+     */
+    public List<Posting> postings(final long accountId) {
+        final List<Posting> result = new ArrayList<>();
+        for (Posting posting : postings)
+            if (posting.getAccountId() == accountId)
+                result.add(posting);
+        return result;
+    }
+
+    public void start(final long intervalSeconds) {
+        executor.scheduleWithFixedDelay(this::checkpointQuietly, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Folds every posting but the newest {@code retainedPostings} into the checkpoint balances, and drops balance
+     * history older than the history period.
+     */
+    public synchronized void checkpoint() {
+        final long started = System.nanoTime();
+        final long historyStart = System.currentTimeMillis() - historyMillis;
+        histories.forEachValue(history -> history.trim(historyStart));
+        long folded = 0;
+        while (postingCount.get() > retainedPostings) {
+            final Posting posting = postings.poll();
+            if (posting == null)
+                break;
+            postingCount.decrementAndGet();
+            checkpoints.merge(posting.getAccountId(), posting.getAmount(), Long::sum);
+            checkpointSequence = Math.max(checkpointSequence, posting.getSequence());
+            folded++;
+        }
+        if (folded > 0)
+            LOG.info("Checkpointed {} postings up to {} in {} ms", folded, checkpointSequence,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    /**
+     * @return ids of the accounts whose balance, materialized balance and checkpoint plus postings disagree, and the
+     * {@link Ledger#externalAccount external account} of every currency whose balances do not add up to zero
+     */
+    public synchronized List<Long> audit(final AccountStore accounts) {
+        final Map<Long, Long> replayed = new HashMap<>(checkpoints);
+        for (Posting posting : postings)
+            replayed.merge(posting.getAccountId(), posting.getAmount(), Long::sum);
+
+        final List<Long> mismatches = new ArrayList<>();
+        final Map<Currency, Long> totals = new EnumMap<>(Currency.class);
+        for (Currency currency : Currency.values()) {
+            final long external = Ledger.externalAccount(currency);
+            totals.put(currency, balance(external));
+            if (replayed.getOrDefault(external, 0L) != balance(external))
+                mismatches.add(external);
+        }
+        accounts.forEach(account -> {
+            final long materialized = balance(account.getAccountId());
+            totals.merge(account.getBalance().getCurrency(), materialized, Long::sum);
+            if (materialized != account.getBalance().getMinorUnits()
+                    || materialized != replayed.getOrDefault(account.getAccountId(), 0L))
+                mismatches.add(account.getAccountId());
+        });
+        totals.forEach((currency, total) -> {
+            final long external = Ledger.externalAccount(currency);
+            if (total != 0 && !mismatches.contains(external))
+                mismatches.add(external);
+        });
+        return mismatches;
+    }
+
+    public long size() {
+        return postingCount.get();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private void append(final Posting posting) {
+        postings.add(posting);
+        postingCount.incrementAndGet();
+        materialized(posting.getAccountId()).add(posting.getAmount());
+        if (!Ledger.isExternal(posting.getAccountId())) {
+            final long now = System.currentTimeMillis();
+            histories.computeIfAbsent(posting.getAccountId(), id -> new AccountHistory(now, 0))
+                    .record(now, posting.getAmount());
+        }
+    }
+
+    private LongAdder materialized(final long accountId) {
+        return balances.computeIfAbsent(accountId, id -> new LongAdder());
+    }
+
+    private void checkpointQuietly() {
+        try {
+            checkpoint();
+        } catch (RuntimeException ex) {
+            LOG.error("Ledger checkpoint failed", ex);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package org.revolut.moneytransfer.service.transfer;
+
+import org.revolut.moneytransfer.util.ConcurrentLongHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * Positions in the transfer log per account, covering both the outgoing and the incoming leg. Every account keeps
+ * its positions sorted, so reading one account's history never touches transfers of other accounts.
+ */
+class AccountTransferIndex {
+
+    private final ConcurrentLongHashMap<History> histories = new ConcurrentLongHashMap<>();
+
+    void add(final long position, final long sourceAccountId, final long destinationAccountId) {
+        history(sourceAccountId).add(position);
+        history(destinationAccountId).add(position);
+    }
+
+    /**
+     * @return up to {@code max} positions of the account below {@code bound}, newest first
+     */
+    long[] positionsBefore(final long accountId, final long bound, final int max) {
+        final History history = histories.get(accountId);
+        return history == null ? new long[0] : history.before(bound, max);
+    }
+
+    private History history(final long accountId) {
+        return histories.computeIfAbsent(accountId, id -> new History());
+    }
+
+    private static final class History {
+
+        private long[] positions = new long[8];
+        private int size;
+
+        synchronized void add(final long position) {
+            if (size == positions.length)
+                positions = Arrays.copyOf(positions, size * 2);
+
+            // appends to the log can finish slightly out of order, so walk back from the tail
+            int index = size;
+            while (index > 0 && positions[index - 1] > position) {
+                positions[index] = positions[index - 1];
+                index--;
+            }
+            positions[index] = position;
+            size++;
+        }
+
+        synchronized long[] before(final long bound, final int max) {
+            int index = Arrays.binarySearch(positions, 0, size, bound);
+            if (index < 0)
+                index = -index - 1;
+
+            final int count = Math.min(index, max);
+            final long[] result = new long[count];
+            for (int i = 0; i < count; i++)
+                result[i] = positions[index - 1 - i];
+            return result;
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package org.revolut.moneytransfer.service.transfer;
 
+import com.google.common.base.Preconditions;
 import org.revolut.moneytransfer.domain.MoneyTransfer;
+import org.revolut.moneytransfer.domain.Page;
+import org.revolut.moneytransfer.domain.TransferResult;
 import org.revolut.moneytransfer.exception.AccountNotFoundException;
 import org.revolut.moneytransfer.exception.MoneyTransferWebServiceException;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -12,10 +16,80 @@ import java.util.List;
  */
 public interface MoneyTransferDao {
 
+    int MAX_BATCH_SIZE = 10_000;
+
     MoneyTransfer newMoneyTransfer(MoneyTransfer request)
             throws AccountNotFoundException, MoneyTransferWebServiceException;
 
+    /**
+     * Checks the transfer against the current state of its accounts without moving any money, so a transfer that
+     * runs later can be refused up front. The state may change before it runs, where it is checked again.
+     *
+     * @throws MoneyTransferWebServiceException with the reason the transfer would be rejected now
+     */
+    void checkTransfer(MoneyTransfer request) throws MoneyTransferWebServiceException;
+
+    /**
+     * Applies the transfers in order. A rejected transfer does not stop the ones after it. Any other failure, such as
+     * a journal that takes no more records, is thrown and fails the whole batch; transfers before the failing one may
+     * already be applied.
+     *
+     * @return one result per request, in request order
+     */
+    default List<TransferResult> newMoneyTransfers(final List<MoneyTransfer> requests) {
+        Preconditions.checkArgument(requests.size() <= MAX_BATCH_SIZE,
+                "A batch holds at most " + MAX_BATCH_SIZE + " transfers");
+        final List<TransferResult> results = new ArrayList<>(requests.size());
+        for (MoneyTransfer request : requests) {
+            try {
+                results.add(TransferResult.accepted(newMoneyTransfer(request)));
+            } catch (AccountNotFoundException | MoneyTransferWebServiceException ex) {
+                results.add(TransferResult.rejected(ex.getMessage()));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Whether the storage keeps authorization holds, callers check this before using {@link #reserve(MoneyTransfer)},
+     * {@link #captureReserved(MoneyTransfer)} or {@link #releaseReserved(MoneyTransfer)}.
+     */
+    default boolean supportsHolds() {
+        return false;
+    }
+
+    /**
+     * Reserves the amount of the transfer on its source account, whose available balance drops while its balance
+     * does not. Nothing moves until {@link #captureReserved(MoneyTransfer)}.
+     *
+     * @throws UnsupportedOperationException if {@link #supportsHolds()} is false
+     */
+    default void reserve(final MoneyTransfer transfer)
+            throws AccountNotFoundException, MoneyTransferWebServiceException {
+        throw new UnsupportedOperationException("Authorization holds are not supported by this storage");
+    }
+
+    /**
+     * Executes a transfer reserved by {@link #reserve(MoneyTransfer)} and releases its reservation. A rejected
+     * transfer stays reserved.
+     */
+    default MoneyTransfer captureReserved(final MoneyTransfer transfer)
+            throws AccountNotFoundException, MoneyTransferWebServiceException {
+        throw new UnsupportedOperationException("Authorization holds are not supported by this storage");
+    }
+
+    default void releaseReserved(final MoneyTransfer transfer) {
+        throw new UnsupportedOperationException("Authorization holds are not supported by this storage");
+    }
+
     List<MoneyTransfer> getAllTransfers();
 
     List<MoneyTransfer> getAllTransfersByAccount(long accountId);
+
+    /**
+     * Newest first, starting after {@code cursor}, or at the newest transfer when the cursor is null.
+     */
+    Page<MoneyTransfer> getTransfers(String cursor, int limit);
+
+    Page<MoneyTransfer> getTransfersByAccount(long accountId, String cursor, int limit);
 }
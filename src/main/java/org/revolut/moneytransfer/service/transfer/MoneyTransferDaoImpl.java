@@ -1,21 +1,36 @@
 package org.revolut.moneytransfer.service.transfer;
 
-import com.google.common.base.Predicate;
+import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import org.joda.time.DateTime;
 import org.revolut.moneytransfer.domain.Account;
 import org.revolut.moneytransfer.domain.Currency;
 import org.revolut.moneytransfer.domain.Money;
 import org.revolut.moneytransfer.domain.MoneyTransfer;
+import org.revolut.moneytransfer.domain.Page;
+import org.revolut.moneytransfer.domain.TransferResult;
 import org.revolut.moneytransfer.exception.AccountNotFoundException;
 import org.revolut.moneytransfer.exception.MoneyTransferWebServiceException;
-import org.revolut.moneytransfer.service.account.AccountDao;
 import org.revolut.moneytransfer.service.account.AccountDaoImpl;
+import org.revolut.moneytransfer.service.account.AccountHolds;
+import org.revolut.moneytransfer.service.account.AccountLocks;
+import org.revolut.moneytransfer.service.account.AccountPartitions;
+import org.revolut.moneytransfer.service.account.AccountStore;
+import org.revolut.moneytransfer.service.account.BalanceUpdateMode;
+import org.revolut.moneytransfer.service.fx.FxRateTable;
+import org.revolut.moneytransfer.service.journal.Journal;
+import org.revolut.moneytransfer.service.journal.TransferRecord;
+import org.revolut.moneytransfer.service.ledger.Ledger;
+import org.revolut.moneytransfer.util.AppendOnlyLog;
+import org.revolut.moneytransfer.util.Cursors;
 
-import java.math.BigDecimal;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Lock;
 
 /**
  * Created by Sougata Bhattacharjee
@@ -23,133 +38,392 @@ import java.util.stream.Collectors;
  */
 public class MoneyTransferDaoImpl implements MoneyTransferDao {
 
-    private final AccountDao accountDao;
-    private final List<MoneyTransfer> moneyTransfers;
+    private final AccountStore accounts;
+    private final AccountLocks accountLocks;
+    private final AccountPartitions accountPartitions;
+    private final BalanceUpdateMode balanceUpdateMode;
+    private final Journal journal;
+    private final Ledger ledger;
+    private final AccountHolds holds;
+    private final FxRateTable fxRates;
+    private final AppendOnlyLog<MoneyTransfer> moneyTransfers;
+    private final AccountTransferIndex accountTransfers;
 
     public MoneyTransferDaoImpl() {
-        this.accountDao = new AccountDaoImpl();
-        this.moneyTransfers = Lists.newCopyOnWriteArrayList();
+        this(Lists.newArrayList(), new AccountDaoImpl());
     }
 
     public MoneyTransferDaoImpl(final List<MoneyTransfer> moneyTransfers, final AccountDaoImpl accountDao) {
-        this.accountDao = accountDao;
-        this.moneyTransfers = Lists.newCopyOnWriteArrayList();
-        this.moneyTransfers.addAll(moneyTransfers);
+        this(moneyTransfers, accountDao, FxRateTable.NONE);
+    }
+
+    /**
+     * Transfers between accounts in different currencies are converted with the current {@code fxRates}.
+     */
+    public MoneyTransferDaoImpl(final List<MoneyTransfer> moneyTransfers, final AccountDaoImpl accountDao,
+                                final FxRateTable fxRates) {
+        this.fxRates = fxRates;
+        this.accounts = accountDao.getAccountStore();
+        this.accountLocks = accountDao.getAccountLocks();
+        this.accountPartitions = accountDao.getAccountPartitions();
+        this.balanceUpdateMode = accountDao.getBalanceUpdateMode();
+        this.journal = accountDao.getJournal();
+        this.ledger = accountDao.getLedger();
+        this.holds = accountDao.getHolds();
+        this.moneyTransfers = new AppendOnlyLog<>();
+        this.accountTransfers = new AccountTransferIndex();
+        moneyTransfers.forEach(this::append);
     }
 
 
     @Override
     public MoneyTransfer newMoneyTransfer(final MoneyTransfer request) throws AccountNotFoundException, MoneyTransferWebServiceException {
-        verifyTransferRequest(request);
-        final Account sourceAccount = accountDao.getAccountById(request.getSourceAccountId());
-        final Account destinationAccount = accountDao.getAccountById(request.getDestinationAccountId());
+        return transfer(request, 0);
+    }
 
-        sourceAccount.getBalance().setAmount(sourceAccount.getBalance().getAmount()
-                .subtract(request.getAmount().getAmount()));
+    @Override
+    public void checkTransfer(final MoneyTransfer request) throws MoneyTransferWebServiceException {
+        validate(request, 0);
+    }
 
-        destinationAccount.getBalance().setAmount(destinationAccount.getBalance().getAmount()
-                .add(request.getAmount().getAmount()));
+    @Override
+    public void reserve(final MoneyTransfer transfer)
+            throws AccountNotFoundException, MoneyTransferWebServiceException {
+        if (balanceUpdateMode == BalanceUpdateMode.LOCK_FREE) {
+            reserveSource(transfer);
+            return;
+        }
+        if (balanceUpdateMode == BalanceUpdateMode.PARTITIONED) {
+            try {
+                accountPartitions.call(transfer.getSourceAccountId(), () -> reserveSource(transfer));
+                return;
+            } catch (MoneyTransferWebServiceException | RuntimeException ex) {
+                throw ex;
+            } catch (Exception ex) {
+                throw new IllegalStateException("Reservation failed", ex);
+            }
+        }
 
-        final MoneyTransfer transfer = new MoneyTransfer();
-        transfer.setAmount(request.getAmount());
-        transfer.setSourceAccountId(request.getSourceAccountId());
-        transfer.setDestinationAccountId(request.getDestinationAccountId());
-        transfer.setTransferDate(DateTime.now());
-        transfer.setDescription(request.getDescription());
-        moneyTransfers.add(transfer);
+        final List<Lock> locks = accountLocks.lockAll(
+                Arrays.asList(transfer.getSourceAccountId(), transfer.getDestinationAccountId()));
+        try {
+            reserveSource(transfer);
+        } finally {
+            AccountLocks.unlockAll(locks);
+        }
+    }
+
+    @Override
+    public boolean supportsHolds() {
+        return true;
+    }
+
+    @Override
+    public MoneyTransfer captureReserved(final MoneyTransfer transfer)
+            throws AccountNotFoundException, MoneyTransferWebServiceException {
+        return transfer(transfer, transfer.getAmount().getMinorUnits());
+    }
+
+    @Override
+    public void releaseReserved(final MoneyTransfer transfer) {
+        holds.release(transfer.getSourceAccountId(), transfer.getAmount().getMinorUnits());
+    }
+
+    /**
+     * @param reserved money reserved on the source for this transfer, released once the transfer went through
+     */
+    private MoneyTransfer transfer(final MoneyTransfer request, final long reserved)
+            throws AccountNotFoundException, MoneyTransferWebServiceException {
+        if (balanceUpdateMode == BalanceUpdateMode.LOCK_FREE)
+            return applyAndBook(request, reserved);
+        if (balanceUpdateMode == BalanceUpdateMode.PARTITIONED)
+            return partitionedTransfer(request, reserved);
+
+        // both accounts stay locked from the balance check until the money has moved and is journaled
+        final MoneyTransfer transfer;
+        final long journalPosition;
+        final List<Lock> locks = accountLocks.lockAll(
+                Arrays.asList(request.getSourceAccountId(), request.getDestinationAccountId()));
+        try {
+            journal.checkWritable();
+            final TransferValidation validation = validate(request, reserved);
+            transfer = applyTransfer(request, validation, reserved);
+            journalPosition = journal(transfer, validation, reserved);
+            book(transfer, validation);
+        } finally {
+            AccountLocks.unlockAll(locks);
+        }
+        journal.awaitDurable(journalPosition);
         return transfer;
     }
 
+    /**
+     * With LOCKING balance updates the accounts of the whole batch are locked once and the journal is synced once at
+     * the end. The other modes apply the transfers one by one.
+     */
+    @Override
+    public List<TransferResult> newMoneyTransfers(final List<MoneyTransfer> requests) {
+        if (balanceUpdateMode != BalanceUpdateMode.LOCKING)
+            return MoneyTransferDao.super.newMoneyTransfers(requests);
+        Preconditions.checkArgument(requests.size() <= MAX_BATCH_SIZE,
+                "A batch holds at most " + MAX_BATCH_SIZE + " transfers");
+
+        final Set<Long> accountIds = new HashSet<>();
+        for (MoneyTransfer request : requests) {
+            accountIds.add(request.getSourceAccountId());
+            accountIds.add(request.getDestinationAccountId());
+        }
+        final List<TransferResult> results = new ArrayList<>(requests.size());
+        long journalPosition = 0;
+        final List<Lock> locks = accountLocks.lockAll(accountIds);
+        try {
+            journal.checkWritable();
+            for (MoneyTransfer request : requests) {
+                try {
+                    final TransferValidation validation = validate(request, 0);
+                    final MoneyTransfer transfer = applyTransfer(request, validation, 0);
+                    journalPosition = journal(transfer, validation, 0);
+                    book(transfer, validation);
+                    results.add(TransferResult.accepted(transfer));
+                } catch (MoneyTransferWebServiceException ex) {
+                    results.add(TransferResult.rejected(ex.getMessage()));
+                }
+            }
+        } finally {
+            AccountLocks.unlockAll(locks);
+        }
+        journal.awaitDurable(journalPosition);
+        return results;
+    }
+
+    /**
+     * Within one partition the whole transfer is a single task. Across partitions the source partition verifies and
+     * debits, then hands the credit over to the destination partition, which sends the money back if the destination
+     * can no longer take it.
+     */
+    private MoneyTransfer partitionedTransfer(final MoneyTransfer request, final long reserved)
+            throws AccountNotFoundException, MoneyTransferWebServiceException {
+        final long source = request.getSourceAccountId();
+        final long destination = request.getDestinationAccountId();
+        final CompletableFuture<MoneyTransfer> transfer;
+        if (accountPartitions.partitionOf(source) == accountPartitions.partitionOf(destination))
+            transfer = accountPartitions.submit(source,
+                    () -> applyAndBook(request, reserved));
+        else
+            transfer = accountPartitions.submit(source, () -> debitSource(request, reserved))
+                    .thenCompose(validation -> accountPartitions.submit(destination,
+                            () -> creditDestination(request, validation.getCreditedAmount()))
+                            .thenCompose(rejected -> rejected == null
+                                    ? CompletableFuture.completedFuture(
+                                            book(releaseAndRecord(request, validation, reserved), validation))
+                                    : accountPartitions.submit(source, () -> refundSource(request, rejected))));
+        try {
+            return AccountPartitions.await(transfer);
+        } catch (AccountNotFoundException | MoneyTransferWebServiceException | RuntimeException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new IllegalStateException("Transfer failed", ex);
+        }
+    }
+
+    private TransferValidation debitSource(final MoneyTransfer request, final long reserved)
+            throws MoneyTransferWebServiceException {
+        final TransferValidation validation = validate(request, reserved);
+        debit(validation.getSource(), request.getAmount().getMinorUnits(), reserved);
+        return validation;
+    }
+
+    private Void reserveSource(final MoneyTransfer transfer) throws MoneyTransferWebServiceException {
+        final TransferValidation validation = validate(transfer, 0);
+        if (!holds.reserve(validation.getSource(), transfer.getAmount().getMinorUnits()))
+            throw rejection(TransferValidation.Rejection.INSUFFICIENT_FUNDS);
+        return null;
+    }
+
+    /**
+     * @return why the destination did not take the money, or null once it is credited
+     */
+    private MoneyTransferWebServiceException creditDestination(final MoneyTransfer request, final long credited) {
+        final Account destination = TransferValidator.active(accounts.get(request.getDestinationAccountId()));
+        if (destination == null)
+            return rejection(TransferValidation.Rejection.DESTINATION_NOT_FOUND);
+        try {
+            destination.getBalance().credit(credited);
+            return null;
+        } catch (ArithmeticException ex) {
+            return new MoneyTransferWebServiceException("Destination account balance would overflow");
+        }
+    }
+
+    private MoneyTransfer refundSource(final MoneyTransfer request, final MoneyTransferWebServiceException rejected)
+            throws MoneyTransferWebServiceException {
+        accounts.get(request.getSourceAccountId()).getBalance().credit(request.getAmount().getMinorUnits());
+        throw rejected;
+    }
+
     @Override
     public List<MoneyTransfer> getAllTransfers() {
-        return moneyTransfers.stream()
-                .sorted(Comparator.comparing(MoneyTransfer::getTransferDate).reversed())
-                .collect(Collectors.toList());
+        return Lists.reverse(moneyTransfers.snapshot());
     }
 
     @Override
     public List<MoneyTransfer> getAllTransfersByAccount(final long accountId) {
-        return moneyTransfers.stream()
-                .filter(ts -> ts.getSourceAccountId() == accountId)
-                .sorted(Comparator.comparing(MoneyTransfer::getTransferDate).reversed())
-                .collect(Collectors.toList());
+        return resolve(accountTransfers.positionsBefore(accountId, moneyTransfers.size(), Integer.MAX_VALUE));
     }
 
 
-    private final Predicate<MoneyTransfer> IS_SOURCE_DESTINATION_ACCOUNT_DIFFERENT =
-            new Predicate<MoneyTransfer>() {
-                @Override
-                public boolean apply(final MoneyTransfer request) {
-                    return request.getSourceAccountId() != request.getDestinationAccountId();
-                }
-            };
-
-    private final Predicate<MoneyTransfer> IS_SOURCE_ACCOUNT_EXISTS =
-            new Predicate<MoneyTransfer>() {
-                @Override
-                public boolean apply(final MoneyTransfer request) {
-                    try {
-                        accountDao.getAccountById(request.getSourceAccountId());
-                    } catch (AccountNotFoundException e) {
-                        return false;
-                    }
-                    return true;
-                }
-            };
-
-    private final Predicate<MoneyTransfer> IS_DESTINATION_ACCOUNT_EXISTS =
-            new Predicate<MoneyTransfer>() {
-                @Override
-                public boolean apply(final MoneyTransfer request) {
-                    try {
-                        accountDao.getAccountById(request.getDestinationAccountId());
-                    } catch (AccountNotFoundException e) {
-                        return false;
-                    }
-                    return true;
-                }
-            };
-
-    private final Predicate<MoneyTransfer> IS_SOURCE_DESTINATION_ACCOUNT_HAS_SIMILAR_CURRENCY =
-            new Predicate<MoneyTransfer>() {
-                @Override
-                public boolean apply(final MoneyTransfer request) {
-                    try {
-                        final Currency currency =
-                                accountDao.getAccountById(request.getDestinationAccountId()).getBalance().getCurrency();
-                        return currency == request.getAmount().getCurrency();
-                    } catch (AccountNotFoundException e) {
-                        return false;
-                    }
-                }
-            };
-
-    private final Predicate<MoneyTransfer> IS_SOURCE_ACCOUNT_HAS_SUFFICIENT_BALANCE =
-            new Predicate<MoneyTransfer>() {
-                @Override
-                public boolean apply(final MoneyTransfer request) {
-                    try {
-                        final Money balance = accountDao.getAccountById(request.getSourceAccountId()).getBalance();
-                        return balance.getAmount().subtract(request.getAmount().getAmount()).compareTo(BigDecimal.ZERO) >= 0;
-                    } catch (AccountNotFoundException e) {
-                        return false;
-                    }
-                }
-            };
-
-
-    private void verifyTransferRequest(final MoneyTransfer request) throws MoneyTransferWebServiceException {
-        if (!IS_SOURCE_DESTINATION_ACCOUNT_DIFFERENT.apply(request))
-            throw new MoneyTransferWebServiceException("Source and destination account must be different");
-        else if (!IS_SOURCE_ACCOUNT_EXISTS.apply(request))
-            throw new MoneyTransferWebServiceException("Source account does not exist");
-        else if (!IS_DESTINATION_ACCOUNT_EXISTS.apply(request))
-            throw new MoneyTransferWebServiceException("Destination account does not exist");
-        else if (!IS_SOURCE_DESTINATION_ACCOUNT_HAS_SIMILAR_CURRENCY.apply(request))
-            throw new MoneyTransferWebServiceException(
-                    "Source and Destination account have different Currency");
-        else if (!IS_SOURCE_ACCOUNT_HAS_SUFFICIENT_BALANCE.apply(request))
-            throw new MoneyTransferWebServiceException(
-                    "Source Account does not have sufficient fund");
+    @Override
+    public Page<MoneyTransfer> getTransfers(final String cursor, final int limit) {
+        final long start = pageStart(cursor, limit);
+        final long end = Math.max(0, start - limit);
+        final List<MoneyTransfer> items = new ArrayList<>(limit);
+        for (long position = start - 1; position >= end; position--)
+            items.add(moneyTransfers.get(position));
+        return new Page<>(items, end > 0 ? Cursors.encode(end) : null);
+    }
+
+    @Override
+    public Page<MoneyTransfer> getTransfersByAccount(final long accountId, final String cursor, final int limit) {
+        final long start = pageStart(cursor, limit);
+        final long[] positions = accountTransfers.positionsBefore(accountId, start, limit + 1);
+        if (positions.length <= limit)
+            return new Page<>(resolve(positions), null);
+        return new Page<>(resolve(Arrays.copyOf(positions, limit)), Cursors.encode(positions[limit] + 1));
+    }
+
+    /**
+     * The cursor is an exclusive position in the append-only history, so it stays valid while new transfers are
+     * added. Pages are read backwards from it.
+     */
+    private long pageStart(final String cursor, final int limit) {
+        Preconditions.checkArgument(limit > 0 && limit <= Page.MAX_LIMIT,
+                "limit must be between 1 and " + Page.MAX_LIMIT);
+        final long size = moneyTransfers.size();
+        final long start = cursor == null ? size : Cursors.decode(cursor, 1)[0];
+        Preconditions.checkArgument(start >= 0 && start <= size, "Invalid cursor");
+        return start;
+    }
+
+    private List<MoneyTransfer> resolve(final long[] positions) {
+        final List<MoneyTransfer> transfers = new ArrayList<>(positions.length);
+        for (long position : positions)
+            transfers.add(moneyTransfers.get(position));
+        return transfers;
+    }
+
+    private MoneyTransfer append(final MoneyTransfer transfer) {
+        final long position = moneyTransfers.append(transfer);
+        accountTransfers.add(position, transfer.getSourceAccountId(), transfer.getDestinationAccountId());
+        return transfer;
+    }
+
+    private MoneyTransfer applyAndBook(final MoneyTransfer request, final long reserved)
+            throws MoneyTransferWebServiceException {
+        final TransferValidation validation = validate(request, reserved);
+        return book(applyTransfer(request, validation, reserved), validation);
+    }
+
+    private MoneyTransfer applyTransfer(final MoneyTransfer request, final TransferValidation validation,
+                                        final long reserved) throws MoneyTransferWebServiceException {
+        final Account sourceAccount = validation.getSource();
+        final Account destinationAccount = validation.getDestination();
+        final long amount = request.getAmount().getMinorUnits();
+        final long credited = validation.getCreditedAmount();
+
+        debit(sourceAccount, amount, reserved);
+        try {
+            destinationAccount.getBalance().credit(credited);
+        } catch (ArithmeticException ex) {
+            sourceAccount.getBalance().credit(amount);
+            throw new MoneyTransferWebServiceException("Destination account balance would overflow");
+        }
+        return releaseAndRecord(request, validation, reserved);
+    }
+
+    /**
+     * Without locks the balance may have moved since validation, the debit itself is the real check. Reserved money
+     * is still in the balance and stays reserved until the transfer went through, so the debit of it cannot fail.
+     */
+    private void debit(final Account source, final long amount, final long reserved)
+            throws MoneyTransferWebServiceException {
+        if (reserved > 0 ? !source.getBalance().debit(amount) : !holds.debit(source, amount))
+            throw rejection(TransferValidation.Rejection.INSUFFICIENT_FUNDS);
+    }
+
+    /**
+     * Releases the hold the transfer was paid from, if any, and builds the record of the transfer that went through.
+     */
+    private MoneyTransfer releaseAndRecord(final MoneyTransfer request, final TransferValidation validation,
+                                           final long reserved) {
+        if (reserved > 0)
+            holds.release(request.getSourceAccountId(), reserved);
+        return record(request, validation);
+    }
+
+    private MoneyTransfer record(final MoneyTransfer request, final TransferValidation validation) {
+        final MoneyTransfer transfer = MoneyTransfer.from(request);
+        transfer.setTransferDate(DateTime.now());
+        final Currency currency = validation.getDestination().getBalance().getCurrency();
+        if (currency != transfer.getAmount().getCurrency())
+            transfer.setDestinationAmount(new Money(validation.getCreditedAmount(), currency));
+        return transfer;
+    }
+
+    /**
+     * Posts a transfer to the ledger and lists it once it is journaled, so neither holds a transfer the journal
+     * could still lose. A converted transfer is booked as two ledger entries, one through the external account of
+     * each currency, so every currency still adds up on its own.
+     */
+    private MoneyTransfer book(final MoneyTransfer transfer, final TransferValidation validation) {
+        final long amount = transfer.getAmount().getMinorUnits();
+        if (transfer.getDestinationAmount() == null) {
+            ledger.post(transfer.getTransferId(), transfer.getSourceAccountId(), transfer.getDestinationAccountId(),
+                    amount);
+        } else {
+            ledger.post(transfer.getTransferId(), transfer.getSourceAccountId(),
+                    Ledger.externalAccount(validation.getSource().getBalance().getCurrency()), amount);
+            ledger.post(transfer.getTransferId(),
+                    Ledger.externalAccount(validation.getDestination().getBalance().getCurrency()),
+                    transfer.getDestinationAccountId(), validation.getCreditedAmount());
+        }
+        return append(transfer);
+    }
+
+    /**
+     * Looks up source and destination once and checks every rule against them. Money reserved for the transfer
+     * itself is still in the balance, so it is checked against the balance instead of the available balance.
+     */
+    private TransferValidation validate(final MoneyTransfer request, final long reserved)
+            throws MoneyTransferWebServiceException {
+        final Account source = TransferValidator.active(accounts.get(request.getSourceAccountId()));
+        final Account destination = TransferValidator.active(accounts.get(request.getDestinationAccountId()));
+        final TransferValidation validation = reserved > 0
+                ? TransferValidator.validate(request, source, destination, fxRates.current())
+                : TransferValidator.validate(request, source, destination, fxRates.current(), holds);
+        if (!validation.isValid())
+            throw rejection(validation.getRejection());
+        return validation;
+    }
+
+    /**
+     * Journals a transfer applied under the account locks. If the journal does not take it, the money is moved back
+     * before the failure is passed on.
+     */
+    private long journal(final MoneyTransfer transfer, final TransferValidation validation, final long reserved) {
+        try {
+            return journal.append(TransferRecord.of(transfer,
+                    validation.getSource().getBalance().getMinorUnits(),
+                    validation.getDestination().getBalance().getMinorUnits()));
+        } catch (RuntimeException ex) {
+            validation.getDestination().getBalance().debit(validation.getCreditedAmount());
+            validation.getSource().getBalance().credit(transfer.getAmount().getMinorUnits());
+            if (reserved > 0)
+                holds.reserve(validation.getSource(), reserved);
+            throw ex;
+        }
+    }
+
+    private static MoneyTransferWebServiceException rejection(final TransferValidation.Rejection rejection) {
+        return new MoneyTransferWebServiceException(rejection.getMessage());
     }
 }
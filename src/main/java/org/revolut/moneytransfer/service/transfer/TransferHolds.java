@@ -0,0 +1,195 @@
+package org.revolut.moneytransfer.service.transfer;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.revolut.moneytransfer.domain.MoneyTransfer;
+import org.revolut.moneytransfer.domain.TransferResult;
+import org.revolut.moneytransfer.domain.TransferState;
+import org.revolut.moneytransfer.exception.AccountNotFoundException;
+import org.revolut.moneytransfer.exception.MoneyTransferWebServiceException;
+import org.revolut.moneytransfer.util.TimingWheel;
+import org.revolut.moneytransfer.util.TransferIds;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * Two-phase transfers. {@link #authorize} reserves the amount on the source account with
+ * {@link MoneyTransferDao#reserve(MoneyTransfer)}, {@link #capture} later executes the transfer from the reserved
+ * money and {@link #release} gives it back. Holds not captured or released in time expire from a
+ * {@link TimingWheel} advanced by a background thread every tick, so expiry never scans the open holds. Holds are
+ * kept in memory only and are lost on shutdown.
+ */
+public class TransferHolds implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(TransferHolds.class);
+
+    private static final long TICK_MILLIS = 10;
+    private static final int MAX_STATUSES = 1_000_000;
+
+    private final MoneyTransferDao transferDao;
+    private final int capacity;
+    private final long expiryMillis;
+    private final TimingWheel<Hold> wheel = new TimingWheel<>(TICK_MILLIS, System.currentTimeMillis());
+    private final Map<String, TimingWheel.Timeout<Hold>> holds = new HashMap<>();
+    private final Cache<String, TransferState> statuses;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("transfer-holds").setDaemon(true).build());
+    private boolean running = true;
+
+    public TransferHolds(final MoneyTransferDao transferDao, final int capacity, final long expiryMillis) {
+        Preconditions.checkArgument(capacity > 0, "Capacity must be positive");
+        Preconditions.checkArgument(expiryMillis > 0, "Expiry must be positive");
+        Preconditions.checkArgument(transferDao.supportsHolds(), "Transfer storage keeps no holds");
+        this.transferDao = transferDao;
+        this.capacity = capacity;
+        this.expiryMillis = expiryMillis;
+        this.statuses = CacheBuilder.newBuilder().maximumSize(MAX_STATUSES).build();
+        executor.scheduleWithFixedDelay(this::expireDueQuietly, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Reserves the amount of the transfer under a new transfer id.
+     *
+     * @return the authorized state, to capture or release later
+     * @throws RejectedExecutionException if too many holds are open or the holds are closed
+     */
+    public TransferState authorize(final MoneyTransfer request)
+            throws AccountNotFoundException, MoneyTransferWebServiceException {
+        final MoneyTransfer transfer = new MoneyTransfer(TransferIds.next(), request);
+        transferDao.reserve(transfer);
+        synchronized (this) {
+            if (running && holds.size() < capacity) {
+                final Hold hold = new Hold(transfer, System.currentTimeMillis() + expiryMillis);
+                holds.put(transfer.getTransferId(), wheel.schedule(hold.expiresAt, hold));
+                return TransferState.authorized(transfer);
+            }
+        }
+        transferDao.releaseReserved(transfer);
+        throw new RejectedExecutionException(running ? "Too many open holds" : "Transfer holds are closed");
+    }
+
+    /**
+     * Executes the held transfer. A rejected transfer stays held until it expires.
+     *
+     * @return the stored transfer, or empty if no such hold is open
+     */
+    public Optional<MoneyTransfer> capture(final String transferId)
+            throws AccountNotFoundException, MoneyTransferWebServiceException {
+        final Hold hold = claim(transferId);
+        if (hold == null)
+            return Optional.empty();
+        final MoneyTransfer transfer;
+        try {
+            transfer = transferDao.captureReserved(hold.transfer);
+        } catch (AccountNotFoundException | MoneyTransferWebServiceException | RuntimeException ex) {
+            synchronized (this) {
+                holds.put(transferId, wheel.schedule(hold.expiresAt, hold));
+            }
+            throw ex;
+        }
+        statuses.put(transferId, TransferState.of(transferId, TransferResult.accepted(transfer)));
+        return Optional.of(transfer);
+    }
+
+    /**
+     * @return false if no such hold is open
+     */
+    public boolean release(final String transferId) {
+        final Hold hold = claim(transferId);
+        if (hold == null)
+            return false;
+        transferDao.releaseReserved(hold.transfer);
+        statuses.put(transferId, TransferState.released(transferId));
+        return true;
+    }
+
+    public Optional<TransferState> status(final String transferId) {
+        synchronized (this) {
+            final TimingWheel.Timeout<Hold> timeout = holds.get(transferId);
+            if (timeout != null)
+                return Optional.of(TransferState.authorized(timeout.getValue().transfer));
+        }
+        return Optional.ofNullable(statuses.getIfPresent(transferId));
+    }
+
+    public synchronized int size() {
+        return holds.size();
+    }
+
+    /**
+     * Expires what is due now. Holds still open are lost with the process anyway.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            running = false;
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        expireDueQuietly();
+        final int open = size();
+        if (open > 0)
+            LOG.warn("Dropped {} open holds", open);
+    }
+
+    void expireDue() {
+        final List<Hold> expired = new ArrayList<>();
+        synchronized (this) {
+            wheel.advance(System.currentTimeMillis(), hold -> {
+                holds.remove(hold.transfer.getTransferId());
+                expired.add(hold);
+            });
+        }
+        for (Hold hold : expired) {
+            transferDao.releaseReserved(hold.transfer);
+            statuses.put(hold.transfer.getTransferId(), TransferState.expired(hold.transfer.getTransferId()));
+        }
+    }
+
+    /**
+     * Takes the hold out of the wheel, so neither expiry nor another capture or release can end it as well.
+     */
+    private synchronized Hold claim(final String transferId) {
+        final TimingWheel.Timeout<Hold> timeout = holds.remove(transferId);
+        if (timeout == null || !wheel.cancel(timeout))
+            return null;
+        return timeout.getValue();
+    }
+
+    private void expireDueQuietly() {
+        try {
+            expireDue();
+        } catch (RuntimeException ex) {
+            LOG.error("Expiring holds failed", ex);
+        }
+    }
+
+    private static final class Hold {
+
+        private final MoneyTransfer transfer;
+        private final long expiresAt;
+
+        private Hold(final MoneyTransfer transfer, final long expiresAt) {
+            this.transfer = transfer;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
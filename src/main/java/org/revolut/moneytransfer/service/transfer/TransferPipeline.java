@@ -0,0 +1,177 @@
+package org.revolut.moneytransfer.service.transfer;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.math.IntMath;
+import org.revolut.moneytransfer.domain.MoneyTransfer;
+import org.revolut.moneytransfer.domain.TransferResult;
+import org.revolut.moneytransfer.domain.TransferState;
+import org.revolut.moneytransfer.util.TransferIds;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * Asynchronous transfer intake. Request threads claim a slot of a pre-allocated ring, store the request there and
+ * return at once. One worker thread takes every published slot in sequence order and hands them to
+ * {@link MoneyTransferDao#newMoneyTransfers(List)} as one batch, which validates, applies and journals them with a
+ * single lock acquisition and journal sync. Outcomes are kept for {@link #status(String)}.
+ * <p>
+ * Closing sets a flag in the claim counter itself, so a transfer is either claimed before the close and processed by
+ * the worker before it stops, or refused. Queued transfers are tracked apart from the bounded outcome cache, so they
+ * are never evicted while they wait.
+ */
+public class TransferPipeline implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(TransferPipeline.class);
+
+    private static final int MAX_STATUSES = 1_000_000;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    // set in claimed once closed, sequences never reach it
+    private static final long CLOSED = Long.MIN_VALUE;
+
+    private final MoneyTransferDao transferDao;
+    private final Slot[] ring;
+    private final int mask;
+    private final int batchSize;
+    private final AtomicLong claimed = new AtomicLong();
+    private final Map<String, TransferState> pending = new ConcurrentHashMap<>();
+    private final Cache<String, TransferState> statuses;
+    private final Thread worker;
+    private volatile long processed;
+    private volatile boolean idle;
+
+    public TransferPipeline(final MoneyTransferDao transferDao, final int capacity) {
+        Preconditions.checkArgument(capacity > 0 && capacity <= 1 << 30, "Queue size must be between 1 and 2^30");
+        this.transferDao = transferDao;
+        this.ring = new Slot[IntMath.ceilingPowerOfTwo(capacity)];
+        for (int i = 0; i < ring.length; i++)
+            ring[i] = new Slot(i - ring.length);
+        this.mask = ring.length - 1;
+        this.batchSize = Math.min(ring.length, MoneyTransferDao.MAX_BATCH_SIZE);
+        this.statuses = CacheBuilder.newBuilder().maximumSize(MAX_STATUSES).build();
+        this.worker = new Thread(this::run, "transfer-pipeline");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Queues the transfer under a new transfer id.
+     *
+     * @return the transfer id, to look up with {@link #status(String)}
+     * @throws RejectedExecutionException if the queue is full or closed
+     */
+    public String submit(final MoneyTransfer request) {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if ((sequence & CLOSED) != 0)
+                throw new RejectedExecutionException("Transfer queue is closed");
+            if (sequence - processed >= ring.length)
+                throw new RejectedExecutionException("Transfer queue is full");
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        final String transferId = TransferIds.next();
+        pending.put(transferId, TransferState.pending(transferId));
+        final Slot slot = ring[(int) sequence & mask];
+        slot.request = new MoneyTransfer(transferId, request);
+        slot.published = sequence;
+        if (idle)
+            LockSupport.unpark(worker);
+        return transferId;
+    }
+
+    public Optional<TransferState> status(final String transferId) {
+        final TransferState queued = pending.get(transferId);
+        return Optional.ofNullable(queued != null ? queued : statuses.getIfPresent(transferId));
+    }
+
+    /**
+     * Stops taking transfers and waits until the queued ones are processed.
+     */
+    @Override
+    public void close() {
+        long current;
+        do {
+            current = claimed.get();
+        } while ((current & CLOSED) == 0 && !claimed.compareAndSet(current, current | CLOSED));
+        LockSupport.unpark(worker);
+        try {
+            worker.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        final List<MoneyTransfer> batch = new ArrayList<>(batchSize);
+        while (true) {
+            final long next = processed;
+            for (long sequence = next; batch.size() < batchSize; sequence++) {
+                final Slot slot = ring[(int) sequence & mask];
+                if (slot.published != sequence)
+                    break;
+                batch.add(slot.request);
+            }
+
+            if (!batch.isEmpty()) {
+                process(batch);
+                for (long sequence = next; sequence < next + batch.size(); sequence++)
+                    ring[(int) sequence & mask].request = null;
+                processed = next + batch.size();
+                batch.clear();
+            } else if (claimed.get() == (next | CLOSED)) {
+                // closed and every claimed transfer is processed
+                return;
+            } else {
+                idle = true;
+                if (ring[(int) next & mask].published != next)
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                idle = false;
+            }
+        }
+    }
+
+    private void process(final List<MoneyTransfer> batch) {
+        final List<TransferResult> results;
+        try {
+            results = transferDao.newMoneyTransfers(batch);
+        } catch (RuntimeException ex) {
+            LOG.error("Cannot process {} transfers", batch.size(), ex);
+            // the transfers before the failing one may have been applied
+            for (MoneyTransfer transfer : batch) {
+                final String transferId = transfer.getTransferId();
+                statuses.put(transferId, TransferState.failed(transferId, ex.getMessage()));
+                pending.remove(transferId);
+            }
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            final String transferId = batch.get(i).getTransferId();
+            statuses.put(transferId, TransferState.of(transferId, results.get(i)));
+            pending.remove(transferId);
+        }
+    }
+
+    private static final class Slot {
+
+        private volatile long published;
+        private MoneyTransfer request;
+
+        private Slot(final long published) {
+            this.published = published;
+        }
+    }
+}
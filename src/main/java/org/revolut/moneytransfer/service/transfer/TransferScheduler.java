@@ -0,0 +1,165 @@
+package org.revolut.moneytransfer.service.transfer;
+
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.joda.time.DateTime;
+import org.revolut.moneytransfer.domain.MoneyTransfer;
+import org.revolut.moneytransfer.domain.TransferResult;
+import org.revolut.moneytransfer.domain.TransferState;
+import org.revolut.moneytransfer.exception.MoneyTransferWebServiceException;
+import org.revolut.moneytransfer.util.TimingWheel;
+import org.revolut.moneytransfer.util.TransferIds;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * Holds future-dated transfers in a {@link TimingWheel} until their {@code executeAt}. A background thread advances
+ * the wheel every tick and hands the transfers that fell due to
+ * {@link MoneyTransferDao#newMoneyTransfers(List)} in batches. Scheduled transfers are kept in memory only and are
+ * lost on shutdown.
+ */
+public class TransferScheduler implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(TransferScheduler.class);
+
+    private static final long TICK_MILLIS = 10;
+    private static final int MAX_STATUSES = 1_000_000;
+
+    private final MoneyTransferDao transferDao;
+    private final int capacity;
+    private final TimingWheel<MoneyTransfer> wheel = new TimingWheel<>(TICK_MILLIS, System.currentTimeMillis());
+    private final Map<String, TimingWheel.Timeout<MoneyTransfer>> scheduled = new HashMap<>();
+    private final Cache<String, TransferState> statuses;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("transfer-scheduler").setDaemon(true).build());
+    private boolean running = true;
+
+    public TransferScheduler(final MoneyTransferDao transferDao, final int capacity) {
+        Preconditions.checkArgument(capacity > 0, "Capacity must be positive");
+        this.transferDao = transferDao;
+        this.capacity = capacity;
+        this.statuses = CacheBuilder.newBuilder().maximumSize(MAX_STATUSES).build();
+        executor.scheduleWithFixedDelay(this::runDueQuietly, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Schedules the transfer under a new transfer id, if it would go through now. It is checked again when it falls
+     * due, and rejected then if it no longer would.
+     *
+     * @return the scheduled state, to look up later with {@link #status(String)}
+     * @throws MoneyTransferWebServiceException if the transfer would be rejected now
+     * @throws RejectedExecutionException if the scheduler is full or closed
+     */
+    public TransferState schedule(final MoneyTransfer request, final DateTime executeAt)
+            throws MoneyTransferWebServiceException {
+        transferDao.checkTransfer(request);
+        synchronized (this) {
+            if (!running)
+                throw new RejectedExecutionException("Transfer scheduler is closed");
+            if (scheduled.size() >= capacity)
+                throw new RejectedExecutionException("Too many scheduled transfers");
+            final MoneyTransfer transfer = new MoneyTransfer(TransferIds.next(), request);
+            transfer.setExecuteAt(executeAt);
+            scheduled.put(transfer.getTransferId(), wheel.schedule(executeAt.getMillis(), transfer));
+            return TransferState.scheduled(transfer);
+        }
+    }
+
+    /**
+     * @return false if the transfer is not scheduled, or already due
+     */
+    public synchronized boolean cancel(final String transferId) {
+        final TimingWheel.Timeout<MoneyTransfer> timeout = scheduled.remove(transferId);
+        if (timeout == null || !wheel.cancel(timeout))
+            return false;
+        statuses.put(transferId, TransferState.cancelled(transferId));
+        return true;
+    }
+
+    public Optional<TransferState> status(final String transferId) {
+        synchronized (this) {
+            final TimingWheel.Timeout<MoneyTransfer> timeout = scheduled.get(transferId);
+            if (timeout != null)
+                return Optional.of(TransferState.scheduled(timeout.getValue()));
+        }
+        return Optional.ofNullable(statuses.getIfPresent(transferId));
+    }
+
+    public synchronized int size() {
+        return scheduled.size();
+    }
+
+    /**
+     * Executes what is due now. Transfers still scheduled are dropped.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            running = false;
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        runDueQuietly();
+        final int dropped = size();
+        if (dropped > 0)
+            LOG.warn("Dropped {} scheduled transfers", dropped);
+    }
+
+    void runDue() {
+        final List<MoneyTransfer> due = new ArrayList<>();
+        synchronized (this) {
+            wheel.advance(System.currentTimeMillis(), transfer -> {
+                scheduled.remove(transfer.getTransferId());
+                statuses.put(transfer.getTransferId(), TransferState.pending(transfer.getTransferId()));
+                due.add(transfer);
+            });
+        }
+        for (int from = 0; from < due.size(); from += MoneyTransferDao.MAX_BATCH_SIZE)
+            execute(due.subList(from, Math.min(due.size(), from + MoneyTransferDao.MAX_BATCH_SIZE)));
+    }
+
+    private void execute(final List<MoneyTransfer> batch) {
+        final List<TransferResult> results;
+        try {
+            results = transferDao.newMoneyTransfers(batch);
+        } catch (RuntimeException ex) {
+            LOG.error("Cannot execute {} scheduled transfers", batch.size(), ex);
+            // the transfers before the failing one may have been applied
+            for (MoneyTransfer transfer : batch) {
+                final String transferId = transfer.getTransferId();
+                statuses.put(transferId, TransferState.failed(transferId, ex.getMessage()));
+            }
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            final String transferId = batch.get(i).getTransferId();
+            statuses.put(transferId, TransferState.of(transferId, results.get(i)));
+        }
+    }
+
+    private void runDueQuietly() {
+        try {
+            runDue();
+        } catch (RuntimeException ex) {
+            LOG.error("Scheduled transfers failed", ex);
+        }
+    }
+}
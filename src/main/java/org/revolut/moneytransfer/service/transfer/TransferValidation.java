@@ -0,0 +1,57 @@
+package org.revolut.moneytransfer.service.transfer;
+
+import lombok.Getter;
+import org.revolut.moneytransfer.domain.Account;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * Outcome of {@link TransferValidator}: either both loaded accounts and the amount to credit, in minor units of
+ * the destination currency, or the first rule the transfer broke.
+ */
+@Getter
+public final class TransferValidation {
+
+    public enum Rejection {
+        SAME_ACCOUNT("Source and destination account must be different"),
+        SOURCE_NOT_FOUND("Source account does not exist"),
+        DESTINATION_NOT_FOUND("Destination account does not exist"),
+        CURRENCY_MISMATCH("Source and Destination account have different Currency"),
+        INSUFFICIENT_FUNDS("Source Account does not have sufficient fund"),
+        CONVERSION_OVERFLOW("Converted amount is too large"),
+        CONVERSION_UNDERFLOW("Converted amount is less than one minor unit");
+
+        @Getter
+        private final String message;
+
+        Rejection(final String message) {
+            this.message = message;
+        }
+    }
+
+    private final Account source;
+    private final Account destination;
+    private final long creditedAmount;
+    private final Rejection rejection;
+
+    private TransferValidation(final Account source, final Account destination, final long creditedAmount,
+                               final Rejection rejection) {
+        this.source = source;
+        this.destination = destination;
+        this.creditedAmount = creditedAmount;
+        this.rejection = rejection;
+    }
+
+    static TransferValidation valid(final Account source, final Account destination, final long creditedAmount) {
+        return new TransferValidation(source, destination, creditedAmount, null);
+    }
+
+    static TransferValidation rejected(final Rejection rejection) {
+        return new TransferValidation(null, null, 0, rejection);
+    }
+
+    public boolean isValid() {
+        return rejection == null;
+    }
+}
@@ -0,0 +1,82 @@
+package org.revolut.moneytransfer.service.transfer;
+
+import org.revolut.moneytransfer.domain.Account;
+import org.revolut.moneytransfer.domain.AccountStatus;
+import org.revolut.moneytransfer.domain.Money;
+import org.revolut.moneytransfer.domain.MoneyTransfer;
+import org.revolut.moneytransfer.service.account.AccountHolds;
+import org.revolut.moneytransfer.service.fx.FxRates;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * Checks a transfer request in one pass against the source and destination account, each looked up once by the
+ * caller. A missing or INACTIVE account is passed as null.
+ */
+public final class TransferValidator {
+
+    private TransferValidator() {
+    }
+
+    public static TransferValidation validate(final MoneyTransfer request, final Account source,
+                                              final Account destination) {
+        return validate(request, source, destination, FxRates.NONE);
+    }
+
+    /**
+     * The amount is in the source account's currency. A destination in another currency is credited the amount
+     * converted with {@code rates}, if they have a rate for the pair and it comes to at least one minor unit.
+     */
+    public static TransferValidation validate(final MoneyTransfer request, final Account source,
+                                              final Account destination, final FxRates rates) {
+        return validate(request, source, destination, rates, account -> account.getBalance().getMinorUnits());
+    }
+
+    /**
+     * The source must have the amount available, money reserved on it by {@code holds} does not count.
+     */
+    public static TransferValidation validate(final MoneyTransfer request, final Account source,
+                                              final Account destination, final FxRates rates,
+                                              final AccountHolds holds) {
+        return validate(request, source, destination, rates, holds::available);
+    }
+
+    private static TransferValidation validate(final MoneyTransfer request, final Account source,
+                                               final Account destination, final FxRates rates,
+                                               final ToLongFunction<Account> available) {
+        final Money amount = request.getAmount();
+        if (request.getSourceAccountId() == request.getDestinationAccountId())
+            return TransferValidation.rejected(TransferValidation.Rejection.SAME_ACCOUNT);
+        else if (source == null)
+            return TransferValidation.rejected(TransferValidation.Rejection.SOURCE_NOT_FOUND);
+        else if (destination == null)
+            return TransferValidation.rejected(TransferValidation.Rejection.DESTINATION_NOT_FOUND);
+        else if (source.getBalance().getCurrency() != amount.getCurrency())
+            return TransferValidation.rejected(TransferValidation.Rejection.CURRENCY_MISMATCH);
+
+        final long credited;
+        try {
+            credited = rates.convert(amount.getMinorUnits(), amount.getCurrency(),
+                    destination.getBalance().getCurrency());
+        } catch (ArithmeticException ex) {
+            return TransferValidation.rejected(TransferValidation.Rejection.CONVERSION_OVERFLOW);
+        }
+        if (credited == FxRates.NO_RATE)
+            return TransferValidation.rejected(TransferValidation.Rejection.CURRENCY_MISMATCH);
+        else if (credited == 0 && amount.getMinorUnits() > 0)
+            return TransferValidation.rejected(TransferValidation.Rejection.CONVERSION_UNDERFLOW);
+        else if (available.applyAsLong(source) < amount.getMinorUnits())
+            return TransferValidation.rejected(TransferValidation.Rejection.INSUFFICIENT_FUNDS);
+        return TransferValidation.valid(source, destination, credited);
+    }
+
+    /**
+     * @return the account if it can take part in a transfer, otherwise null
+     */
+    public static Account active(final Account account) {
+        return account != null && account.getStatus() == AccountStatus.ACTIVE ? account : null;
+    }
+}
@@ -0,0 +1,106 @@
+package org.revolut.moneytransfer.util;
+
+import com.google.common.base.Preconditions;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * Append-only log stored in fixed size chunks, so appending never copies earlier entries. Appends are lock-free:
+ * a writer reserves a position, fills the slot and then helps move the published size past every slot that is
+ * already filled. Readers only see the published prefix, which never has holes. {@link #append} does not return
+ * until its own entry is published, so a caller can always read back what it appended.
+ */
+public class AppendOnlyLog<T> {
+
+    private static final int CHUNK_BITS = 13;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int MAX_CHUNKS = 1 << 16;
+    private static final long CAPACITY = (long) CHUNK_SIZE * MAX_CHUNKS;
+
+    private final AtomicReferenceArray<AtomicReferenceArray<T>> chunks = new AtomicReferenceArray<>(MAX_CHUNKS);
+    private final AtomicLong reserved = new AtomicLong();
+    private final AtomicLong published = new AtomicLong();
+
+    /**
+     * Returns once the entry is published. If an earlier writer has reserved a slot but not filled it yet, this
+     * waits for that writer, which is only ever a few instructions away from filling it.
+     *
+     * @return the position of the appended item
+     */
+    public long append(final T item) {
+        Preconditions.checkNotNull(item);
+        final long position = reserved.getAndIncrement();
+        if (position >= CAPACITY)
+            throw new IllegalStateException("Log capacity of " + CAPACITY + " entries exceeded");
+
+        chunk(position).set((int) (position & CHUNK_MASK), item);
+        publish();
+        while (published.get() <= position) {
+            Thread.yield();
+            publish();
+        }
+        return position;
+    }
+
+    /**
+     * Number of published entries. Every position below it can be read.
+     */
+    public long size() {
+        return published.get();
+    }
+
+    public T get(final long position) {
+        if (position < 0 || position >= size())
+            throw new IndexOutOfBoundsException("Position " + position + " is not published");
+        return peek(position);
+    }
+
+    /**
+     * A read-only view of the entries published at the time of the call. Later appends are not visible through
+     * it and nothing is copied.
+     */
+    public List<T> snapshot() {
+        final int size = (int) Math.min(size(), Integer.MAX_VALUE);
+        return new AbstractList<T>() {
+            @Override
+            public T get(final int index) {
+                Preconditions.checkElementIndex(index, size);
+                return peek(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private void publish() {
+        long position;
+        while (peek(position = published.get()) != null)
+            published.compareAndSet(position, position + 1);
+    }
+
+    private T peek(final long position) {
+        if (position >= CAPACITY)
+            return null;
+        final AtomicReferenceArray<T> chunk = chunks.get((int) (position >>> CHUNK_BITS));
+        return chunk == null ? null : chunk.get((int) (position & CHUNK_MASK));
+    }
+
+    private AtomicReferenceArray<T> chunk(final long position) {
+        final int index = (int) (position >>> CHUNK_BITS);
+        final AtomicReferenceArray<T> chunk = chunks.get(index);
+        if (chunk != null)
+            return chunk;
+        chunks.compareAndSet(index, null, new AtomicReferenceArray<>(CHUNK_SIZE));
+        return chunks.get(index);
+    }
+}
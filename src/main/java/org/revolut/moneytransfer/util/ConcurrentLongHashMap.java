@@ -0,0 +1,234 @@
+package org.revolut.moneytransfer.util;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * Open-addressing hash map keyed by primitive {@code long}. The table is split into segments so writers
+ * only contend with writers of the same segment, while readers never take a lock. Entries can be added or
+ * replaced but never removed, which keeps linear probing free of tombstones.
+ */
+public class ConcurrentLongHashMap<V> {
+
+    private static final long EMPTY = 0L;
+    private static final int MIN_SEGMENT_CAPACITY = 16;
+
+    private final Segment<V>[] segments;
+    private final int segmentShift;
+
+    public ConcurrentLongHashMap() {
+        this(1024, Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    @SuppressWarnings("unchecked")
+    public ConcurrentLongHashMap(final int expectedSize, final int concurrencyLevel) {
+        Preconditions.checkArgument(expectedSize >= 0, "expectedSize cannot be negative");
+        Preconditions.checkArgument(concurrencyLevel > 0, "concurrencyLevel must be positive");
+        final int segmentCount = powerOfTwo(concurrencyLevel);
+        final int segmentCapacity = powerOfTwo(Math.max(MIN_SEGMENT_CAPACITY, expectedSize * 2 / segmentCount));
+
+        this.segments = new Segment[segmentCount];
+        this.segmentShift = 32 - Integer.numberOfTrailingZeros(segmentCount);
+        for (int i = 0; i < segmentCount; i++)
+            segments[i] = new Segment<>(segmentCapacity);
+    }
+
+    public V get(final long key) {
+        final int hash = hash(key);
+        return segmentFor(hash).get(key, hash);
+    }
+
+    public boolean containsKey(final long key) {
+        return get(key) != null;
+    }
+
+    public V put(final long key, final V value) {
+        Preconditions.checkNotNull(value);
+        final int hash = hash(key);
+        return segmentFor(hash).put(key, hash, value, false);
+    }
+
+    public V putIfAbsent(final long key, final V value) {
+        Preconditions.checkNotNull(value);
+        final int hash = hash(key);
+        return segmentFor(hash).put(key, hash, value, true);
+    }
+
+    public V computeIfAbsent(final long key, final LongFunction<? extends V> mappingFunction) {
+        final V existing = get(key);
+        if (existing != null)
+            return existing;
+        final int hash = hash(key);
+        return segmentFor(hash).computeIfAbsent(key, hash, mappingFunction);
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment<V> segment : segments)
+            size += segment.size;
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Weakly consistent: values added concurrently may or may not be visited.
+     */
+    public void forEachValue(final Consumer<? super V> action) {
+        for (Segment<V> segment : segments)
+            segment.forEachValue(action);
+    }
+
+    public void clear() {
+        for (Segment<V> segment : segments)
+            segment.clear();
+    }
+
+    private Segment<V> segmentFor(final int hash) {
+        return segments.length == 1 ? segments[0] : segments[hash >>> segmentShift];
+    }
+
+    private static int hash(final long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int powerOfTwo(final int value) {
+        final int highest = Integer.highestOneBit(value);
+        return highest == value ? value : highest << 1;
+    }
+
+    private static final class Table<V> {
+        private final AtomicLongArray keys;
+        private final AtomicReferenceArray<V> values;
+        private final int mask;
+
+        private Table(final int capacity) {
+            this.keys = new AtomicLongArray(capacity);
+            this.values = new AtomicReferenceArray<>(capacity);
+            this.mask = capacity - 1;
+        }
+
+        private int capacity() {
+            return mask + 1;
+        }
+    }
+
+    private static final class Segment<V> {
+        private volatile Table<V> table;
+        private volatile V zeroKeyValue;
+        private volatile int size;
+
+        private Segment(final int capacity) {
+            this.table = new Table<>(capacity);
+        }
+
+        private V get(final long key, final int hash) {
+            if (key == EMPTY)
+                return zeroKeyValue;
+            final Table<V> current = table;
+            int index = hash & current.mask;
+            while (true) {
+                final long candidate = current.keys.get(index);
+                if (candidate == key)
+                    return current.values.get(index);
+                if (candidate == EMPTY)
+                    return null;
+                index = (index + 1) & current.mask;
+            }
+        }
+
+        private synchronized V put(final long key, final int hash, final V value, final boolean onlyIfAbsent) {
+            if (key == EMPTY) {
+                final V previous = zeroKeyValue;
+                if (previous == null || !onlyIfAbsent)
+                    zeroKeyValue = value;
+                if (previous == null)
+                    size++;
+                return previous;
+            }
+            Table<V> current = table;
+            int index = hash & current.mask;
+            while (true) {
+                final long candidate = current.keys.get(index);
+                if (candidate == key) {
+                    final V previous = current.values.get(index);
+                    if (!onlyIfAbsent)
+                        current.values.set(index, value);
+                    return previous;
+                }
+                if (candidate == EMPTY)
+                    break;
+                index = (index + 1) & current.mask;
+            }
+            if ((size + 1) * 2 > current.capacity()) {
+                current = resize(current);
+                index = hash & current.mask;
+                while (current.keys.get(index) != EMPTY)
+                    index = (index + 1) & current.mask;
+            }
+            // value first, so a reader that observes the key always observes its value
+            current.values.set(index, value);
+            current.keys.set(index, key);
+            size++;
+            return null;
+        }
+
+        private synchronized V computeIfAbsent(final long key, final int hash,
+                                               final LongFunction<? extends V> mappingFunction) {
+            final V existing = get(key, hash);
+            if (existing != null)
+                return existing;
+            final V value = Preconditions.checkNotNull(mappingFunction.apply(key));
+            put(key, hash, value, false);
+            return value;
+        }
+
+        private void forEachValue(final Consumer<? super V> action) {
+            final V zero = zeroKeyValue;
+            if (zero != null)
+                action.accept(zero);
+            final Table<V> current = table;
+            for (int i = 0; i < current.capacity(); i++) {
+                if (current.keys.get(i) != EMPTY)
+                    action.accept(current.values.get(i));
+            }
+        }
+
+        private synchronized void clear() {
+            table = new Table<>(table.capacity());
+            zeroKeyValue = null;
+            size = 0;
+        }
+
+        private Table<V> resize(final Table<V> current) {
+            final Table<V> resized = new Table<>(current.capacity() * 2);
+            for (int i = 0; i < current.capacity(); i++) {
+                final long key = current.keys.get(i);
+                if (key == EMPTY)
+                    continue;
+                int index = hash(key) & resized.mask;
+                while (resized.keys.get(index) != EMPTY)
+                    index = (index + 1) & resized.mask;
+                resized.values.set(index, current.values.get(i));
+                resized.keys.set(index, key);
+            }
+            table = resized;
+            return resized;
+        }
+    }
+}
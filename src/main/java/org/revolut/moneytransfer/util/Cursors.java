@@ -0,0 +1,48 @@
+package org.revolut.moneytransfer.util;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.primitives.Longs;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * Encodes the position of the last item of a page as an opaque, url-safe cursor.
+ */
+public final class Cursors {
+
+    private static final char SEPARATOR = ':';
+
+    private Cursors() {
+    }
+
+    public static String encode(final long... values) {
+        final StringBuilder joined = new StringBuilder();
+        Joiner.on(SEPARATOR).appendTo(joined, Longs.asList(values));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(joined.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the cursor was not produced by {@link #encode(long...)} with
+     *                                  {@code length} values
+     */
+    public static long[] decode(final String cursor, final int length) {
+        try {
+            final String joined = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            final List<String> parts = Splitter.on(SEPARATOR).splitToList(joined);
+            if (parts.size() != length)
+                throw new IllegalArgumentException("Invalid cursor");
+            final long[] values = new long[length];
+            for (int i = 0; i < length; i++)
+                values[i] = Long.parseLong(parts.get(i));
+            return values;
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid cursor", ex);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package org.revolut.moneytransfer.util;
+
+import java.util.UUID;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ */
+@FunctionalInterface
+public interface IdGenerator {
+
+    /**
+     * Random version 4 UUIDs, which share one {@link java.security.SecureRandom} and do not sort by time.
+     */
+    IdGenerator RANDOM = () -> UUID.randomUUID().toString();
+
+    String next();
+}
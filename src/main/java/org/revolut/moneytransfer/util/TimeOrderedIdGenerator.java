@@ -0,0 +1,69 @@
+package org.revolut.moneytransfer.util;
+
+import com.google.common.base.Preconditions;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * 128-bit ids in UUID format that sort, as strings too, by the millisecond they were made in:
+ * {@code [48 bit epoch millis][16 bit node][40 bit sequence][24 bit thread]}. Each thread counts its own sequence
+ * within a millisecond, so nothing is shared between threads. Ids of one thread are strictly increasing even if the
+ * clock steps back.
+ */
+public class TimeOrderedIdGenerator implements IdGenerator {
+
+    private static final int NODE_BITS = 16;
+    private static final int THREAD_BITS = 24;
+    private static final long MAX_SEQUENCE = (1L << 40) - 1;
+
+    private final long node;
+    private final AtomicInteger threads = new AtomicInteger();
+    private final ThreadLocal<ThreadState> states =
+            ThreadLocal.withInitial(() -> new ThreadState(threads.getAndIncrement() & ((1 << THREAD_BITS) - 1)));
+
+    public TimeOrderedIdGenerator(final int node) {
+        Preconditions.checkArgument(node >= 0 && node < 1 << NODE_BITS, "Node must be between 0 and 65535");
+        this.node = node;
+    }
+
+    /**
+     * A node id for a process that was not given one.
+     */
+    public static int randomNode() {
+        return new SecureRandom().nextInt(1 << NODE_BITS);
+    }
+
+    @Override
+    public String next() {
+        return nextUuid().toString();
+    }
+
+    public UUID nextUuid() {
+        final ThreadState state = states.get();
+        final long now = System.currentTimeMillis();
+        if (now > state.millis) {
+            state.millis = now;
+            state.sequence = 0;
+        } else if (++state.sequence > MAX_SEQUENCE) {
+            state.millis++;
+            state.sequence = 0;
+        }
+        return new UUID(state.millis << NODE_BITS | node, state.sequence << THREAD_BITS | state.thread);
+    }
+
+    private static final class ThreadState {
+
+        private final long thread;
+        private long millis;
+        private long sequence;
+
+        private ThreadState(final long thread) {
+            this.thread = thread;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package org.revolut.moneytransfer.util;
+
+import com.google.common.base.Preconditions;
+
+import java.util.function.Consumer;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * Hierarchical timing wheel. Time is counted in ticks of {@code tickMillis}; level {@code n} has one slot per value
+ * of the n-th byte of a tick number, so {@value #LEVELS} levels cover 2^32 ticks ahead. A timeout sits in the
+ * level of the highest byte in which its deadline differs from the current tick. When that byte of the current
+ * tick reaches it, its slot is cascaded, every timeout in it moving to a lower level, until it expires from
+ * level 0. Scheduling and cancelling link or unlink one list node, advancing costs a few slot checks per tick plus
+ * one move per level a timeout passes through.
+ * <p>
+ * Not thread safe, callers synchronize.
+ */
+public final class TimingWheel<T> {
+
+    private static final int LEVELS = 4;
+    private static final int SLOT_BITS = 8;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int MASK = SLOTS - 1;
+
+    private final long tickMillis;
+    private final Timeout<T>[][] slots;
+    // deadlines beyond the top level, rescheduled each time the top level wraps around
+    private final Timeout<T> overflow = new Timeout<>(0, null);
+    private long currentTick;
+    private long size;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(final long tickMillis, final long startMillis) {
+        Preconditions.checkArgument(tickMillis > 0, "tickMillis must be positive");
+        this.tickMillis = tickMillis;
+        this.currentTick = startMillis / tickMillis;
+        this.slots = new Timeout[LEVELS][SLOTS];
+        for (Timeout<T>[] level : slots)
+            for (int slot = 0; slot < SLOTS; slot++)
+                level[slot] = new Timeout<>(0, null);
+    }
+
+    /**
+     * Schedules the value to expire on the first {@link #advance} to {@code deadlineMillis} or later. A deadline
+     * already passed expires on the next advance.
+     */
+    public Timeout<T> schedule(final long deadlineMillis, final T value) {
+        final long deadlineTick = Math.max(currentTick + 1, (deadlineMillis + tickMillis - 1) / tickMillis);
+        final Timeout<T> timeout = new Timeout<>(deadlineTick, value);
+        place(timeout);
+        size++;
+        return timeout;
+    }
+
+    /**
+     * @return false if the timeout already expired or was cancelled
+     */
+    public boolean cancel(final Timeout<T> timeout) {
+        if (timeout.previous == null)
+            return false;
+        timeout.unlink();
+        size--;
+        return true;
+    }
+
+    /**
+     * Moves the wheel to {@code nowMillis}, handing every value that expires to {@code expired} in deadline order.
+     */
+    public void advance(final long nowMillis, final Consumer<? super T> expired) {
+        final long targetTick = nowMillis / tickMillis;
+        if (size == 0) {
+            currentTick = Math.max(currentTick, targetTick);
+            return;
+        }
+        while (currentTick < targetTick) {
+            currentTick++;
+            if ((currentTick & ((1L << SLOT_BITS * LEVELS) - 1)) == 0)
+                reschedule(overflow);
+            for (int level = LEVELS - 1; level > 0; level--)
+                if ((currentTick & ((1L << SLOT_BITS * level) - 1)) == 0)
+                    reschedule(slots[level][(int) (currentTick >>> SLOT_BITS * level) & MASK]);
+            final Timeout<T> due = slots[0][(int) currentTick & MASK];
+            while (due.next != due) {
+                final Timeout<T> timeout = due.next;
+                timeout.unlink();
+                size--;
+                expired.accept(timeout.value);
+            }
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    private void place(final Timeout<T> timeout) {
+        final long differing = timeout.deadlineTick ^ currentTick;
+        final int level = (63 - Long.numberOfLeadingZeros(differing)) / SLOT_BITS;
+        if (level >= LEVELS)
+            overflow.append(timeout);
+        else
+            slots[level][(int) (timeout.deadlineTick >>> SLOT_BITS * level) & MASK].append(timeout);
+    }
+
+    private void reschedule(final Timeout<T> slot) {
+        Timeout<T> timeout = slot.next;
+        slot.next = slot;
+        slot.previous = slot;
+        while (timeout != slot) {
+            final Timeout<T> next = timeout.next;
+            place(timeout);
+            timeout = next;
+        }
+    }
+
+    /**
+     * A scheduled value, also the node of the slot list it sits in. A slot itself is an empty node heading a
+     * circular list.
+     */
+    public static final class Timeout<T> {
+
+        private final long deadlineTick;
+        private final T value;
+        private Timeout<T> previous;
+        private Timeout<T> next;
+
+        private Timeout(final long deadlineTick, final T value) {
+            this.deadlineTick = deadlineTick;
+            this.value = value;
+            this.previous = this;
+            this.next = this;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        private void append(final Timeout<T> timeout) {
+            timeout.previous = previous;
+            timeout.next = this;
+            previous.next = timeout;
+            previous = timeout;
+        }
+
+        private void unlink() {
+            previous.next = next;
+            next.previous = previous;
+            previous = null;
+            next = null;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package org.revolut.moneytransfer.util;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ * <p>
+ * Where new transfer ids come from, time-ordered ids of a random node unless {@link #use(IdGenerator)} says otherwise.
+ */
+public final class TransferIds {
+
+    private static volatile IdGenerator generator = new TimeOrderedIdGenerator(TimeOrderedIdGenerator.randomNode());
+
+    private TransferIds() {
+    }
+
+    public static String next() {
+        return generator.next();
+    }
+
+    public static void use(final IdGenerator idGenerator) {
+        generator = idGenerator;
+    }
+}
@@ -0,0 +1,76 @@
+package org.revolut.moneytransfer.controller;
+
+import org.eclipse.jetty.http.HttpStatus;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ */
+public class IdempotentRoutesTest {
+
+    private final IdempotentRoutes idempotentRoutes = new IdempotentRoutes(10, 1, TimeUnit.MINUTES);
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    public void testRetryAfterServiceUnavailableRunsAgain() throws Exception {
+        final Route route = idempotentRoutes.of("transfer", (request, response) -> {
+            response.status(calls.incrementAndGet() == 1 ? HttpStatus.SERVICE_UNAVAILABLE_503 : HttpStatus.OK_200);
+            return "call " + calls.get();
+        }, String::valueOf);
+
+        Assert.assertThat(route.handle(request("key"), response()), is("call 1"));
+        Assert.assertThat(route.handle(request("key"), response()), is("call 2"));
+        // the 200 is final and replayed
+        final Response replayed = response();
+        Assert.assertThat(route.handle(request("key"), replayed), is("call 2"));
+        Mockito.verify(replayed).header(IdempotentRoutes.REPLAYED_HEADER, "true");
+        Assert.assertThat(calls.get(), is(2));
+    }
+
+    @Test
+    public void testClientErrorIsReplayed() throws Exception {
+        final Route route = idempotentRoutes.of("transfer", (request, response) -> {
+            calls.incrementAndGet();
+            response.status(HttpStatus.FORBIDDEN_403);
+            return "rejected";
+        }, String::valueOf);
+
+        route.handle(request("key"), response());
+        final Response replayed = response();
+        Assert.assertThat(route.handle(request("key"), replayed), is("rejected"));
+        Assert.assertThat(replayed.status(), is(HttpStatus.FORBIDDEN_403));
+        Assert.assertThat(calls.get(), is(1));
+    }
+
+    private static Request request(final String key) {
+        final Request request = Mockito.mock(Request.class);
+        Mockito.when(request.headers(IdempotentRoutes.HEADER)).thenReturn(key);
+        Mockito.when(request.body()).thenReturn("{}");
+        return request;
+    }
+
+    /**
+     * Remembers the status set on it, like a real response.
+     */
+    private static Response response() {
+        final Response response = Mockito.mock(Response.class);
+        final AtomicInteger status = new AtomicInteger(HttpStatus.OK_200);
+        Mockito.doAnswer(invocation -> {
+            status.set((Integer) invocation.getArguments()[0]);
+            return null;
+        }).when(response).status(Mockito.anyInt());
+        Mockito.when(response.status()).thenAnswer(invocation -> status.get());
+        return response;
+    }
+}
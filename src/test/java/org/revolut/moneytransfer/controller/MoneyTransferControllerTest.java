@@ -300,23 +300,23 @@ public class MoneyTransferControllerTest {
         createTransfer(transferPayload7);
 
 
-        // account 1 perform 4 transfers
+        // account 1 sends 4 transfers and receives 2
         final MoneyTransfer[] transfersForAccount1 = given()
                 .queryParam("accountId", accountId1.getAccountId())
                 .when()
                 .get(baseURL + "/alltransfer")
                 .as(MoneyTransfer[].class);
 
-        Assert.assertThat(transfersForAccount1.length, is(4));
+        Assert.assertThat(transfersForAccount1.length, is(6));
 
-        // account 2 perform 3 transfers
+        // account 2 sends 3 transfers and receives 2
         final MoneyTransfer[] transfersForAccount2 = given()
                 .queryParam("accountId", accountId2.getAccountId())
                 .when()
                 .get(baseURL + "/alltransfer")
                 .as(MoneyTransfer[].class);
 
-        Assert.assertThat(transfersForAccount2.length, is(3));
+        Assert.assertThat(transfersForAccount2.length, is(5));
 
         // all transfers without query by id, total 7 transfers performed
         final MoneyTransfer[] allTransfers = given()
@@ -332,6 +332,91 @@ public class MoneyTransferControllerTest {
         Assert.assertEquals(getAccountBalanceById(accountId4.getAccountId()).getAmount(), BigDecimal.valueOf(200));
     }
 
+    @Test
+    public void testBatchTransfer() {
+        final String batchPayload = "[" +
+                transferJson(accountId1.getAccountId(), accountId2.getAccountId(), 50, Currency.EUR) + "," +
+                transferJson(accountId1.getAccountId(), accountId4.getAccountId(), 50, Currency.EUR) + "," +
+                transferJson(accountId2.getAccountId(), accountId3.getAccountId(), 150, Currency.EUR) +
+                "]";
+
+        given()
+                .contentType("application/json")
+                .body(batchPayload)
+                .when()
+                .post(baseURL + "/transfers/batch")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.SC_OK)
+                .body("size()", is(3))
+                .body("[0].transfer.sourceAccountId", equalTo((int) accountId1.getAccountId()))
+                .body("[1].error", equalTo("Source and Destination account have different Currency"))
+                .body("[2].transfer.destinationAccountId", equalTo((int) accountId3.getAccountId()));
+
+        Assert.assertEquals(getAccountBalanceById(accountId1.getAccountId()).getAmount(), BigDecimal.valueOf(250));
+        Assert.assertEquals(getAccountBalanceById(accountId2.getAccountId()).getAmount(), BigDecimal.valueOf(0));
+        Assert.assertEquals(getAccountBalanceById(accountId3.getAccountId()).getAmount(), BigDecimal.valueOf(350));
+
+        given()
+                .contentType("application/json")
+                .body("[{\"sourceAccountId\":1}]")
+                .when()
+                .post(baseURL + "/transfers/batch")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.SC_BAD_REQUEST);
+    }
+
+    @Test
+    public void testRetryWithIdempotencyKeyReturnsFirstTransfer() {
+        final String payload = transferJson(accountId1.getAccountId(), accountId2.getAccountId(), 50, Currency.EUR);
+
+        final String transferId = given()
+                .contentType("application/json")
+                .header("Idempotency-Key", "retry-1")
+                .body(payload)
+                .when()
+                .post(baseURL + "/transfer")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.SC_OK)
+                .extract().path("transferId");
+
+        given()
+                .contentType("application/json")
+                .header("Idempotency-Key", "retry-1")
+                .body(payload)
+                .when()
+                .post(baseURL + "/transfer")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.SC_OK)
+                .header("Idempotent-Replayed", "true")
+                .body("transferId", equalTo(transferId));
+
+        given()
+                .contentType("application/json")
+                .header("Idempotency-Key", "retry-1")
+                .body(transferJson(accountId1.getAccountId(), accountId2.getAccountId(), 60, Currency.EUR))
+                .when()
+                .post(baseURL + "/transfer")
+                .then()
+                .assertThat()
+                .statusCode(HttpStatus.SC_UNPROCESSABLE_ENTITY);
+
+        Assert.assertEquals(getAccountBalanceById(accountId1.getAccountId()).getAmount(), BigDecimal.valueOf(250));
+        Assert.assertEquals(getAccountBalanceById(accountId2.getAccountId()).getAmount(), BigDecimal.valueOf(150));
+    }
+
+    private static String transferJson(final long source, final long destination, final long amount,
+                                       final Currency currency) {
+        return "{" +
+                "\"sourceAccountId\":" + source + "," +
+                "\"destinationAccountId\":" + destination + "," +
+                "\"amount\": {\"amount\":" + amount + ", \"currency\": \"" + currency + "\"}," +
+                "\"description\":\"Batch\"" +
+                "}";
+    }
 
     private void createTransfer(final String payload) {
         given()
@@ -0,0 +1,86 @@
+package org.revolut.moneytransfer.domain;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ */
+public class MoneyTest {
+
+    @Test
+    public void testMinorUnitsRoundTrip() {
+        for (long minorUnits : new long[]{0, 1, 10, 99, 100, 1050, 123456, Long.MAX_VALUE})
+            Assert.assertThat(Money.toMinorUnits(Money.toAmount(minorUnits)), is(minorUnits));
+        for (String amount : new String[]{"0", "0.01", "0.1", "12.5", "100", "92233720368547758.07"})
+            Assert.assertThat(Money.toAmount(Money.toMinorUnits(new BigDecimal(amount))), is(new BigDecimal(amount)));
+    }
+
+    @Test
+    public void testAmountIsWrittenInItsShortestForm() {
+        Assert.assertThat(Money.toAmount(10000).toPlainString(), is("100"));
+        Assert.assertThat(Money.toAmount(1050).toPlainString(), is("10.5"));
+        Assert.assertThat(Money.toAmount(1).toPlainString(), is("0.01"));
+        Assert.assertThat(new Money(new BigDecimal("100.00"), Currency.EUR).getAmount().toPlainString(), is("100"));
+    }
+
+    @Test
+    public void testAmountThatDoesNotFitIsRejected() {
+        for (String amount : new String[]{"92233720368547758.08", "1.005"}) {
+            try {
+                Money.toMinorUnits(new BigDecimal(amount));
+                Assert.fail(amount + " has no exact minor unit count");
+            } catch (ArithmeticException expected) {
+                // expected
+            }
+        }
+        try {
+            new Money(new BigDecimal("1.005"), Currency.EUR);
+            Assert.fail("more than two decimals");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testOverflowingCreditLeavesTheBalanceUnchanged() {
+        final Money balance = new Money(Long.MAX_VALUE - 1, Currency.EUR);
+        try {
+            balance.credit(2);
+            Assert.fail("credit should overflow");
+        } catch (ArithmeticException expected) {
+            // expected
+        }
+        Assert.assertThat(balance.getMinorUnits(), is(Long.MAX_VALUE - 1));
+        Assert.assertThat(balance.debit(Long.MAX_VALUE), is(false));
+        Assert.assertThat(balance.getMinorUnits(), is(Long.MAX_VALUE - 1));
+    }
+
+    @Test
+    public void testNegativeBalanceCannotBeSet() {
+        final Money balance = new Money(100, Currency.EUR);
+        try {
+            balance.reset(-1);
+            Assert.fail("negative balance");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+        try {
+            balance.setAmount(new BigDecimal("-0.01"));
+            Assert.fail("negative amount");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+        Assert.assertThat(balance.getMinorUnits(), is(100L));
+
+        balance.reset(250);
+        Assert.assertThat(balance.getMinorUnits(), is(250L));
+        balance.setAmount(new BigDecimal("1.5"));
+        Assert.assertThat(balance.getMinorUnits(), is(150L));
+    }
+}
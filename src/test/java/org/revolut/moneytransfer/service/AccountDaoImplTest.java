@@ -1,8 +1,246 @@
 package org.revolut.moneytransfer.service;
 
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.revolut.moneytransfer.domain.Account;
+import org.revolut.moneytransfer.domain.AccountStatus;
+import org.revolut.moneytransfer.domain.Currency;
+import org.revolut.moneytransfer.domain.Money;
+import org.revolut.moneytransfer.domain.Page;
+import org.revolut.moneytransfer.domain.User;
+import org.revolut.moneytransfer.domain.request.AccountBalanceRequest;
+import org.revolut.moneytransfer.domain.request.AccountStatusRequest;
+import org.revolut.moneytransfer.service.account.AccountDao;
+import org.revolut.moneytransfer.service.account.AccountDaoImpl;
+import org.revolut.moneytransfer.service.account.BalanceUpdateMode;
+import org.revolut.moneytransfer.service.account.InMemoryAccountStore;
+import org.revolut.moneytransfer.service.journal.FileJournal;
+import org.revolut.moneytransfer.util.Cursors;
+
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.comparesEqualTo;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
 /**
  * Created by Sougata Bhattacharjee
  * On 21.09.18
  */
 public class AccountDaoImplTest {
+
+    private AccountDao accountDao;
+
+    @Before
+    public void setUp() {
+        accountDao = AccountDaoImpl.builder(new InMemoryAccountStore()).build();
+    }
+
+    @Test
+    public void testConcurrentCreditAndDebitOnSameAccount() throws Exception {
+        final Account account = accountDao.insertNewAccount(
+                new Account(new User("Revolut"), new Money(BigDecimal.valueOf(4000), Currency.EUR)));
+
+        runConcurrently(8, 1000, i -> accountDao.updateAccountBalance(
+                new AccountBalanceRequest(account.getAccountId(), new Money(BigDecimal.ONE, Currency.EUR)), i % 2 == 0));
+
+        Assert.assertThat(accountDao.getAccountById(account.getAccountId()).getBalance().getAmount(),
+                comparesEqualTo(BigDecimal.valueOf(4000)));
+    }
+
+    @Test
+    public void testConcurrentCreditOnDisjointAccounts() throws Exception {
+        final List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < 8; i++)
+            accounts.add(accountDao.insertNewAccount(
+                    new Account(new User("Revolut" + i), new Money(BigDecimal.ZERO, Currency.EUR))));
+
+        runConcurrently(8, 1000, i -> accountDao.updateAccountBalance(
+                new AccountBalanceRequest(accounts.get(i % 8).getAccountId(),
+                        new Money(BigDecimal.ONE, Currency.EUR)), true));
+
+        for (Account account : accounts)
+            Assert.assertThat(accountDao.getAccountById(account.getAccountId()).getBalance().getAmount(),
+                    comparesEqualTo(BigDecimal.valueOf(1000)));
+    }
+
+    @Test
+    public void testFailedJournalLeavesAccountUnchanged() throws Exception {
+        final Path path = Files.createTempFile("journal", ".log");
+        try {
+            final FileJournal journal = new FileJournal(path, true);
+            final AccountDaoImpl journaled = AccountDaoImpl.builder(new InMemoryAccountStore()).journal(journal).build();
+            final Account account = journaled.insertNewAccount(
+                    new Account(new User("Revolut"), new Money(BigDecimal.valueOf(4000), Currency.EUR)));
+            journal.close();
+
+            // the append fails after the balance moved, which is undone
+            try {
+                journaled.updateAccountBalance(new AccountBalanceRequest(account.getAccountId(),
+                        new Money(BigDecimal.ONE, Currency.EUR)), true);
+                Assert.fail("Credit without a journal");
+            } catch (UncheckedIOException expected) {
+                // expected
+            }
+            // the failed journal refuses any later change before it is made
+            try {
+                journaled.updateAccountById(new AccountStatusRequest(account.getAccountId(), AccountStatus.INACTIVE));
+                Assert.fail("Status change without a journal");
+            } catch (UncheckedIOException expected) {
+                // expected
+            }
+
+            final Account unchanged = journaled.getAccountById(account.getAccountId());
+            Assert.assertThat(unchanged.getBalance().getAmount(), comparesEqualTo(BigDecimal.valueOf(4000)));
+            Assert.assertThat(unchanged.getStatus(), is(AccountStatus.ACTIVE));
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    public void testPartitionedDaoStopsItsWriters() throws Exception {
+        final AccountDaoImpl partitioned = AccountDaoImpl.builder(new InMemoryAccountStore())
+                .balanceUpdateMode(BalanceUpdateMode.PARTITIONED).build();
+        final long accountId = partitioned.insertNewAccount(
+                new Account(new User("Revolut"), new Money(BigDecimal.ONE, Currency.EUR))).getAccountId();
+        partitioned.updateAccountBalance(
+                new AccountBalanceRequest(accountId, new Money(BigDecimal.ONE, Currency.EUR)), true);
+
+        partitioned.close();
+
+        Assert.assertThat(partitioned.getAccountPartitions().isClosed(), is(true));
+    }
+
+    @Test
+    public void testAccountsByStatusAreListedNewestFirst() throws Exception {
+        final List<Long> ids = insertAccounts(4);
+        accountDao.updateAccountById(new AccountStatusRequest(ids.get(1), AccountStatus.INACTIVE));
+        accountDao.updateAccountById(new AccountStatusRequest(ids.get(3), AccountStatus.INACTIVE));
+
+        Assert.assertThat(accountIds(accountDao.getAllAccounts(Optional.empty())),
+                is(Arrays.asList(ids.get(3), ids.get(2), ids.get(1), ids.get(0))));
+        Assert.assertThat(accountIds(accountDao.getAllAccounts(Optional.of(AccountStatus.ACTIVE))),
+                is(Arrays.asList(ids.get(2), ids.get(0))));
+        Assert.assertThat(accountIds(accountDao.getAllAccounts(Optional.of(AccountStatus.INACTIVE))),
+                is(Arrays.asList(ids.get(3), ids.get(1))));
+    }
+
+    @Test
+    public void testStatusChangeMovesTheAccountBetweenIndexes() throws Exception {
+        final List<Long> ids = insertAccounts(3);
+
+        accountDao.updateAccountById(new AccountStatusRequest(ids.get(1), AccountStatus.INACTIVE));
+        Assert.assertThat(accountIds(accountDao.getAllAccounts(Optional.of(AccountStatus.ACTIVE))),
+                is(Arrays.asList(ids.get(2), ids.get(0))));
+        Assert.assertThat(accountIds(accountDao.getAccounts(Optional.of(AccountStatus.INACTIVE), null, 10)),
+                is(Collections.singletonList(ids.get(1))));
+
+        // moving back restores its place by creation time, not by the time of the change
+        accountDao.updateAccountById(new AccountStatusRequest(ids.get(1), AccountStatus.ACTIVE));
+        Assert.assertThat(accountIds(accountDao.getAllAccounts(Optional.of(AccountStatus.ACTIVE))),
+                is(Arrays.asList(ids.get(2), ids.get(1), ids.get(0))));
+        Assert.assertThat(accountDao.getAllAccounts(Optional.of(AccountStatus.INACTIVE)), is(empty()));
+    }
+
+    @Test
+    public void testAccountPagesAreNewestFirstAndTheLastHasNoCursor() {
+        final List<Long> ids = insertAccounts(5);
+
+        final Page<Account> first = accountDao.getAccounts(Optional.empty(), null, 2);
+        final Page<Account> second = accountDao.getAccounts(Optional.empty(), first.getNextCursor(), 2);
+        final Page<Account> last = accountDao.getAccounts(Optional.empty(), second.getNextCursor(), 2);
+
+        Assert.assertThat(accountIds(first), is(Arrays.asList(ids.get(4), ids.get(3))));
+        Assert.assertThat(accountIds(second), is(Arrays.asList(ids.get(2), ids.get(1))));
+        Assert.assertThat(accountIds(last), is(Collections.singletonList(ids.get(0))));
+        Assert.assertThat(last.getNextCursor(), nullValue());
+        // a page that ends exactly at the last account has no cursor either
+        Assert.assertThat(accountDao.getAccounts(Optional.empty(), null, 5).getNextCursor(), nullValue());
+        Assert.assertThat(accountDao.getAccounts(Optional.empty(), null, 4).getNextCursor(), notNullValue());
+    }
+
+    @Test
+    public void testAccountCursorIsStableWhileAccountsAreInserted() {
+        final List<Long> ids = insertAccounts(4);
+        final Page<Account> first = accountDao.getAccounts(Optional.empty(), null, 2);
+
+        insertAccounts(3);
+        final Page<Account> second = accountDao.getAccounts(Optional.empty(), first.getNextCursor(), 2);
+
+        Assert.assertThat(accountIds(second), is(Arrays.asList(ids.get(1), ids.get(0))));
+        Assert.assertThat(second.getNextCursor(), nullValue());
+    }
+
+    @Test
+    public void testInvalidAccountCursorOrLimitIsRejected() {
+        insertAccounts(2);
+        for (String cursor : Arrays.asList("not a cursor", Cursors.encode(1), Cursors.encode(1, 2, 3))) {
+            try {
+                accountDao.getAccounts(Optional.empty(), cursor, 2);
+                Assert.fail("invalid cursor " + cursor);
+            } catch (IllegalArgumentException expected) {
+                // expected
+            }
+        }
+        for (int limit : new int[]{0, -1, Page.MAX_LIMIT + 1}) {
+            try {
+                accountDao.getAccounts(Optional.empty(), null, limit);
+                Assert.fail("invalid limit " + limit);
+            } catch (IllegalArgumentException expected) {
+                // expected
+            }
+        }
+    }
+
+    private List<Long> insertAccounts(final int count) {
+        final List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+            ids.add(accountDao.insertNewAccount(
+                    new Account(new User("Revolut" + i), new Money(BigDecimal.ZERO, Currency.EUR))).getAccountId());
+        return ids;
+    }
+
+    private static List<Long> accountIds(final Page<Account> page) {
+        return accountIds(page.getItems());
+    }
+
+    private static List<Long> accountIds(final List<Account> accounts) {
+        return accounts.stream().map(Account::getAccountId).collect(Collectors.toList());
+    }
+
+    private static void runConcurrently(final int threads, final int operationsPerThread,
+                                        final Operation operation) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < operationsPerThread; i++)
+                    operation.apply(i);
+                return null;
+            }));
+        }
+        for (Future<?> future : futures)
+            future.get();
+        executor.shutdown();
+    }
+
+    private interface Operation {
+        void apply(int iteration) throws Exception;
+    }
 }
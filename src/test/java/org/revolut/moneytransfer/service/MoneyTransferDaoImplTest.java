@@ -0,0 +1,303 @@
+package org.revolut.moneytransfer.service;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.revolut.moneytransfer.domain.Account;
+import org.revolut.moneytransfer.domain.Currency;
+import org.revolut.moneytransfer.domain.Money;
+import org.revolut.moneytransfer.domain.MoneyTransfer;
+import org.revolut.moneytransfer.domain.Page;
+import org.revolut.moneytransfer.domain.TransferResult;
+import org.revolut.moneytransfer.domain.User;
+import org.revolut.moneytransfer.exception.MoneyTransferWebServiceException;
+import org.revolut.moneytransfer.service.account.AccountDaoImpl;
+import org.revolut.moneytransfer.service.account.AccountPartitions;
+import org.revolut.moneytransfer.service.account.BalanceUpdateMode;
+import org.revolut.moneytransfer.service.account.InMemoryAccountStore;
+import org.revolut.moneytransfer.service.journal.FileJournal;
+import org.revolut.moneytransfer.service.transfer.MoneyTransferDao;
+import org.revolut.moneytransfer.service.transfer.MoneyTransferDaoImpl;
+import org.revolut.moneytransfer.util.Cursors;
+
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.comparesEqualTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ */
+public class MoneyTransferDaoImplTest {
+
+    private static final int ACCOUNTS = 16;
+    private static final BigDecimal INITIAL_BALANCE = BigDecimal.valueOf(100);
+
+    private AccountDaoImpl accountDao;
+    private MoneyTransferDao transferDao;
+    private final List<Account> accounts = new ArrayList<>();
+
+    @Test
+    public void testConcurrentTransfersConserveTotalBalance() throws Exception {
+        setUp(BalanceUpdateMode.LOCKING);
+        runRandomTransfersAndVerifyTotal();
+    }
+
+    @Test
+    public void testConcurrentLockFreeTransfersConserveTotalBalance() throws Exception {
+        setUp(BalanceUpdateMode.LOCK_FREE);
+        runRandomTransfersAndVerifyTotal();
+    }
+
+    @Test
+    public void testConcurrentPartitionedTransfersConserveTotalBalance() throws Exception {
+        try (AccountPartitions partitions = new AccountPartitions(4)) {
+            setUp(AccountDaoImpl.builder(new InMemoryAccountStore()).accountPartitions(partitions).build());
+            runRandomTransfersAndVerifyTotal();
+        }
+    }
+
+    @Test
+    public void testAccountHistoryContainsBothLegsNewestFirst() throws Exception {
+        setUp(BalanceUpdateMode.LOCKING);
+        final long first = accounts.get(0).getAccountId();
+        final long second = accounts.get(1).getAccountId();
+        final long third = accounts.get(2).getAccountId();
+
+        transferDao.newMoneyTransfer(new MoneyTransfer(first, second, new Money(BigDecimal.ONE, Currency.EUR), "1"));
+        transferDao.newMoneyTransfer(new MoneyTransfer(second, third, new Money(BigDecimal.ONE, Currency.EUR), "2"));
+        transferDao.newMoneyTransfer(new MoneyTransfer(third, second, new Money(BigDecimal.ONE, Currency.EUR), "3"));
+
+        final List<MoneyTransfer> history = transferDao.getAllTransfersByAccount(second);
+        Assert.assertThat(history.size(), is(3));
+        Assert.assertThat(history.get(0).getDescription(), is("3"));
+        Assert.assertThat(history.get(2).getDescription(), is("1"));
+        Assert.assertThat(transferDao.getAllTransfersByAccount(first).size(), is(1));
+
+        final Page<MoneyTransfer> firstPage = transferDao.getTransfersByAccount(second, null, 2);
+        Assert.assertThat(firstPage.getItems().size(), is(2));
+        final Page<MoneyTransfer> lastPage = transferDao.getTransfersByAccount(second, firstPage.getNextCursor(), 2);
+        Assert.assertThat(lastPage.getItems().size(), is(1));
+        Assert.assertThat(lastPage.getItems().get(0).getDescription(), is("1"));
+        Assert.assertThat(lastPage.getNextCursor(), nullValue());
+    }
+
+    @Test
+    public void testBatchAppliesTransfersInOrderAndRejectsSingleItems() throws Exception {
+        setUp(BalanceUpdateMode.LOCKING);
+        final long first = accounts.get(0).getAccountId();
+        final long second = accounts.get(1).getAccountId();
+        final long third = accounts.get(2).getAccountId();
+        final Money hundred = new Money(INITIAL_BALANCE, Currency.EUR);
+
+        final List<TransferResult> results = transferDao.newMoneyTransfers(Arrays.asList(
+                new MoneyTransfer(first, second, hundred, "1"),
+                new MoneyTransfer(second, third, new Money(BigDecimal.valueOf(150), Currency.EUR), "2"),
+                new MoneyTransfer(first, third, hundred, "3")));
+
+        Assert.assertThat(results.size(), is(3));
+        Assert.assertThat(results.get(0).isAccepted(), is(true));
+        Assert.assertThat(results.get(1).getTransfer().getDescription(), is("2"));
+        Assert.assertThat(results.get(2).getError(), is("Source Account does not have sufficient fund"));
+        Assert.assertThat(accountDao.getAccountById(first).getBalance().getAmount(), comparesEqualTo(BigDecimal.ZERO));
+        Assert.assertThat(accountDao.getAccountById(third).getBalance().getAmount(),
+                comparesEqualTo(BigDecimal.valueOf(250)));
+        Assert.assertThat(transferDao.getAllTransfers().size(), is(2));
+    }
+
+    @Test
+    public void testFailedJournalMovesTheMoneyBack() throws Exception {
+        final Path path = Files.createTempFile("journal", ".log");
+        try {
+            final FileJournal journal = new FileJournal(path, true);
+            setUp(AccountDaoImpl.builder(new InMemoryAccountStore()).journal(journal).build());
+            final long first = accounts.get(0).getAccountId();
+            final long second = accounts.get(1).getAccountId();
+            journal.close();
+
+            try {
+                transferDao.newMoneyTransfer(
+                        new MoneyTransfer(first, second, new Money(BigDecimal.TEN, Currency.EUR), "lost"));
+                Assert.fail("Transfer without a journal");
+            } catch (UncheckedIOException expected) {
+                // expected
+            }
+
+            Assert.assertThat(accountDao.getAccountById(first).getBalance().getAmount(),
+                    comparesEqualTo(INITIAL_BALANCE));
+            Assert.assertThat(accountDao.getAccountById(second).getBalance().getAmount(),
+                    comparesEqualTo(INITIAL_BALANCE));
+            Assert.assertThat(transferDao.getAllTransfers().size(), is(0));
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    public void testJournalFailureFailsTheBatchInsteadOfRejecting() throws Exception {
+        final Path path = Files.createTempFile("journal", ".log");
+        try {
+            final FileJournal journal = new FileJournal(path, true);
+            setUp(AccountDaoImpl.builder(new InMemoryAccountStore()).journal(journal).build());
+            final long first = accounts.get(0).getAccountId();
+            final long second = accounts.get(1).getAccountId();
+            journal.close();
+
+            try {
+                transferDao.newMoneyTransfers(Arrays.asList(
+                        new MoneyTransfer(first, second, new Money(BigDecimal.TEN, Currency.EUR), "1"),
+                        new MoneyTransfer(second, first, new Money(BigDecimal.ONE, Currency.EUR), "2")));
+                Assert.fail("Batch without a journal");
+            } catch (UncheckedIOException expected) {
+                // expected
+            }
+
+            Assert.assertThat(accountDao.getAccountById(first).getBalance().getAmount(),
+                    comparesEqualTo(INITIAL_BALANCE));
+            Assert.assertThat(transferDao.getAllTransfers().size(), is(0));
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    public void testTransferPagesAreNewestFirstAndTheLastHasNoCursor() throws Exception {
+        setUp(BalanceUpdateMode.LOCKING);
+        transfer(0, 5);
+
+        final Page<MoneyTransfer> first = transferDao.getTransfers(null, 2);
+        final Page<MoneyTransfer> second = transferDao.getTransfers(first.getNextCursor(), 2);
+        final Page<MoneyTransfer> last = transferDao.getTransfers(second.getNextCursor(), 2);
+
+        Assert.assertThat(descriptions(first), is(Arrays.asList("4", "3")));
+        Assert.assertThat(descriptions(second), is(Arrays.asList("2", "1")));
+        Assert.assertThat(descriptions(last), is(Collections.singletonList("0")));
+        Assert.assertThat(last.getNextCursor(), nullValue());
+        // a page that ends exactly at the oldest transfer has no cursor either
+        Assert.assertThat(transferDao.getTransfers(null, 5).getNextCursor(), nullValue());
+        Assert.assertThat(transferDao.getTransfersByAccount(accounts.get(0).getAccountId(), null, 5)
+                .getNextCursor(), nullValue());
+    }
+
+    @Test
+    public void testTransferCursorIsStableWhileTransfersAreInserted() throws Exception {
+        setUp(BalanceUpdateMode.LOCKING);
+        final long account = accounts.get(0).getAccountId();
+        transfer(0, 4);
+        final Page<MoneyTransfer> first = transferDao.getTransfers(null, 2);
+        final Page<MoneyTransfer> firstOfAccount = transferDao.getTransfersByAccount(account, null, 2);
+
+        transfer(4, 3);
+
+        final Page<MoneyTransfer> second = transferDao.getTransfers(first.getNextCursor(), 2);
+        Assert.assertThat(descriptions(second), is(Arrays.asList("1", "0")));
+        Assert.assertThat(second.getNextCursor(), nullValue());
+        final Page<MoneyTransfer> secondOfAccount =
+                transferDao.getTransfersByAccount(account, firstOfAccount.getNextCursor(), 2);
+        Assert.assertThat(descriptions(secondOfAccount), is(Arrays.asList("1", "0")));
+        Assert.assertThat(secondOfAccount.getNextCursor(), nullValue());
+    }
+
+    @Test
+    public void testInvalidTransferCursorOrLimitIsRejected() throws Exception {
+        setUp(BalanceUpdateMode.LOCKING);
+        transfer(0, 2);
+        final long account = accounts.get(0).getAccountId();
+        for (String cursor : Arrays.asList("not a cursor", Cursors.encode(1, 2), Cursors.encode(3),
+                Cursors.encode(-1))) {
+            try {
+                transferDao.getTransfers(cursor, 2);
+                Assert.fail("invalid cursor " + cursor);
+            } catch (IllegalArgumentException expected) {
+                // expected
+            }
+            try {
+                transferDao.getTransfersByAccount(account, cursor, 2);
+                Assert.fail("invalid cursor " + cursor);
+            } catch (IllegalArgumentException expected) {
+                // expected
+            }
+        }
+        for (int limit : new int[]{0, -1, Page.MAX_LIMIT + 1}) {
+            try {
+                transferDao.getTransfers(null, limit);
+                Assert.fail("invalid limit " + limit);
+            } catch (IllegalArgumentException expected) {
+                // expected
+            }
+        }
+    }
+
+    /**
+     * Transfers one unit from the first account to the second, described by their sequence number.
+     */
+    private void transfer(final int from, final int count) throws Exception {
+        for (int i = from; i < from + count; i++)
+            transferDao.newMoneyTransfer(new MoneyTransfer(accounts.get(0).getAccountId(),
+                    accounts.get(1).getAccountId(), new Money(BigDecimal.ONE, Currency.EUR), String.valueOf(i)));
+    }
+
+    private static List<String> descriptions(final Page<MoneyTransfer> page) {
+        return page.getItems().stream().map(MoneyTransfer::getDescription).collect(Collectors.toList());
+    }
+
+    private void setUp(final BalanceUpdateMode mode) {
+        setUp(AccountDaoImpl.builder(new InMemoryAccountStore()).balanceUpdateMode(mode).build());
+    }
+
+    private void setUp(final AccountDaoImpl accountDao) {
+        this.accountDao = accountDao;
+        transferDao = new MoneyTransferDaoImpl(new ArrayList<>(), accountDao);
+        for (int i = 0; i < ACCOUNTS; i++)
+            accounts.add(accountDao.insertNewAccount(
+                    new Account(new User("Revolut" + i), new Money(INITIAL_BALANCE, Currency.EUR))));
+    }
+
+    private void runRandomTransfersAndVerifyTotal() throws Exception {
+        final int threads = 8;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                final ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 2000; i++) {
+                    final long source = accounts.get(random.nextInt(ACCOUNTS)).getAccountId();
+                    final long destination = accounts.get(random.nextInt(ACCOUNTS)).getAccountId();
+                    try {
+                        transferDao.newMoneyTransfer(new MoneyTransfer(source, destination,
+                                new Money(BigDecimal.valueOf(random.nextInt(1, 30)), Currency.EUR), "stress"));
+                    } catch (MoneyTransferWebServiceException ex) {
+                        // same account or insufficient fund, both expected here
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures)
+            future.get();
+        executor.shutdown();
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (Account account : accounts) {
+            final BigDecimal balance = accountDao.getAccountById(account.getAccountId()).getBalance().getAmount();
+            Assert.assertThat(balance, greaterThanOrEqualTo(BigDecimal.ZERO));
+            total = total.add(balance);
+        }
+        Assert.assertThat(total, comparesEqualTo(INITIAL_BALANCE.multiply(BigDecimal.valueOf(ACCOUNTS))));
+    }
+}
@@ -0,0 +1,90 @@
+package org.revolut.moneytransfer.service.account;
+
+import com.google.common.collect.Lists;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.revolut.moneytransfer.domain.Account;
+import org.revolut.moneytransfer.domain.AccountStatus;
+import org.revolut.moneytransfer.domain.Currency;
+import org.revolut.moneytransfer.domain.Money;
+import org.revolut.moneytransfer.domain.User;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ */
+public class MappedAccountStoreTest {
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("accounts");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testAccountsSurviveReopen() throws Exception {
+        try (MappedAccountStore accounts = new MappedAccountStore(directory)) {
+            accounts.put(account(1, "alice", 10000, Currency.EUR));
+            accounts.put(account(2, "bob", 250, Currency.GBP));
+
+            final Account bob = accounts.get(2);
+            bob.getBalance().credit(50);
+            bob.setStatus(AccountStatus.INACTIVE);
+            accounts.put(bob);
+        }
+
+        try (MappedAccountStore accounts = new MappedAccountStore(directory)) {
+            Assert.assertThat(accounts.size(), is(2L));
+            Assert.assertThat(accounts.maxAccountId(), is(2L));
+            Assert.assertThat(accounts.get(1).getAccountHolder().getName(), is("alice"));
+            Assert.assertThat(accounts.get(1).getBalance().getMinorUnits(), is(10000L));
+            Assert.assertThat(accounts.get(2).getBalance().getMinorUnits(), is(300L));
+            Assert.assertThat(accounts.get(2).getBalance().getCurrency(), is(Currency.GBP));
+            Assert.assertThat(accounts.get(2).getStatus(), is(AccountStatus.INACTIVE));
+            Assert.assertThat(accounts.get(3), nullValue());
+        }
+    }
+
+    @Test
+    public void testDescendingSkipsFreeRecords() throws Exception {
+        try (MappedAccountStore accounts = new MappedAccountStore(directory)) {
+            accounts.put(account(1, "a", 1, Currency.EUR));
+            accounts.put(account(3, "c", 1, Currency.EUR));
+            accounts.put(account(4, "d", 1, Currency.EUR));
+
+            Assert.assertThat(ids(accounts.descendingFrom(Long.MAX_VALUE)), contains(4L, 3L, 1L));
+            Assert.assertThat(ids(accounts.descendingFrom(3)), contains(1L));
+        }
+    }
+
+    private static Iterable<Long> ids(final Iterable<Account> accounts) {
+        return Lists.newArrayList(accounts).stream().map(Account::getAccountId).collect(Collectors.toList());
+    }
+
+    private static Account account(final long accountId, final String name, final long balance,
+                                   final Currency currency) {
+        final Account account = new Account(new User(name), new Money(balance, currency));
+        account.setAccountId(accountId);
+        return account;
+    }
+}
@@ -0,0 +1,134 @@
+package org.revolut.moneytransfer.service.account;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.revolut.moneytransfer.domain.Account;
+import org.revolut.moneytransfer.domain.Currency;
+import org.revolut.moneytransfer.domain.Money;
+import org.revolut.moneytransfer.domain.User;
+import org.revolut.moneytransfer.service.ledger.PostingLedger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ */
+public class ShardedMoneyTest {
+
+    @Test
+    public void testConcurrentCreditsAndDebitsAddUp() throws Exception {
+        final ShardedMoney balance = new ShardedMoney(new Money(1000, Currency.EUR), 4);
+        final AtomicLong debited = new AtomicLong();
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            final boolean debitor = t % 2 == 0;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    if (!debitor)
+                        balance.credit(3);
+                    else if (balance.debit(5))
+                        debited.addAndGet(5);
+                    Assert.assertThat(balance.getMinorUnits(), greaterThanOrEqualTo(0L));
+                }
+            }));
+        }
+        for (Future<?> future : futures)
+            future.get();
+        executor.shutdown();
+
+        Assert.assertThat(balance.getMinorUnits(), is(1000 + 4 * 100_000 * 3 - debited.get()));
+    }
+
+    @Test(timeout = 60_000)
+    public void testReadsNeverMissAFoldedCredit() throws Exception {
+        final ShardedMoney balance = new ShardedMoney(new Money(0, Currency.EUR), 4);
+        final ExecutorService executor = Executors.newFixedThreadPool(6);
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 6; t++) {
+            final int role = t % 3;
+            futures.add(executor.submit(() -> {
+                long last = 0;
+                for (int i = 0; i < 1_000_000; i++) {
+                    if (role == 0) {
+                        balance.credit(1);
+                    } else if (role == 1) {
+                        // debits nothing, but folds the cells into the base
+                        Assert.assertThat(balance.debit(0), is(true));
+                    } else {
+                        // with credits only, a lower read means a fold was seen half done
+                        final long read = balance.getMinorUnits();
+                        Assert.assertThat(read, greaterThanOrEqualTo(last));
+                        last = read;
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures)
+            future.get();
+        executor.shutdown();
+
+        Assert.assertThat(balance.getMinorUnits(), is(2 * 1_000_000L));
+    }
+
+    @Test
+    public void testCreditsCannotWrapTheBalance() {
+        final ShardedMoney balance = new ShardedMoney(new Money(Long.MAX_VALUE / 2 - 10, Currency.EUR), 2);
+        balance.credit(10);
+        try {
+            balance.credit(Long.MAX_VALUE / 2);
+            Assert.fail("credit should overflow");
+        } catch (ArithmeticException ex) {
+            // expected
+        }
+        for (int i = 0; i < 1000; i++) {
+            try {
+                balance.credit(Long.MAX_VALUE / 64);
+            } catch (ArithmeticException ex) {
+                // the cells are full
+            }
+        }
+        Assert.assertThat(balance.getMinorUnits(), greaterThanOrEqualTo(Long.MAX_VALUE / 2));
+        Assert.assertThat(balance.debit(Long.MAX_VALUE / 2), is(true));
+    }
+
+    @Test
+    public void testResetClearsTheCells() {
+        final ShardedMoney balance = new ShardedMoney(new Money(1000, Currency.EUR), 4);
+        balance.credit(300);
+        balance.reset(50);
+        Assert.assertThat(balance.getMinorUnits(), is(50L));
+        try {
+            balance.reset(-1);
+            Assert.fail("negative balance");
+        } catch (IllegalArgumentException ex) {
+            // expected
+        }
+        Assert.assertThat(balance.getMinorUnits(), is(50L));
+    }
+
+    @Test
+    public void testLedgerDaoShardsHotAccounts() throws Exception {
+        final AccountStore accounts = new InMemoryAccountStore();
+        final AccountDaoImpl accountDao = AccountDaoImpl.builder(accounts)
+                .ledger(new PostingLedger(accounts, 2))
+                .hotAccounts(Collections.singleton(1L))
+                .build();
+        final Account hot = accountDao.insertNewAccount(new Account(new User("Hot"), new Money(10, Currency.EUR)));
+        final Account cold = accountDao.insertNewAccount(new Account(new User("Cold"), new Money(10, Currency.EUR)));
+
+        Assert.assertThat(hot.getAccountId(), is(1L));
+        Assert.assertThat(accounts.get(hot.getAccountId()).getBalance() instanceof ShardedMoney, is(true));
+        Assert.assertThat(accounts.get(cold.getAccountId()).getBalance() instanceof ShardedMoney, is(false));
+    }
+}
@@ -0,0 +1,131 @@
+package org.revolut.moneytransfer.service.fx;
+
+import com.google.common.collect.Lists;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.revolut.moneytransfer.domain.Account;
+import org.revolut.moneytransfer.domain.Currency;
+import org.revolut.moneytransfer.domain.Money;
+import org.revolut.moneytransfer.domain.MoneyTransfer;
+import org.revolut.moneytransfer.domain.User;
+import org.revolut.moneytransfer.exception.MoneyTransferWebServiceException;
+import org.revolut.moneytransfer.service.account.AccountDaoImpl;
+import org.revolut.moneytransfer.service.account.AccountPartitions;
+import org.revolut.moneytransfer.service.account.InMemoryAccountStore;
+import org.revolut.moneytransfer.service.transfer.MoneyTransferDaoImpl;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ */
+public class FxRateTableTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testConvertRoundsDownAndNeedsARate() {
+        final FxRates rates = FxRates.parse(Arrays.asList("# EUR base", "", "EUR,GBP,0.861234", "GBP, EUR, 1.1611"));
+
+        Assert.assertThat(rates.rate(Currency.EUR, Currency.GBP), is(861_234L));
+        Assert.assertThat(rates.convert(10_000, Currency.EUR, Currency.GBP), is(8_612L));
+        Assert.assertThat(rates.convert(8_612, Currency.GBP, Currency.EUR), is(9_999L));
+        Assert.assertThat(rates.convert(500, Currency.USD, Currency.USD), is(500L));
+        Assert.assertThat(rates.convert(500, Currency.EUR, Currency.USD), is(FxRates.NO_RATE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMalformedLineIsRejected() {
+        FxRates.parse(Arrays.asList("EUR,GBP"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRateRoundingToZeroIsRejected() {
+        FxRates.parse(Arrays.asList("EUR,GBP,0.0000004"));
+    }
+
+    @Test
+    public void testConvertLargeAmountsWithoutOverflow() {
+        final FxRates rates = FxRates.parse(Arrays.asList("EUR,GBP,0.5", "GBP,EUR,2"));
+
+        Assert.assertThat(rates.convert(Long.MAX_VALUE, Currency.EUR, Currency.GBP), is(Long.MAX_VALUE / 2));
+        Assert.assertThat(rates.convert(10_000_000_000_000L, Currency.GBP, Currency.EUR), is(20_000_000_000_000L));
+        try {
+            rates.convert(Long.MAX_VALUE / 2 + 1, Currency.GBP, Currency.EUR);
+            Assert.fail("converted amount does not fit a long");
+        } catch (ArithmeticException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testReloadSwapsTheTableOnlyWhenTheFileIsValid() throws Exception {
+        final Path file = write(folder.newFile().toPath(), "EUR,GBP,0.5", 1);
+        final FxRateTable table = FxRateTable.load(file);
+        Assert.assertThat(table.current().convert(100, Currency.EUR, Currency.GBP), is(50L));
+
+        write(file, "EUR,GBP,0.25", 2);
+        table.reload();
+        Assert.assertThat(table.current().convert(100, Currency.EUR, Currency.GBP), is(25L));
+
+        write(file, "EUR,GBP,-1", 3);
+        try {
+            table.reload();
+            Assert.fail("negative rate");
+        } catch (IllegalArgumentException ex) {
+            // expected
+        }
+        Assert.assertThat(table.current().convert(100, Currency.EUR, Currency.GBP), is(25L));
+    }
+
+    @Test
+    public void testCrossCurrencyTransferCreditsTheConvertedAmount() throws Exception {
+        final FxRateTable rates = FxRateTable.load(write(folder.newFile().toPath(), "EUR,GBP,0.861234", 1));
+        try (AccountPartitions partitions = new AccountPartitions(4)) {
+            for (AccountDaoImpl accountDao : Arrays.asList(
+                    AccountDaoImpl.builder(new InMemoryAccountStore()).build(),
+                    AccountDaoImpl.builder(new InMemoryAccountStore()).accountPartitions(partitions).build())) {
+                final MoneyTransferDaoImpl transferDao = new MoneyTransferDaoImpl(Lists.newArrayList(), accountDao, rates);
+                final long euro = accountDao.insertNewAccount(account(Currency.EUR)).getAccountId();
+                final long pound = accountDao.insertNewAccount(account(Currency.GBP)).getAccountId();
+
+                final MoneyTransfer transfer = transferDao.newMoneyTransfer(
+                        new MoneyTransfer(euro, pound, new Money(2_500, Currency.EUR), "fx"));
+
+                Assert.assertThat(transfer.getDestinationAmount(), is(new Money(2_153, Currency.GBP)));
+                Assert.assertThat(accountDao.getAccountById(euro).getBalance().getMinorUnits(), is(7_500L));
+                Assert.assertThat(accountDao.getAccountById(pound).getBalance().getMinorUnits(), is(12_153L));
+                try {
+                    transferDao.newMoneyTransfer(new MoneyTransfer(pound, euro, new Money(100, Currency.GBP), "no rate"));
+                    Assert.fail("no GBP to EUR rate");
+                } catch (MoneyTransferWebServiceException ex) {
+                    Assert.assertThat(ex.getMessage(), is("Source and Destination account have different Currency"));
+                }
+            }
+        }
+    }
+
+    private static Account account(final Currency currency) {
+        return new Account(new User(currency.name()), new Money(10_000, currency));
+    }
+
+    /**
+     * Each version gets its own modification time, a rewrite within the same clock tick would look unchanged.
+     */
+    private static Path write(final Path file, final String content, final int version) throws IOException {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(version * 1000L));
+        return file;
+    }
+}
@@ -0,0 +1,94 @@
+package org.revolut.moneytransfer.service.jdbc;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.revolut.moneytransfer.domain.Account;
+import org.revolut.moneytransfer.domain.Currency;
+import org.revolut.moneytransfer.domain.Money;
+import org.revolut.moneytransfer.domain.MoneyTransfer;
+import org.revolut.moneytransfer.domain.Page;
+import org.revolut.moneytransfer.domain.User;
+import org.revolut.moneytransfer.exception.MoneyTransferWebServiceException;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ */
+public class JdbcMoneyTransferDaoTest {
+
+    private H2Database database;
+    private JdbcAccountDao accountDao;
+    private JdbcMoneyTransferDao transferDao;
+    private long first;
+    private long second;
+    private long third;
+
+    @Before
+    public void setUp() {
+        database = new H2Database("jdbc:h2:mem:" + UUID.randomUUID(), 4);
+        accountDao = new JdbcAccountDao(database);
+        transferDao = new JdbcMoneyTransferDao(database);
+        final List<Account> accounts = accountDao.insertNewAccounts(Arrays.asList(
+                account("first"), account("second"), account("third")));
+        first = accounts.get(0).getAccountId();
+        second = accounts.get(1).getAccountId();
+        third = accounts.get(2).getAccountId();
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+    }
+
+    @Test
+    public void testTransferMovesBothBalances() throws Exception {
+        transferDao.newMoneyTransfer(new MoneyTransfer(first, second, new Money(2500, Currency.EUR), "rent"));
+
+        Assert.assertThat(accountDao.getAccountById(first).getBalance().getMinorUnits(), is(7500L));
+        Assert.assertThat(accountDao.getAccountById(second).getBalance().getMinorUnits(), is(12500L));
+        Assert.assertThat(transferDao.getAllTransfers().get(0).getDescription(), is("rent"));
+    }
+
+    @Test
+    public void testRejectedTransferChangesNothing() throws Exception {
+        try {
+            transferDao.newMoneyTransfer(new MoneyTransfer(first, second, new Money(10001, Currency.EUR), "too much"));
+            Assert.fail();
+        } catch (MoneyTransferWebServiceException ex) {
+            Assert.assertThat(ex.getMessage(), is("Source Account does not have sufficient fund"));
+        }
+
+        Assert.assertThat(accountDao.getAccountById(first).getBalance().getMinorUnits(), is(10000L));
+        Assert.assertThat(accountDao.getAccountById(second).getBalance().getMinorUnits(), is(10000L));
+        Assert.assertThat(transferDao.getAllTransfers().size(), is(0));
+    }
+
+    @Test
+    public void testAccountPagesContainBothLegsNewestFirst() throws Exception {
+        transferDao.newMoneyTransfer(new MoneyTransfer(first, second, new Money(100, Currency.EUR), "1"));
+        transferDao.newMoneyTransfer(new MoneyTransfer(second, third, new Money(100, Currency.EUR), "2"));
+        transferDao.newMoneyTransfer(new MoneyTransfer(third, second, new Money(100, Currency.EUR), "3"));
+
+        final Page<MoneyTransfer> page = transferDao.getTransfersByAccount(second, null, 2);
+        Assert.assertThat(page.getItems().get(0).getDescription(), is("3"));
+        Assert.assertThat(page.getItems().get(1).getDescription(), is("2"));
+
+        final Page<MoneyTransfer> last = transferDao.getTransfersByAccount(second, page.getNextCursor(), 2);
+        Assert.assertThat(last.getItems().size(), is(1));
+        Assert.assertThat(last.getItems().get(0).getDescription(), is("1"));
+        Assert.assertThat(last.getNextCursor(), nullValue());
+    }
+
+    private static Account account(final String name) {
+        return new Account(new User(name), new Money(10000, Currency.EUR));
+    }
+}
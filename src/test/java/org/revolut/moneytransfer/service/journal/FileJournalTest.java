@@ -0,0 +1,125 @@
+package org.revolut.moneytransfer.service.journal;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.revolut.moneytransfer.domain.AccountStatus;
+import org.revolut.moneytransfer.domain.Currency;
+
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ */
+public class FileJournalTest {
+
+    private Path path;
+
+    @Before
+    public void setUp() throws Exception {
+        path = Files.createTempFile("journal", ".log");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(path);
+    }
+
+    @Test
+    public void testRecordsSurviveReopen() throws Exception {
+        final AccountRecord account = new AccountRecord(1, "Revolut", AccountStatus.ACTIVE, Currency.EUR, 10000, 42);
+        final BalanceRecord balance = new BalanceRecord(1, 5000);
+        final TransferRecord transfer = new TransferRecord("id", 1, 2, Currency.EUR, 100, 43, null, 4900, 100);
+
+        try (Journal journal = new FileJournal(path, true)) {
+            journal.append(account);
+            journal.append(balance);
+            journal.awaitDurable(journal.append(transfer));
+        }
+
+        Assert.assertThat(replay(), contains(account, balance, transfer));
+    }
+
+    @Test
+    public void testFailedWriteRefusesLaterRecords() throws Exception {
+        final FileJournal journal = new FileJournal(path, true);
+        journal.checkWritable();
+        journal.close();
+
+        try {
+            journal.append(new BalanceRecord(1, 5000));
+            Assert.fail("Append to a closed journal");
+        } catch (UncheckedIOException expected) {
+            // expected
+        }
+        try {
+            journal.checkWritable();
+            Assert.fail("Failed journal still writable");
+        } catch (UncheckedIOException expected) {
+            Assert.assertThat(expected.getCause() instanceof ClosedChannelException, is(true));
+        }
+    }
+
+    @Test
+    public void testTornTailIsDropped() throws Exception {
+        final BalanceRecord balance = new BalanceRecord(1, 5000);
+        try (Journal journal = new FileJournal(path, false)) {
+            journal.append(balance);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 40, 1, 2}));
+        }
+
+        Assert.assertThat(replay(), contains(balance));
+        try (Journal journal = new FileJournal(path, false)) {
+            journal.append(new BalanceRecord(1, 6000));
+        }
+        Assert.assertThat(replay().size(), is(2));
+    }
+
+    @Test
+    public void testConcurrentWritersAreAllDurable() throws Exception {
+        final int threads = 8;
+        final int recordsPerThread = 200;
+        try (Journal journal = new FileJournal(path, true)) {
+            final ExecutorService executor = Executors.newFixedThreadPool(threads);
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final long accountId = t;
+                futures.add(executor.submit(() -> {
+                    for (long i = 0; i < recordsPerThread; i++)
+                        journal.awaitDurable(journal.append(new BalanceRecord(accountId, i)));
+                }));
+            }
+            for (Future<?> future : futures)
+                future.get();
+            executor.shutdown();
+        }
+
+        Assert.assertThat(replay().size(), is(threads * recordsPerThread));
+    }
+
+    private List<JournalRecord> replay() throws Exception {
+        final List<JournalRecord> records = new ArrayList<>();
+        try (Journal journal = new FileJournal(path, true)) {
+            journal.replay(records::add);
+        }
+        return records;
+    }
+}
@@ -0,0 +1,153 @@
+package org.revolut.moneytransfer.service.journal;
+
+import org.joda.time.DateTime;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.revolut.moneytransfer.domain.Account;
+import org.revolut.moneytransfer.domain.AccountStatus;
+import org.revolut.moneytransfer.domain.Currency;
+import org.revolut.moneytransfer.domain.Money;
+import org.revolut.moneytransfer.domain.MoneyTransfer;
+import org.revolut.moneytransfer.domain.User;
+import org.revolut.moneytransfer.service.account.AccountLocks;
+import org.revolut.moneytransfer.service.account.InMemoryAccountStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ */
+public class SnapshotStoreTest {
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("snapshots");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testNoSnapshotStartsFromTheBeginning() throws Exception {
+        Assert.assertThat(new SnapshotStore(directory).loadLatest(new JournalReplay()), is(0L));
+    }
+
+    @Test
+    public void testJournalTailOverlappingTheSnapshot() throws Exception {
+        final InMemoryAccountStore accounts = new InMemoryAccountStore();
+        accounts.put(account(1, 9000));
+        accounts.put(account(2, 1000));
+        final MoneyTransfer transfer = new MoneyTransfer(1, 2, new Money(1000, Currency.EUR), "overlap");
+        transfer.setTransferId(UUID.randomUUID().toString());
+        transfer.setTransferDate(DateTime.now());
+
+        try (Journal journal = new FileJournal(directory.resolve("journal.log"), true)) {
+            journal.append(AccountRecord.of(account(1, 10000)));
+            journal.append(AccountRecord.of(account(2, 0)));
+            final long snapshotPosition = journal.position();
+            // the transfer is already applied in memory when the snapshot is taken, its record follows
+            new SnapshotStore(directory).write(snapshotPosition, accounts, new AccountLocks(),
+                    () -> Collections.singletonList(transfer), journal);
+            journal.append(TransferRecord.of(transfer, 9000, 1000));
+            journal.awaitDurable(journal.append(new BalanceRecord(2, 1500)));
+        }
+
+        final JournalReplay replay = new JournalReplay();
+        try (Journal journal = new FileJournal(directory.resolve("journal.log"), true)) {
+            replay.replayTail(journal, new SnapshotStore(directory).loadLatest(replay));
+        }
+
+        Assert.assertThat(replay.getAccounts().size(), is(2L));
+        Assert.assertThat(replay.getAccounts().get(1).getBalance().getMinorUnits(), is(9000L));
+        Assert.assertThat(replay.getAccounts().get(2).getBalance().getMinorUnits(), is(1500L));
+        Assert.assertThat(replay.getTransfers().size(), is(1));
+        Assert.assertThat(replay.getTransfers().get(0).getTransferId(), is(transfer.getTransferId()));
+    }
+
+    @Test
+    public void testSnapshotIsRenamedOnlyOnceTheDumpIsDurable() throws Exception {
+        final List<String> events = new ArrayList<>();
+        final InMemoryAccountStore accounts = new InMemoryAccountStore() {
+            @Override
+            public Account get(final long accountId) {
+                events.add("account " + accountId);
+                return super.get(accountId);
+            }
+        };
+        accounts.put(account(1, 9000));
+        final Journal journal = new Journal() {
+            @Override
+            public long append(final JournalRecord record) {
+                return 0;
+            }
+
+            @Override
+            public void checkWritable() {
+            }
+
+            @Override
+            public void awaitDurable(final long position) {
+                events.add("durable " + position + " " + snapshotCount());
+            }
+
+            @Override
+            public long position() {
+                // a record appended while the accounts were dumped
+                return 99;
+            }
+
+            @Override
+            public void replay(final long from, final Consumer<JournalRecord> consumer) {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        new SnapshotStore(directory).write(42, accounts, new AccountLocks(), () -> {
+            events.add("transfers");
+            return Collections.emptyList();
+        }, journal);
+
+        Assert.assertThat(events, is(Arrays.asList("account 1", "transfers", "durable 99 0")));
+        Assert.assertThat(snapshotCount(), is(1L));
+    }
+
+    private long snapshotCount() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".bin")).count();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static Account account(final long accountId, final long balance) {
+        final Account account = new Account(new User("Revolut" + accountId), new Money(balance, Currency.EUR));
+        account.setAccountId(accountId);
+        account.setStatus(AccountStatus.ACTIVE);
+        return account;
+    }
+}
@@ -0,0 +1,54 @@
+package org.revolut.moneytransfer.service.ledger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.OptionalLong;
+
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ */
+public class AccountHistoryTest {
+
+    @Test
+    public void testBalanceAtAnyTimeAcrossBlocks() {
+        final AccountHistory history = new AccountHistory(1000, 50);
+        for (int i = 1; i <= 10 * AccountHistory.BLOCK_SIZE; i++)
+            history.record(1000 + i * 10, i % 2 == 0 ? -1 : 2);
+
+        Assert.assertThat(history.balanceAt(999), is(OptionalLong.empty()));
+        Assert.assertThat(history.balanceAt(1000), is(OptionalLong.of(50)));
+        Assert.assertThat(history.balanceAt(1015), is(OptionalLong.of(52)));
+        Assert.assertThat(history.balanceAt(1020), is(OptionalLong.of(51)));
+        // after 129 changes, 65 credits of 2 and 64 debits of 1
+        Assert.assertThat(history.balanceAt(1000 + 129 * 10 + 5), is(OptionalLong.of(50 + 130 - 64)));
+        Assert.assertThat(history.balanceAt(Long.MAX_VALUE), is(OptionalLong.of(50 + 640 - 320)));
+    }
+
+    @Test
+    public void testChangesNeverGoBackInTime() {
+        final AccountHistory history = new AccountHistory(1000, 0);
+        history.record(2000, 5);
+        history.record(1500, 7);
+
+        Assert.assertThat(history.balanceAt(1999), is(OptionalLong.of(0)));
+        Assert.assertThat(history.balanceAt(2000), is(OptionalLong.of(12)));
+    }
+
+    @Test
+    public void testTrimKeepsTheAnswerForLaterTimes() {
+        final AccountHistory history = new AccountHistory(0, 0);
+        for (int i = 1; i <= 5 * AccountHistory.BLOCK_SIZE; i++)
+            history.record(i, 1);
+
+        history.trim(3 * AccountHistory.BLOCK_SIZE);
+
+        Assert.assertThat(history.balanceAt(2 * AccountHistory.BLOCK_SIZE), is(OptionalLong.empty()));
+        Assert.assertThat(history.balanceAt(3 * AccountHistory.BLOCK_SIZE),
+                is(OptionalLong.of(3 * AccountHistory.BLOCK_SIZE)));
+        Assert.assertThat(history.balanceAt(Long.MAX_VALUE), is(OptionalLong.of(5 * AccountHistory.BLOCK_SIZE)));
+    }
+}
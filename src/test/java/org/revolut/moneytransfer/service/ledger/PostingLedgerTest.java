@@ -0,0 +1,178 @@
+package org.revolut.moneytransfer.service.ledger;
+
+import com.google.common.collect.Lists;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.joda.time.DateTime;
+import org.junit.Test;
+import org.revolut.moneytransfer.domain.Account;
+import org.revolut.moneytransfer.domain.AccountStatus;
+import org.revolut.moneytransfer.domain.Currency;
+import org.revolut.moneytransfer.domain.Money;
+import org.revolut.moneytransfer.domain.MoneyTransfer;
+import org.revolut.moneytransfer.domain.User;
+import org.revolut.moneytransfer.domain.request.AccountBalanceRequest;
+import org.revolut.moneytransfer.domain.request.AccountStatusRequest;
+import org.revolut.moneytransfer.exception.AccountNotFoundException;
+import org.revolut.moneytransfer.service.account.AccountDaoImpl;
+import org.revolut.moneytransfer.service.account.AccountStore;
+import org.revolut.moneytransfer.service.account.InMemoryAccountStore;
+import org.revolut.moneytransfer.service.fx.FxRateTable;
+import org.revolut.moneytransfer.service.transfer.MoneyTransferDaoImpl;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ */
+public class PostingLedgerTest {
+
+    private AccountStore accounts;
+    private PostingLedger ledger;
+    private AccountDaoImpl accountDao;
+    private MoneyTransferDaoImpl transferDao;
+    private long first;
+    private long second;
+
+    @Before
+    public void setUp() {
+        accounts = new InMemoryAccountStore();
+        ledger = new PostingLedger(accounts, 2);
+        accountDao = AccountDaoImpl.builder(accounts).ledger(ledger).build();
+        transferDao = new MoneyTransferDaoImpl(Lists.newArrayList(), accountDao);
+        first = accountDao.insertNewAccount(account("first", 10000)).getAccountId();
+        second = accountDao.insertNewAccount(account("second", 500)).getAccountId();
+    }
+
+    @After
+    public void tearDown() {
+        ledger.close();
+    }
+
+    @Test
+    public void testEveryBalanceChangeIsPosted() throws Exception {
+        final MoneyTransfer transfer = transferDao.newMoneyTransfer(
+                new MoneyTransfer(first, second, new Money(2500, Currency.EUR), "rent"));
+        accountDao.updateAccountBalance(new AccountBalanceRequest(second, new Money(100, Currency.EUR)), true);
+        accountDao.updateAccountBalance(new AccountBalanceRequest(first, new Money(300, Currency.EUR)), false);
+
+        Assert.assertThat(ledger.balance(first), is(7200L));
+        Assert.assertThat(ledger.balance(second), is(3100L));
+        Assert.assertThat(ledger.balance(Ledger.externalAccount(Currency.EUR)), is(-10300L));
+        Assert.assertThat(ledger.postings(first).size(), is(3));
+        Assert.assertThat(ledger.postings(first).get(1).getEntryId(), is(transfer.getTransferId()));
+        Assert.assertThat(ledger.postings(first).get(1).getAmount(), is(-2500L));
+        Assert.assertThat(ledger.postings(second).get(1).getAmount(), is(2500L));
+        Assert.assertThat(ledger.audit(accounts), is(empty()));
+    }
+
+    @Test
+    public void testCheckpointKeepsOnlyTheNewestPostings() throws Exception {
+        for (int i = 0; i < 10; i++)
+            transferDao.newMoneyTransfer(new MoneyTransfer(first, second, new Money(100, Currency.EUR), "" + i));
+
+        ledger.checkpoint();
+
+        Assert.assertThat(ledger.size(), is(2L));
+        Assert.assertThat(ledger.postings(second).size(), is(1));
+        Assert.assertThat(ledger.balance(first), is(9000L));
+        Assert.assertThat(ledger.balance(second), is(1500L));
+        Assert.assertThat(ledger.audit(accounts), is(empty()));
+    }
+
+    @Test
+    public void testAuditFindsAnUnpostedChange() {
+        ledger.checkpoint();
+        accounts.get(first).getBalance().credit(1);
+
+        Assert.assertThat(ledger.audit(accounts), is(Lists.newArrayList(first)));
+    }
+
+    @Test
+    public void testEveryCurrencyAddsUpOnItsOwn() throws Exception {
+        final Path path = Files.createTempFile("rates", ".csv");
+        try (FxRateTable rates = FxRateTable.load(Files.write(path, Collections.singletonList("EUR,GBP,0.861234")))) {
+            final MoneyTransferDaoImpl fxTransferDao =
+                    new MoneyTransferDaoImpl(Lists.newArrayList(), accountDao, rates);
+            final long pound = accountDao.insertNewAccount(
+                    new Account(new User("pound"), new Money(10000, Currency.GBP))).getAccountId();
+
+            fxTransferDao.newMoneyTransfer(new MoneyTransfer(first, pound, new Money(2500, Currency.EUR), "fx"));
+
+            Assert.assertThat(ledger.balance(Ledger.externalAccount(Currency.EUR)), is(-8000L));
+            Assert.assertThat(ledger.balance(Ledger.externalAccount(Currency.GBP)), is(-12153L));
+            Assert.assertThat(ledger.audit(accounts), is(empty()));
+
+            // euros booked to a pound account still add up overall, but not per currency
+            ledger.post("mixed", Ledger.externalAccount(Currency.EUR), pound, 100);
+            accounts.get(pound).getBalance().credit(100);
+            Assert.assertThat(ledger.audit(accounts), is(Lists.newArrayList(
+                    Ledger.externalAccount(Currency.EUR), Ledger.externalAccount(Currency.GBP))));
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test
+    public void testBalanceAtIncludesCreditsAndDebits() throws Exception {
+        final DateTime beforeChanges = DateTime.now();
+        Thread.sleep(2);
+        transferDao.newMoneyTransfer(new MoneyTransfer(first, second, new Money(2500, Currency.EUR), "rent"));
+        accountDao.updateAccountBalance(new AccountBalanceRequest(first, new Money(300, Currency.EUR)), false);
+
+        Assert.assertThat(accountDao.getBalanceAt(first, beforeChanges), is(new Money(10000, Currency.EUR)));
+        Assert.assertThat(accountDao.getBalanceAt(first, DateTime.now()), is(new Money(7200, Currency.EUR)));
+        try {
+            accountDao.getBalanceAt(first, beforeChanges.minusDays(1));
+            Assert.fail("account did not exist yet");
+        } catch (AccountNotFoundException ex) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testBalanceAtOfAnInactiveAccount() throws Exception {
+        transferDao.newMoneyTransfer(new MoneyTransfer(first, second, new Money(2500, Currency.EUR), "rent"));
+        final DateTime beforeDeactivation = DateTime.now();
+        Thread.sleep(2);
+        accountDao.updateAccountById(new AccountStatusRequest(first, AccountStatus.INACTIVE));
+
+        Assert.assertThat(accountDao.getBalanceAt(first, beforeDeactivation), is(new Money(7500, Currency.EUR)));
+        try {
+            accountDao.getBalanceAt(Long.MAX_VALUE, beforeDeactivation);
+            Assert.fail("unknown account");
+        } catch (AccountNotFoundException ex) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testOnlyAHistoryLedgerServesBalancesAtATime() {
+        Assert.assertThat(accountDao.keepsBalanceHistory(), is(true));
+        Assert.assertThat(AccountDaoImpl.builder(new InMemoryAccountStore()).build().keepsBalanceHistory(), is(false));
+        Assert.assertThat(NoopLedger.INSTANCE.balanceAt(first, System.currentTimeMillis()).isPresent(), is(false));
+    }
+
+    @Test
+    public void testOpeningBalancesComeFromTheStore() {
+        final PostingLedger reopened = new PostingLedger(accounts, 2);
+        try {
+            Assert.assertThat(reopened.balance(first), is(10000L));
+            Assert.assertThat(reopened.postings(first), is(empty()));
+            Assert.assertThat(reopened.audit(accounts), is(empty()));
+        } finally {
+            reopened.close();
+        }
+    }
+
+    private static Account account(final String name, final long balance) {
+        return new Account(new User(name), new Money(balance, Currency.EUR));
+    }
+}
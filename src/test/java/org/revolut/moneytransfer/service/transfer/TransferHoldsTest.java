@@ -0,0 +1,114 @@
+package org.revolut.moneytransfer.service.transfer;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.revolut.moneytransfer.domain.Account;
+import org.revolut.moneytransfer.domain.Currency;
+import org.revolut.moneytransfer.domain.Money;
+import org.revolut.moneytransfer.domain.MoneyTransfer;
+import org.revolut.moneytransfer.domain.TransferState;
+import org.revolut.moneytransfer.domain.TransferStatus;
+import org.revolut.moneytransfer.domain.User;
+import org.revolut.moneytransfer.domain.request.AccountBalanceRequest;
+import org.revolut.moneytransfer.exception.MoneyTransferWebServiceException;
+import org.revolut.moneytransfer.exception.NegativeBalanceException;
+import org.revolut.moneytransfer.service.account.AccountDaoImpl;
+import org.revolut.moneytransfer.service.account.InMemoryAccountStore;
+
+import java.util.ArrayList;
+
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ */
+public class TransferHoldsTest {
+
+    private AccountDaoImpl accountDao;
+    private MoneyTransferDao transferDao;
+    private TransferHolds holds;
+    private long source;
+    private long destination;
+
+    @Before
+    public void setUp() {
+        accountDao = AccountDaoImpl.builder(new InMemoryAccountStore()).build();
+        transferDao = new MoneyTransferDaoImpl(new ArrayList<>(), accountDao);
+        holds = new TransferHolds(transferDao, 10, 200);
+        source = accountDao.insertNewAccount(account(1000)).getAccountId();
+        destination = accountDao.insertNewAccount(account(0)).getAccountId();
+    }
+
+    @After
+    public void tearDown() {
+        holds.close();
+    }
+
+    @Test
+    public void testHeldMoneyIsOnlyAvailableToTheCapture() throws Exception {
+        final TransferState authorized = holds.authorize(transfer(600));
+
+        Assert.assertThat(authorized.getStatus(), is(TransferStatus.AUTHORIZED));
+        Assert.assertThat(balance(source), is(1000L));
+        Assert.assertThat(accountDao.getAvailableBalance(source).getMinorUnits(), is(400L));
+        try {
+            transferDao.newMoneyTransfer(transfer(500));
+            Assert.fail("only 400 are available");
+        } catch (MoneyTransferWebServiceException ex) {
+            // expected
+        }
+        try {
+            accountDao.updateAccountBalance(new AccountBalanceRequest(source, new Money(500, Currency.EUR)), false);
+            Assert.fail("only 400 are available");
+        } catch (NegativeBalanceException ex) {
+            // expected
+        }
+        try {
+            holds.authorize(transfer(500));
+            Assert.fail("only 400 are available");
+        } catch (MoneyTransferWebServiceException ex) {
+            // expected
+        }
+
+        Assert.assertThat(holds.capture(authorized.getTransferId()).get().getTransferId(),
+                is(authorized.getTransferId()));
+        Assert.assertThat(holds.capture(authorized.getTransferId()).isPresent(), is(false));
+        Assert.assertThat(holds.status(authorized.getTransferId()).get().getStatus(), is(TransferStatus.COMPLETED));
+        Assert.assertThat(balance(source), is(400L));
+        Assert.assertThat(balance(destination), is(600L));
+        Assert.assertThat(accountDao.getAvailableBalance(source).getMinorUnits(), is(400L));
+    }
+
+    @Test(timeout = 10_000)
+    public void testReleasedAndExpiredHoldsGiveTheMoneyBack() throws Exception {
+        final TransferState released = holds.authorize(transfer(300));
+        final TransferState expired = holds.authorize(transfer(200));
+        Assert.assertThat(accountDao.getAvailableBalance(source).getMinorUnits(), is(500L));
+
+        Assert.assertThat(holds.release(released.getTransferId()), is(true));
+        Assert.assertThat(holds.release(released.getTransferId()), is(false));
+        Assert.assertThat(accountDao.getAvailableBalance(source).getMinorUnits(), is(800L));
+
+        while (holds.status(expired.getTransferId()).get().getStatus() != TransferStatus.EXPIRED)
+            Thread.sleep(10);
+        Assert.assertThat(holds.capture(expired.getTransferId()).isPresent(), is(false));
+        Assert.assertThat(holds.size(), is(0));
+        Assert.assertThat(accountDao.getAvailableBalance(source).getMinorUnits(), is(1000L));
+        Assert.assertThat(balance(destination), is(0L));
+    }
+
+    private long balance(final long accountId) throws Exception {
+        return accountDao.getAccountById(accountId).getBalance().getMinorUnits();
+    }
+
+    private MoneyTransfer transfer(final long amount) {
+        return new MoneyTransfer(source, destination, new Money(amount, Currency.EUR), "hold");
+    }
+
+    private static Account account(final long balance) {
+        return new Account(new User("Revolut"), new Money(balance, Currency.EUR));
+    }
+}
@@ -0,0 +1,132 @@
+package org.revolut.moneytransfer.service.transfer;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.revolut.moneytransfer.domain.Account;
+import org.revolut.moneytransfer.domain.Currency;
+import org.revolut.moneytransfer.domain.Money;
+import org.revolut.moneytransfer.domain.MoneyTransfer;
+import org.revolut.moneytransfer.domain.TransferState;
+import org.revolut.moneytransfer.domain.TransferStatus;
+import org.revolut.moneytransfer.domain.User;
+import org.revolut.moneytransfer.service.account.AccountDaoImpl;
+import org.revolut.moneytransfer.service.account.InMemoryAccountStore;
+import org.revolut.moneytransfer.service.journal.FileJournal;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.hamcrest.Matchers.comparesEqualTo;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ */
+public class TransferPipelineTest {
+
+    @Test(timeout = 10_000)
+    public void testQueuedTransfersAreAppliedInOrder() throws Exception {
+        final AccountDaoImpl accountDao = AccountDaoImpl.builder(new InMemoryAccountStore()).build();
+        final MoneyTransferDao transferDao = new MoneyTransferDaoImpl(new ArrayList<>(), accountDao);
+        final long source = accountDao.insertNewAccount(account(100)).getAccountId();
+        final long destination = accountDao.insertNewAccount(account(0)).getAccountId();
+
+        final List<String> transferIds = new ArrayList<>();
+        try (TransferPipeline pipeline = new TransferPipeline(transferDao, 4)) {
+            for (int i = 0; i < 110; i++) {
+                try {
+                    transferIds.add(pipeline.submit(new MoneyTransfer(source, destination,
+                            new Money(BigDecimal.ONE, Currency.EUR), "async")));
+                } catch (RejectedExecutionException ex) {
+                    Thread.sleep(1);
+                    i--;
+                }
+            }
+            pipeline.close();
+
+            final TransferState first = pipeline.status(transferIds.get(0)).get();
+            Assert.assertThat(first.getStatus(), is(TransferStatus.COMPLETED));
+            Assert.assertThat(first.getTransfer().getTransferId(), is(transferIds.get(0)));
+            final TransferState last = pipeline.status(transferIds.get(109)).get();
+            Assert.assertThat(last.getStatus(), is(TransferStatus.REJECTED));
+            Assert.assertThat(last.getError(), is("Source Account does not have sufficient fund"));
+        }
+        Assert.assertThat(accountDao.getAccountById(destination).getBalance().getAmount(),
+                comparesEqualTo(BigDecimal.valueOf(100)));
+        Assert.assertThat(transferDao.getAllTransfers().size(), is(100));
+    }
+
+    @Test(timeout = 10_000)
+    public void testFailedBatchIsNotReportedAsRejected() throws Exception {
+        final Path path = Files.createTempFile("journal", ".log");
+        try {
+            final FileJournal journal = new FileJournal(path, true);
+            final AccountDaoImpl accountDao = AccountDaoImpl.builder(new InMemoryAccountStore()).journal(journal).build();
+            final MoneyTransferDao transferDao = new MoneyTransferDaoImpl(new ArrayList<>(), accountDao);
+            final long source = accountDao.insertNewAccount(account(100)).getAccountId();
+            final long destination = accountDao.insertNewAccount(account(0)).getAccountId();
+            journal.close();
+
+            final String transferId;
+            try (TransferPipeline pipeline = new TransferPipeline(transferDao, 4)) {
+                transferId = pipeline.submit(new MoneyTransfer(source, destination,
+                        new Money(BigDecimal.ONE, Currency.EUR), "async"));
+                pipeline.close();
+                Assert.assertThat(pipeline.status(transferId).get().getStatus(), is(TransferStatus.FAILED));
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test(timeout = 30_000)
+    public void testTransferAcceptedWhileClosingIsProcessed() throws Exception {
+        final AccountDaoImpl accountDao = AccountDaoImpl.builder(new InMemoryAccountStore()).build();
+        final MoneyTransferDao transferDao = new MoneyTransferDaoImpl(new ArrayList<>(), accountDao);
+        final long source = accountDao.insertNewAccount(account(1_000_000)).getAccountId();
+        final long destination = accountDao.insertNewAccount(account(0)).getAccountId();
+
+        for (int round = 0; round < 50; round++) {
+            final TransferPipeline pipeline = new TransferPipeline(transferDao, 1024);
+            final List<String> transferIds = Collections.synchronizedList(new ArrayList<>());
+            final ExecutorService executor = Executors.newFixedThreadPool(4);
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    while (true) {
+                        try {
+                            transferIds.add(pipeline.submit(new MoneyTransfer(source, destination,
+                                    new Money(BigDecimal.ONE, Currency.EUR), "closing")));
+                        } catch (RejectedExecutionException ex) {
+                            if (ex.getMessage().contains("closed"))
+                                return;
+                            Thread.yield();
+                        }
+                    }
+                }));
+            }
+            Thread.sleep(1);
+            pipeline.close();
+            for (Future<?> future : futures)
+                future.get();
+            executor.shutdown();
+
+            // every id handed out was processed before close returned
+            for (String transferId : transferIds)
+                Assert.assertThat(pipeline.status(transferId).get().getStatus(), is(TransferStatus.COMPLETED));
+        }
+    }
+
+    private static Account account(final long balance) {
+        return new Account(new User("Revolut"), new Money(BigDecimal.valueOf(balance), Currency.EUR));
+    }
+}
@@ -0,0 +1,108 @@
+package org.revolut.moneytransfer.service.transfer;
+
+import org.joda.time.DateTime;
+import org.junit.Assert;
+import org.junit.Test;
+import org.revolut.moneytransfer.domain.Account;
+import org.revolut.moneytransfer.domain.Currency;
+import org.revolut.moneytransfer.domain.Money;
+import org.revolut.moneytransfer.domain.MoneyTransfer;
+import org.revolut.moneytransfer.domain.TransferState;
+import org.revolut.moneytransfer.domain.TransferStatus;
+import org.revolut.moneytransfer.domain.User;
+import org.revolut.moneytransfer.exception.MoneyTransferWebServiceException;
+import org.revolut.moneytransfer.service.account.AccountDaoImpl;
+import org.revolut.moneytransfer.service.account.InMemoryAccountStore;
+
+import java.util.ArrayList;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ */
+public class TransferSchedulerTest {
+
+    @Test(timeout = 10_000)
+    public void testScheduledTransfersRunWhenDueUnlessCancelled() throws Exception {
+        final AccountDaoImpl accountDao = AccountDaoImpl.builder(new InMemoryAccountStore()).build();
+        final MoneyTransferDao transferDao = new MoneyTransferDaoImpl(new ArrayList<>(), accountDao);
+        final long source = accountDao.insertNewAccount(account(1000)).getAccountId();
+        final long destination = accountDao.insertNewAccount(account(0)).getAccountId();
+
+        try (TransferScheduler scheduler = new TransferScheduler(transferDao, 2)) {
+            final DateTime executeAt = DateTime.now().plusMillis(200);
+            final TransferState kept = scheduler.schedule(transfer(source, destination, 300), executeAt);
+            final TransferState cancelled = scheduler.schedule(transfer(source, destination, 200), executeAt);
+            try {
+                scheduler.schedule(transfer(source, destination, 100), executeAt);
+                Assert.fail("scheduler is full");
+            } catch (RejectedExecutionException ex) {
+                // expected
+            }
+
+            Assert.assertThat(kept.getStatus(), is(TransferStatus.SCHEDULED));
+            Assert.assertThat(scheduler.status(kept.getTransferId()).get().getTransfer().getExecuteAt(),
+                    is(executeAt));
+            Assert.assertThat(scheduler.cancel(cancelled.getTransferId()), is(true));
+            Assert.assertThat(scheduler.status(cancelled.getTransferId()).get().getStatus(),
+                    is(TransferStatus.CANCELLED));
+            Assert.assertThat(accountDao.getAccountById(destination).getBalance().getMinorUnits(), is(0L));
+
+            while (scheduler.status(kept.getTransferId()).get().getStatus() != TransferStatus.COMPLETED)
+                Thread.sleep(10);
+            Assert.assertThat(DateTime.now().isBefore(executeAt), is(false));
+            Assert.assertThat(scheduler.cancel(kept.getTransferId()), is(false));
+        }
+        Assert.assertThat(accountDao.getAccountById(source).getBalance().getMinorUnits(), is(700L));
+        Assert.assertThat(accountDao.getAccountById(destination).getBalance().getMinorUnits(), is(300L));
+    }
+
+    @Test(timeout = 10_000)
+    public void testTransfersAreCheckedWhenScheduledAndWhenDue() throws Exception {
+        final AccountDaoImpl accountDao = AccountDaoImpl.builder(new InMemoryAccountStore()).build();
+        final MoneyTransferDao transferDao = new MoneyTransferDaoImpl(new ArrayList<>(), accountDao);
+        final long source = accountDao.insertNewAccount(account(1000)).getAccountId();
+        final long destination = accountDao.insertNewAccount(account(0)).getAccountId();
+
+        try (TransferScheduler scheduler = new TransferScheduler(transferDao, 10)) {
+            final DateTime executeAt = DateTime.now().plusMillis(200);
+            try {
+                scheduler.schedule(transfer(source, destination, 1001), executeAt);
+                Assert.fail("source cannot pay it now");
+            } catch (MoneyTransferWebServiceException ex) {
+                Assert.assertThat(ex.getMessage(), is(TransferValidation.Rejection.INSUFFICIENT_FUNDS.getMessage()));
+            }
+            try {
+                scheduler.schedule(transfer(source, Long.MAX_VALUE, 100), executeAt);
+                Assert.fail("destination does not exist");
+            } catch (MoneyTransferWebServiceException ex) {
+                Assert.assertThat(ex.getMessage(),
+                        is(TransferValidation.Rejection.DESTINATION_NOT_FOUND.getMessage()));
+            }
+            Assert.assertThat(scheduler.size(), is(0));
+
+            // fine when scheduled, but the money is gone by the time it is due
+            final TransferState late = scheduler.schedule(transfer(source, destination, 600), executeAt);
+            transferDao.newMoneyTransfer(transfer(source, destination, 500));
+
+            TransferState state;
+            while ((state = scheduler.status(late.getTransferId()).get()).getStatus() == TransferStatus.SCHEDULED
+                    || state.getStatus() == TransferStatus.PENDING)
+                Thread.sleep(10);
+            Assert.assertThat(state.getStatus(), is(TransferStatus.REJECTED));
+            Assert.assertThat(state.getError(), is(TransferValidation.Rejection.INSUFFICIENT_FUNDS.getMessage()));
+        }
+        Assert.assertThat(accountDao.getAccountById(source).getBalance().getMinorUnits(), is(500L));
+    }
+
+    private static MoneyTransfer transfer(final long source, final long destination, final long amount) {
+        return new MoneyTransfer(source, destination, new Money(amount, Currency.EUR), "scheduled");
+    }
+
+    private static Account account(final long balance) {
+        return new Account(new User("Revolut"), new Money(balance, Currency.EUR));
+    }
+}
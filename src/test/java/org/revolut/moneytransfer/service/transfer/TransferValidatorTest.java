@@ -0,0 +1,90 @@
+package org.revolut.moneytransfer.service.transfer;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.revolut.moneytransfer.domain.Account;
+import org.revolut.moneytransfer.domain.AccountStatus;
+import org.revolut.moneytransfer.domain.Currency;
+import org.revolut.moneytransfer.domain.Money;
+import org.revolut.moneytransfer.domain.MoneyTransfer;
+import org.revolut.moneytransfer.domain.User;
+import org.revolut.moneytransfer.service.fx.FxRates;
+
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ */
+public class TransferValidatorTest {
+
+    private final Account source = account(1, 1000, Currency.EUR);
+    private final Account destination = account(2, 0, Currency.EUR);
+
+    @Test
+    public void testValidTransferCarriesBothAccounts() {
+        final TransferValidation validation = TransferValidator.validate(request(1, 2, 1000), source, destination);
+
+        Assert.assertThat(validation.isValid(), is(true));
+        Assert.assertThat(validation.getSource(), is(source));
+        Assert.assertThat(validation.getDestination(), is(destination));
+        Assert.assertThat(validation.getRejection(), nullValue());
+    }
+
+    @Test
+    public void testRulesAreCheckedInOrder() {
+        Assert.assertThat(rejection(request(1, 1, 10), source, source),
+                is(TransferValidation.Rejection.SAME_ACCOUNT));
+        Assert.assertThat(rejection(request(1, 2, 10), null, null),
+                is(TransferValidation.Rejection.SOURCE_NOT_FOUND));
+        Assert.assertThat(rejection(request(1, 2, 10), source, null),
+                is(TransferValidation.Rejection.DESTINATION_NOT_FOUND));
+        Assert.assertThat(rejection(request(1, 2, 1001), source, destination),
+                is(TransferValidation.Rejection.INSUFFICIENT_FUNDS));
+    }
+
+    @Test
+    public void testCurrencyMustMatchBothAccounts() {
+        Assert.assertThat(rejection(request(1, 2, 10), account(1, 1000, Currency.GBP), destination),
+                is(TransferValidation.Rejection.CURRENCY_MISMATCH));
+        Assert.assertThat(rejection(request(1, 2, 10), source, account(2, 0, Currency.GBP)),
+                is(TransferValidation.Rejection.CURRENCY_MISMATCH));
+    }
+
+    @Test
+    public void testConversionToZeroIsRejected() {
+        final FxRates rates = FxRates.parse(Arrays.asList("EUR,GBP,0.01"));
+
+        Assert.assertThat(TransferValidator.validate(request(1, 2, 99), source, account(2, 0, Currency.GBP), rates)
+                .getRejection(), is(TransferValidation.Rejection.CONVERSION_UNDERFLOW));
+        Assert.assertThat(TransferValidator.validate(request(1, 2, 100), source, account(2, 0, Currency.GBP), rates)
+                .getCreditedAmount(), is(1L));
+    }
+
+    @Test
+    public void testInactiveAccountIsNotActive() {
+        final Account inactive = account(3, 0, Currency.EUR);
+        inactive.setStatus(AccountStatus.INACTIVE);
+
+        Assert.assertThat(TransferValidator.active(inactive), nullValue());
+        Assert.assertThat(TransferValidator.active(source), is(source));
+    }
+
+    private static TransferValidation.Rejection rejection(final MoneyTransfer request, final Account source,
+                                                          final Account destination) {
+        return TransferValidator.validate(request, source, destination).getRejection();
+    }
+
+    private static MoneyTransfer request(final long source, final long destination, final long amount) {
+        return new MoneyTransfer(source, destination, new Money(amount, Currency.EUR), "test");
+    }
+
+    private static Account account(final long accountId, final long balance, final Currency currency) {
+        final Account account = new Account(new User("Revolut" + accountId), new Money(balance, currency));
+        account.setAccountId(accountId);
+        return account;
+    }
+}
@@ -0,0 +1,81 @@
+package org.revolut.moneytransfer.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ */
+public class AppendOnlyLogTest {
+
+    @Test
+    public void testAppendAcrossChunks() {
+        final AppendOnlyLog<Integer> log = new AppendOnlyLog<>();
+
+        for (int i = 0; i < 50_000; i++)
+            Assert.assertThat(log.append(i), is((long) i));
+
+        Assert.assertThat(log.size(), is(50_000L));
+        for (int i = 0; i < 50_000; i++)
+            Assert.assertThat(log.get(i), is(i));
+    }
+
+    @Test
+    public void testSnapshotDoesNotSeeLaterAppends() {
+        final AppendOnlyLog<String> log = new AppendOnlyLog<>();
+        log.append("a");
+        log.append("b");
+
+        final List<String> snapshot = log.snapshot();
+        log.append("c");
+
+        Assert.assertThat(snapshot.size(), is(2));
+        Assert.assertThat(snapshot.get(1), is("b"));
+        Assert.assertThat(log.size(), is(3L));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetBeyondPublishedSize() {
+        final AppendOnlyLog<String> log = new AppendOnlyLog<>();
+        log.append("a");
+        log.get(1);
+    }
+
+    @Test
+    public void testConcurrentAppendsPublishWithoutHoles() throws Exception {
+        final AppendOnlyLog<Long> log = new AppendOnlyLog<>();
+        final int threads = 8;
+        final int appendsPerThread = 20_000;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                for (long i = 0; i < appendsPerThread; i++) {
+                    final long position = log.append(i);
+                    // the appended entry is published before append returns
+                    Assert.assertThat(log.size() > position, is(true));
+                    Assert.assertThat(log.get(position), is(i));
+                    // every published position must already be readable
+                    final List<Long> snapshot = log.snapshot();
+                    Assert.assertThat(snapshot.get(snapshot.size() - 1), notNullValue());
+                }
+            }));
+        }
+        for (Future<?> future : futures)
+            future.get();
+        executor.shutdown();
+
+        Assert.assertThat(log.size(), is((long) threads * appendsPerThread));
+    }
+}
@@ -0,0 +1,74 @@
+package org.revolut.moneytransfer.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ */
+public class ConcurrentLongHashMapTest {
+
+    @Test
+    public void testPutAndGet() {
+        final ConcurrentLongHashMap<String> map = new ConcurrentLongHashMap<>(0, 4);
+
+        for (long key = -1000; key <= 1000; key++)
+            map.put(key, "value" + key);
+
+        Assert.assertThat(map.size(), is(2001L));
+        for (long key = -1000; key <= 1000; key++)
+            Assert.assertThat(map.get(key), is("value" + key));
+        Assert.assertThat(map.get(1001), nullValue());
+    }
+
+    @Test
+    public void testReplaceAndPutIfAbsent() {
+        final ConcurrentLongHashMap<String> map = new ConcurrentLongHashMap<>();
+
+        Assert.assertThat(map.put(7, "a"), nullValue());
+        Assert.assertThat(map.put(7, "b"), is("a"));
+        Assert.assertThat(map.putIfAbsent(7, "c"), is("b"));
+        Assert.assertThat(map.get(7), is("b"));
+        Assert.assertThat(map.computeIfAbsent(0, key -> "zero"), is("zero"));
+        Assert.assertThat(map.computeIfAbsent(0, key -> "other"), is("zero"));
+        Assert.assertThat(map.size(), is(2L));
+    }
+
+    @Test
+    public void testConcurrentPuts() throws Exception {
+        final ConcurrentLongHashMap<Long> map = new ConcurrentLongHashMap<>(0, 8);
+        final int threads = 8;
+        final int keys = 200_000;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            final int offset = t;
+            futures.add(executor.submit(() -> {
+                for (long key = offset; key < keys; key += threads) {
+                    map.put(key, key);
+                    Assert.assertThat(map.get(key), is(key));
+                }
+            }));
+        }
+        for (Future<?> future : futures)
+            future.get();
+        executor.shutdown();
+
+        final AtomicLong sum = new AtomicLong();
+        map.forEachValue(sum::addAndGet);
+        Assert.assertThat(map.size(), is((long) keys));
+        Assert.assertThat(sum.get(), is((long) keys * (keys - 1) / 2));
+    }
+}
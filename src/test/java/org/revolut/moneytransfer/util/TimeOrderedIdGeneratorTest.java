@@ -0,0 +1,57 @@
+package org.revolut.moneytransfer.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ */
+public class TimeOrderedIdGeneratorTest {
+
+    private final TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(7);
+
+    @Test
+    public void testIdsOfOneThreadSortInCreationOrder() throws Exception {
+        String previous = generator.next();
+        for (int i = 0; i < 100_000; i++) {
+            final String id = generator.next();
+            Assert.assertThat(id.compareTo(previous), greaterThan(0));
+            previous = id;
+        }
+        Thread.sleep(2);
+        final String later = new TimeOrderedIdGenerator(0).next();
+        Assert.assertThat(later.compareTo(previous), greaterThan(0));
+        Assert.assertThat(later.length(), is(36));
+    }
+
+    @Test
+    public void testIdsAreUniqueAcrossThreads() throws Exception {
+        final int threads = 8;
+        final int perThread = 50_000;
+        final Set<String> ids = ConcurrentHashMap.newKeySet();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++)
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < perThread; i++)
+                    ids.add(generator.next());
+            }));
+        for (Future<?> future : futures)
+            future.get();
+        executor.shutdown();
+
+        Assert.assertThat(ids.size(), is(threads * perThread));
+    }
+}
@@ -0,0 +1,77 @@
+package org.revolut.moneytransfer.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Created by Sougata Bhattacharjee
+ * On 18.10.26
+ */
+public class TimingWheelTest {
+
+    @Test
+    public void testValuesExpireAtTheirDeadlineAcrossLevels() {
+        final TimingWheel<Long> wheel = new TimingWheel<>(1, 1_000);
+        final Random random = new Random(42);
+        final List<Long> deadlines = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            // spread over all four levels, and a few past the top one
+            final long deadline = 1_001 + (long) Math.pow(2, random.nextDouble() * 34);
+            deadlines.add(deadline);
+            wheel.schedule(deadline, deadline);
+        }
+
+        final List<Long> expired = new ArrayList<>();
+        long now = 1_000;
+        while (wheel.size() > 0) {
+            now += 1 + random.nextInt(1 << 20);
+            final long at = now;
+            wheel.advance(now, deadline -> {
+                Assert.assertThat("expired late or early", deadline <= at, is(true));
+                Assert.assertThat("expired late", deadline > at - (1 << 20) - 1, is(true));
+                expired.add(deadline);
+            });
+        }
+        deadlines.sort(Long::compare);
+        expired.sort(Long::compare);
+        Assert.assertThat(expired, is(deadlines));
+    }
+
+    @Test
+    public void testExpiresInDeadlineOrderAndRoundsUpToATick() {
+        final TimingWheel<String> wheel = new TimingWheel<>(10, 0);
+        wheel.schedule(300, "c");
+        wheel.schedule(105, "b");
+        wheel.schedule(-5, "a");
+
+        final List<String> expired = new ArrayList<>();
+        wheel.advance(109, expired::add);
+        Assert.assertThat(expired, contains("a"));
+        wheel.advance(110, expired::add);
+        wheel.advance(1_000, expired::add);
+        Assert.assertThat(expired, contains("a", "b", "c"));
+    }
+
+    @Test
+    public void testCancelledValuesNeverExpire() {
+        final TimingWheel<String> wheel = new TimingWheel<>(1, 0);
+        final TimingWheel.Timeout<String> cancelled = wheel.schedule(70_000, "cancelled");
+        wheel.schedule(70_000, "kept");
+
+        Assert.assertThat(wheel.cancel(cancelled), is(true));
+        Assert.assertThat(wheel.cancel(cancelled), is(false));
+        final List<String> expired = new ArrayList<>();
+        wheel.advance(100_000, expired::add);
+        Assert.assertThat(expired, contains("kept"));
+        Assert.assertThat(wheel.size(), is(0L));
+        wheel.advance(200_000, expired::add);
+        Assert.assertThat(expired, contains("kept"));
+    }
+}